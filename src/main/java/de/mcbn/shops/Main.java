@@ -1,20 +1,26 @@
 package de.mcbn.shops;
 
+import de.mcbn.shops.api.AuctionAPI;
 import de.mcbn.shops.api.ShopAPI;
-import de.mcbn.shops.auction.AuctionGUI;
+import de.mcbn.shops.api.SnapshotPublisher;
 import de.mcbn.shops.auction.AuctionManager;
 import de.mcbn.shops.chat.ChatPromptService;
+import de.mcbn.shops.gui.GuiRouter;
+import de.mcbn.shops.gui.LiveViews;
+import de.mcbn.shops.gui.PageBuilder;
+import de.mcbn.shops.market.PriceHistory;
 import de.mcbn.shops.integration.MCBNTabChatIntegration;
 import de.mcbn.shops.keeper.KeeperCommands;
 import de.mcbn.shops.keeper.KeeperListener;
 import de.mcbn.shops.keeper.KeeperManager;
 import de.mcbn.shops.order.OrderManager;
+import de.mcbn.shops.order.ShoppingListParser;
 import de.mcbn.shops.shop.ScoreboardService;
 import de.mcbn.shops.shop.ShopCommands;
 import de.mcbn.shops.shop.ShopListener;
 import de.mcbn.shops.shop.ShopManager;
+import de.mcbn.shops.shop.ShopPurchaseService;
 import de.mcbn.shops.shop.gui.ShopBuyGUI;
-import de.mcbn.shops.shop.gui.ShopCreateGUI;
 import de.mcbn.shops.util.AuctionReminderService;
 import de.mcbn.shops.util.BossBarService;
 import de.mcbn.shops.util.DisplayService;
@@ -27,19 +33,28 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.util.Objects;
 
 public class Main extends JavaPlugin {
+    /** Name aus plugin.yml (für getPlugin-Lookups der API). */
+    public static final String PLUGIN_NAME = "MCBN-Shops";
+
     private static Main instance;
     private ShopAPI shopAPI;
+    private AuctionAPI auctionAPI;
     private Messages messages;
     private ChatPromptService prompts;
     private ShopManager shopManager;
+    private ShopPurchaseService purchaseService;
     private ScoreboardService scoreboardService;
     private AuctionManager auctionManager;
     private BossBarService bossBarService;
     private AuctionReminderService auctionReminderService;
+    private PriceHistory priceHistory;
     private DisplayService displayService;
     private KeeperManager keeperManager;
     private OrderManager orderManager;
     private Scheduler scheduler;
+    private LiveViews liveViews;
+    private PageBuilder pageBuilder;
+    private SnapshotPublisher snapshots;
     private TutorialBroadcastService tutorialBroadcastService;
     private MCBNTabChatIntegration tabChatIntegration;
 
@@ -55,34 +70,39 @@ public class Main extends JavaPlugin {
 
         this.messages = new Messages(this);
         this.prompts = new ChatPromptService(this);
+        this.liveViews = new LiveViews(this);
+        this.pageBuilder = new PageBuilder(this);
+        this.snapshots = new SnapshotPublisher(this);
         this.shopManager = new ShopManager(this);
+        this.purchaseService = new ShopPurchaseService(this, shopManager);
         this.shopAPI = new ShopAPI(this);
         this.scoreboardService = new ScoreboardService(this, shopManager);
+        this.priceHistory = new PriceHistory(this);
         this.auctionManager = new AuctionManager(this, prompts);
+        this.auctionAPI = new AuctionAPI(this);
         this.bossBarService = new BossBarService(this, auctionManager);
         this.auctionReminderService = new AuctionReminderService(this, auctionManager);
         this.displayService = new DisplayService(this, shopManager);
         this.keeperManager = new KeeperManager(this);
         this.orderManager = new OrderManager(this);
+        shopManager.stock().addChangeListener(orderManager.book()); // Kauforders bei neuem Bestand bedienen
+        shopManager.stock().addChangeListener(liveViews); // offene GUIs bei Bestandsänderung aktualisieren
+        shopManager.stock().addChangeListener(snapshots); // Bestand im API-Snapshot
+        liveViews.start();
         this.scheduler = new Scheduler(this);
         this.tutorialBroadcastService = new TutorialBroadcastService(this);
 
         // --- Listener-Registrierungen ---
         Bukkit.getPluginManager().registerEvents(prompts, this);
 
-        // BUGFIX: Erstelle ShopBuyGUI zuerst, damit es an ShopListener übergeben werden kann
-        // Verhindert doppelte Listener-Registrierung
-        ShopBuyGUI shopBuyGUI = new ShopBuyGUI(this, shopManager);
-        Bukkit.getPluginManager().registerEvents(shopBuyGUI, this);
+        // PERFORMANCE FIX: Ein einziger Listener verteilt alle GUI-Klicks per Slot-Aktion
+        Bukkit.getPluginManager().registerEvents(new GuiRouter(liveViews), this);
 
+        ShopBuyGUI shopBuyGUI = new ShopBuyGUI(this, shopManager);
         Bukkit.getPluginManager().registerEvents(new ShopListener(this, shopManager, prompts, shopBuyGUI), this);
-        Bukkit.getPluginManager().registerEvents(new AuctionGUI(this, auctionManager, prompts), this);
         Bukkit.getPluginManager().registerEvents(new KeeperListener(this, keeperManager, shopManager, prompts), this);
-        Bukkit.getPluginManager().registerEvents(new de.mcbn.shops.keeper.gui.KeeperMenuGUI(this, keeperManager, shopManager), this);
-
-        // --- NEU: GUI-basierte Shop-Funktionen ---
-        Bukkit.getPluginManager().registerEvents(new ShopCreateGUI(this, shopManager), this);
         Bukkit.getPluginManager().registerEvents(scoreboardService, this);
+        Bukkit.getPluginManager().registerEvents(auctionReminderService, this);
 
         // --- Commands ---
         Objects.requireNonNull(getCommand("shop"))
@@ -97,24 +117,39 @@ public class Main extends JavaPlugin {
                         sender.sendMessage(messages.prefixed("no-permission"));
                         return true;
                     }
+                    if (args.length > 0 && args[0].equalsIgnoreCase("benchparse")) {
+                        // Messung blockiert den Hauptthread nicht; Ergebnis kommt auf dem Hauptthread zurück
+                        sender.sendMessage(messages.prefixed("parser-benchmark-started"));
+                        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+                            String result = ShoppingListParser.benchmark(100, 200);
+                            Bukkit.getScheduler().runTask(this, () ->
+                                    sender.sendMessage(messages.prefixedFormat("parser-benchmark", "result", result)));
+                        });
+                        return true;
+                    }
                     reloadEverything();
                     sender.sendMessage(messages.prefixed("reloaded"));
                     return true;
                 });
 
         // --- Daten laden ---
+        priceHistory.load();
         shopManager.loadShops();
         auctionManager.loadAuctions();
         keeperManager.load();
         orderManager.load();
+        snapshots.resync();
 
         // --- Hintergrunddienste starten ---
         scoreboardService.start();
+        auctionManager.startExpiryScheduler();
         bossBarService.start();
         auctionReminderService.start();
         displayService.start();
         tutorialBroadcastService.start();
         scheduler.startAutosave();
+        priceHistory.start();
+        keeperManager.startLod();
 
         // --- MCBNTabChat Integration (optional) ---
         tabChatIntegration = new MCBNTabChatIntegration(this);
@@ -135,11 +170,17 @@ public class Main extends JavaPlugin {
             }
 
             scoreboardService.stop();
+            auctionManager.stopExpiryScheduler();
             bossBarService.stop();
             auctionReminderService.stop();
             displayService.stop();
             tutorialBroadcastService.stop();
             scheduler.stop(); // Autosave-Task stoppen
+            keeperManager.movement().stop(); // Laufende Einkaufsreisen abbrechen (KI zurücksetzen)
+            keeperManager.stopLod(); // Gespawnte Villager entfernen (Keeper bleiben als Daten erhalten)
+            keeperManager.remote().stop(); // Chunk-Tickets freigeben
+            liveViews.stop(); // Countdown-Ticker beenden
+            priceHistory.stop(); // Restliche Abschlüsse wegschreiben
             auctionManager.saveAuctions();
             shopManager.saveShops();
             keeperManager.save();
@@ -148,17 +189,29 @@ public class Main extends JavaPlugin {
         } catch (Exception e) {
             getLogger().severe("Fehler beim Speichern: " + e.getMessage());
         }
+        // Erst nach dem Speichern: Schilder aus Massenänderungen noch setzen/entfernen
+        try {
+            shopManager.flushSignWork();
+        } catch (Exception e) {
+            getLogger().severe("Fehler beim Setzen der Shop-Schilder: " + e.getMessage());
+        }
     }
 
     // --- Getter ---
     public ShopAPI getShopAPI() { return shopAPI; }
+    public AuctionAPI getAuctionAPI() { return auctionAPI; }
     public Messages messages() { return messages; }
     public ChatPromptService prompts() { return prompts; }
     public ShopManager shops() { return shopManager; }
+    public ShopPurchaseService purchases() { return purchaseService; }
     public AuctionManager auctions() { return auctionManager; }
+    public PriceHistory market() { return priceHistory; }
     public DisplayService displayService() { return displayService; }
     public KeeperManager keepers() { return keeperManager; }
     public OrderManager orders() { return orderManager; }
+    public LiveViews views() { return liveViews; }
+    public PageBuilder pages() { return pageBuilder; }
+    public SnapshotPublisher snapshots() { return snapshots; }
     public TutorialBroadcastService tutorialBroadcasts() { return tutorialBroadcastService; }
     public MCBNTabChatIntegration tabChatIntegration() { return tabChatIntegration; }
 
@@ -176,7 +229,10 @@ public class Main extends JavaPlugin {
         auctionManager.loadAuctions();
         keeperManager.load();
         orderManager.load();
+        snapshots.resync();
 
+        auctionManager.startExpiryScheduler();
+        keeperManager.startLod();
         bossBarService.reloadFromConfig();
         auctionReminderService.reload();
         displayService.reload();
@@ -0,0 +1,145 @@
+package de.mcbn.shops.api;
+
+import de.mcbn.shops.Main;
+import de.mcbn.shops.auction.Auction;
+import de.mcbn.shops.auction.LotRef;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Query API for the MCBN-Shops auction house.
+ * All lookups are served from the auction indexes, so callers never need to
+ * iterate over every auction.
+ * Results are immutable {@link AuctionView} copies taken at call time, so they can be
+ * read from any thread; they do not change when bids come in later.
+ *
+ * Usage example:
+ * <pre>
+ * AuctionAPI.getInstance().ifPresent(api -> {
+ *     List&lt;AuctionView.Lot&gt; cheapest = api.searchLots(Material.DIAMOND_SWORD, 50, 10);
+ *     // ...
+ * });
+ * </pre>
+ */
+public class AuctionAPI {
+    private final Main plugin;
+
+    public AuctionAPI(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets an active auction by its id
+     *
+     * @param id the auction id
+     * @return Optional containing the auction if it is still active
+     */
+    public Optional<AuctionView> getAuction(String id) {
+        return Optional.ofNullable(plugin.auctions().getAuctions().get(id)).filter(Auction::isActive).map(AuctionView::new);
+    }
+
+    /**
+     * Lists active auctions ordered by end time (ending soonest first)
+     *
+     * @param offset number of auctions to skip
+     * @param limit maximum number of auctions to return
+     * @return list of active auctions
+     */
+    public List<AuctionView> listActive(int offset, int limit) {
+        return auctions(plugin.auctions().index().endingSoonest(Math.max(0, offset), Math.max(0, limit)));
+    }
+
+    /**
+     * Gets all active auctions of a seller
+     *
+     * @param seller the UUID of the seller
+     * @return list of the seller's active auctions
+     */
+    public List<AuctionView> getAuctionsBySeller(UUID seller) {
+        return auctions(plugin.auctions().index().bySeller(seller));
+    }
+
+    /**
+     * Searches lots of a material, cheapest first
+     *
+     * @param material the material to search for
+     * @param maxPrice maximum current price (inclusive)
+     * @param limit maximum number of lots to return
+     * @return list of matching lots
+     */
+    public List<AuctionView.Lot> searchLots(Material material, int maxPrice, int limit) {
+        return lots(plugin.auctions().index().search(material, maxPrice, Math.max(0, limit)));
+    }
+
+    /**
+     * Lists lots across all materials, cheapest first
+     *
+     * @param maxPrice maximum current price (inclusive)
+     * @param offset number of lots to skip
+     * @param limit maximum number of lots to return
+     * @return list of lots
+     */
+    public List<AuctionView.Lot> getCheapestLots(int maxPrice, int offset, int limit) {
+        return lots(plugin.auctions().index().cheapest(maxPrice, Math.max(0, offset), Math.max(0, limit)));
+    }
+
+    /**
+     * Gets auctions ending before a point in time
+     *
+     * @param epochMillis the point in time (milliseconds since epoch)
+     * @param limit maximum number of auctions to return
+     * @return list of auctions, ending soonest first
+     */
+    public List<AuctionView> getAuctionsEndingBefore(long epochMillis, int limit) {
+        return auctions(plugin.auctions().index().endingBefore(epochMillis, Math.max(0, limit)));
+    }
+
+    /**
+     * Gets the number of active auctions
+     *
+     * @return number of active auctions
+     */
+    public int getActiveAuctionCount() {
+        return plugin.auctions().index().auctionCount();
+    }
+
+    /**
+     * Gets the number of active lots
+     *
+     * @return number of active lots
+     */
+    public int getActiveLotCount() {
+        return plugin.auctions().index().lotCount();
+    }
+
+    private static List<AuctionView> auctions(List<Auction> list) {
+        List<AuctionView> out = new ArrayList<>(list.size());
+        for (Auction a : list) out.add(new AuctionView(a));
+        return out;
+    }
+
+    private static List<AuctionView.Lot> lots(List<LotRef> list) {
+        List<AuctionView.Lot> out = new ArrayList<>(list.size());
+        for (LotRef ref : list) out.add(new AuctionView.Lot(ref.auction().id(), ref.lot()));
+        return out;
+    }
+
+    /**
+     * Static method to get the AuctionAPI instance from any plugin
+     *
+     * @return Optional containing the AuctionAPI if MCBN-Shops is loaded
+     */
+    public static Optional<AuctionAPI> getInstance() {
+        Plugin plugin = Bukkit.getPluginManager().getPlugin(Main.PLUGIN_NAME);
+        if (plugin != null && plugin instanceof Main) {
+            return Optional.of(((Main) plugin).getAuctionAPI());
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,91 @@
+package de.mcbn.shops.api;
+
+import de.mcbn.shops.auction.Auction;
+import de.mcbn.shops.auction.AuctionLot;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable view of an active auction, used by {@link MarketSnapshot} and {@link AuctionAPI}.
+ * Safe to read from any thread.
+ */
+public final class AuctionView {
+
+    /**
+     * Immutable view of a single lot
+     */
+    public static final class Lot {
+        private final String auctionId;
+        private final String id;
+        private final ItemStack item;
+        private final int startBid;
+        private final int currentPrice;
+        private final UUID highestBidder;
+
+        Lot(String auctionId, AuctionLot lot) {
+            this.auctionId = auctionId;
+            this.id = lot.id();
+            this.item = lot.item();
+            this.startBid = lot.startBid();
+            this.currentPrice = lot.currentPrice();
+            this.highestBidder = lot.highestBidder();
+        }
+
+        /**
+         * Gets the id of the auction this lot belongs to
+         *
+         * @return the auction id
+         */
+        public String auctionId() { return auctionId; }
+        public String id() { return id; }
+
+        /**
+         * Gets a copy of the auctioned item
+         *
+         * @return the item
+         */
+        public ItemStack item() { return item.clone(); }
+
+        public Material type() { return item.getType(); }
+        public int amount() { return item.getAmount(); }
+        public int startBid() { return startBid; }
+        public int currentPrice() { return currentPrice; }
+
+        /**
+         * Gets the current highest bidder
+         *
+         * @return the bidder or null if nobody has bid yet
+         */
+        public UUID highestBidder() { return highestBidder; }
+    }
+
+    private final String id;
+    private final UUID seller;
+    private final long startMillis;
+    private final long endMillis;
+    private final Material currency;
+    private final List<Lot> lots;
+
+    AuctionView(Auction a) {
+        this.id = a.id();
+        this.seller = a.owner();
+        this.startMillis = a.startMillis();
+        this.endMillis = a.endMillis();
+        this.currency = a.currency();
+        List<Lot> list = new ArrayList<>(a.lots().size());
+        for (AuctionLot lot : a.lots()) list.add(new Lot(a.id(), lot));
+        this.lots = Collections.unmodifiableList(list);
+    }
+
+    public String id() { return id; }
+    public UUID seller() { return seller; }
+    public long startMillis() { return startMillis; }
+    public long endMillis() { return endMillis; }
+    public Material currency() { return currency; }
+    public List<Lot> lots() { return lots; }
+}
@@ -0,0 +1,43 @@
+package de.mcbn.shops.api;
+
+import de.mcbn.shops.keeper.ShopKeeper;
+import de.mcbn.shops.util.BlockPosKey;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable view of a shopkeeper inside a {@link MarketSnapshot}.
+ * Safe to read from any thread.
+ */
+public final class KeeperView {
+    private final UUID id;
+    private final UUID owner;
+    private final String world;
+    private final int x, y, z;
+    private final List<BlockPosKey> linked;
+
+    KeeperView(ShopKeeper k) {
+        this.id = k.uuid();
+        this.owner = k.owner();
+        this.world = k.world();
+        this.x = k.x();
+        this.y = k.y();
+        this.z = k.z();
+        this.linked = List.copyOf(k.linked());
+    }
+
+    public UUID id() { return id; }
+    public UUID owner() { return owner; }
+    public String world() { return world; }
+    public int x() { return x; }
+    public int y() { return y; }
+    public int z() { return z; }
+
+    /**
+     * Gets the shops linked to this keeper
+     *
+     * @return positions of the linked shops
+     */
+    public List<BlockPosKey> linked() { return linked; }
+}
@@ -0,0 +1,68 @@
+package de.mcbn.shops.api;
+
+import de.mcbn.shops.util.BlockPosKey;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Consistent, immutable view of all shops, auctions and shopkeepers at one version.
+ * A new snapshot is published after each batch of changes (at most once per tick);
+ * an instance never changes and can be read from any thread without copying.
+ */
+public final class MarketSnapshot {
+    static final MarketSnapshot EMPTY = new MarketSnapshot(0, 0L,
+            ShopRegions.EMPTY, Collections.emptyMap(), Collections.emptyMap());
+
+    private final long version;
+    private final long publishedAt;
+    private final Map<BlockPosKey, ShopView> shops;
+    private final Map<String, AuctionView> auctions;
+    private final Map<UUID, KeeperView> keepers;
+
+    /** The maps must already be unmodifiable and are never changed afterwards. */
+    MarketSnapshot(long version, long publishedAt, ShopRegions shops,
+                   Map<String, AuctionView> auctions, Map<UUID, KeeperView> keepers) {
+        this.version = version;
+        this.publishedAt = publishedAt;
+        this.shops = shops;
+        this.auctions = auctions;
+        this.keepers = keepers;
+    }
+
+    /**
+     * Gets the version of this snapshot; it increases with every published batch
+     *
+     * @return the version
+     */
+    public long version() { return version; }
+
+    /**
+     * Gets the time this snapshot was published
+     *
+     * @return milliseconds since epoch
+     */
+    public long publishedAt() { return publishedAt; }
+
+    /**
+     * Gets all shops by position
+     *
+     * @return unmodifiable map of shops
+     */
+    public Map<BlockPosKey, ShopView> shops() { return shops; }
+
+    /**
+     * Gets all active auctions by id
+     *
+     * @return unmodifiable map of auctions
+     */
+    public Map<String, AuctionView> auctions() { return auctions; }
+
+    /**
+     * Gets all shopkeepers by id
+     *
+     * @return unmodifiable map of shopkeepers
+     */
+    public Map<UUID, KeeperView> keepers() { return keepers; }
+}
@@ -3,7 +3,12 @@ package de.mcbn.shops.api;
 import de.mcbn.shops.Main;
 import de.mcbn.shops.api.event.ShopCreatedEvent;
 import de.mcbn.shops.api.event.ShopRemovedEvent;
+import de.mcbn.shops.api.event.ShopsCreatedEvent;
+import de.mcbn.shops.api.event.ShopsRemovedEvent;
+import de.mcbn.shops.market.PriceStats;
+import de.mcbn.shops.market.PriceWindow;
 import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.util.BlockPosKey;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -12,23 +17,32 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
- * Main API for MCBN-Shop plugin.
+ * Main API for MCBN-Shops plugin.
  * This class provides methods for external plugins to interact with the shop system.
  *
  * Usage example:
  * <pre>
- * Plugin mcbnShop = Bukkit.getPluginManager().getPlugin("MCBN-Shop");
- * if (mcbnShop != null && mcbnShop instanceof Main) {
- *     ShopAPI api = ((Main) mcbnShop).getShopAPI();
+ * Plugin mcbnShops = Bukkit.getPluginManager().getPlugin("MCBN-Shops");
+ * if (mcbnShops instanceof Main) {
+ *     ShopAPI shops = ((Main) mcbnShops).getShopAPI();
+ *     AuctionAPI auctions = ((Main) mcbnShops).getAuctionAPI();
  *     // Use API methods...
  * }
+ *
+ * // or
+ * ShopAPI.getInstance().ifPresent(api -&gt; ...);
+ * AuctionAPI.getInstance().ifPresent(api -&gt; ...);
  * </pre>
  */
 public class ShopAPI {
@@ -72,7 +86,8 @@ public class ShopAPI {
     }
 
     /**
-     * Gets all shops in the system
+     * Gets all shops in the system (a fresh copy on every call).
+     * Consumers on other threads should use {@link #getSnapshot()} instead.
      *
      * @return collection of all shops
      */
@@ -218,6 +233,77 @@ public class ShopAPI {
         return true;
     }
 
+    /**
+     * Creates many shops at once (e.g. migration or region reset tools).
+     * Owners do not need to be online; each shop carries its own sign face and currency.
+     * Fires a single ShopsCreatedEvent which can cancel the whole batch,
+     * saves once and places the signs over the following ticks.
+     * Shops at positions that are already shops (or duplicated in the batch) are skipped.
+     *
+     * @param batch the shops to create
+     * @return the shops that were created
+     */
+    public List<Shop> createShops(Collection<Shop> batch) {
+        List<Shop> accepted = new ArrayList<>(batch.size());
+        Set<BlockPosKey> seen = new HashSet<>();
+        for (Shop s : batch) {
+            if (s == null || s.template() == null || s.signFace() == null || s.currency() == null) continue;
+            if (plugin.shops().get(s.pos()).isPresent() || !seen.add(s.pos())) continue;
+            accepted.add(s);
+        }
+        if (accepted.size() < batch.size()) {
+            plugin.getLogger().warning("createShops: " + (batch.size() - accepted.size()) + " invalid or existing shops skipped");
+        }
+        if (accepted.isEmpty()) return Collections.emptyList();
+
+        List<Shop> shops = Collections.unmodifiableList(accepted);
+        ShopsCreatedEvent event = new ShopsCreatedEvent(shops);
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+            plugin.getLogger().info("Batch shop creation cancelled by event");
+            return Collections.emptyList();
+        }
+
+        plugin.shops().createShops(shops);
+        return shops;
+    }
+
+    /**
+     * Removes many shops at once.
+     * Fires a single ShopsRemovedEvent, saves once and removes the signs over the following ticks;
+     * chunks that are not loaded are loaded asynchronously first.
+     *
+     * @param positions the shop positions; positions without a shop are ignored
+     * @return the shops that were removed
+     */
+    public List<Shop> removeShops(Collection<BlockPosKey> positions) {
+        return removeShops(null, positions);
+    }
+
+    /**
+     * Removes many shops at once.
+     * Fires a single ShopsRemovedEvent, saves once and removes the signs over the following ticks;
+     * chunks that are not loaded are loaded asynchronously first.
+     *
+     * @param remover the player removing the shops (can be null)
+     * @param positions the shop positions; positions without a shop are ignored
+     * @return the shops that were removed
+     */
+    public List<Shop> removeShops(Player remover, Collection<BlockPosKey> positions) {
+        List<Shop> found = new ArrayList<>();
+        Set<BlockPosKey> seen = new HashSet<>();
+        for (BlockPosKey pos : positions) {
+            if (!seen.add(pos)) continue;
+            plugin.shops().get(pos).ifPresent(found::add);
+        }
+        if (found.isEmpty()) return Collections.emptyList();
+
+        List<Shop> shops = Collections.unmodifiableList(found);
+        Bukkit.getPluginManager().callEvent(new ShopsRemovedEvent(remover, shops));
+        plugin.shops().removeShops(seen);
+        return shops;
+    }
+
     /**
      * Gets the shop owner's UUID from a shop block
      *
@@ -269,7 +355,52 @@ public class ShopAPI {
     }
 
     /**
-     * Gets the MCBN-Shop plugin instance
+     * Gets market statistics (median, VWAP, volume) of a material
+     * from auction results and shop purchases
+     *
+     * @param material the traded material
+     * @param window the time window (1h, 24h or 7d)
+     * @return the statistics; empty (volume 0) if nothing was traded in the window
+     */
+    public PriceStats getPriceStats(Material material, PriceWindow window) {
+        return plugin.market().stats(material, window);
+    }
+
+    /**
+     * Gets a suggested price for a quantity of a material based on recent trades
+     *
+     * @param material the material
+     * @param quantity number of items
+     * @return Optional containing the suggested total price if there is trade data
+     */
+    public Optional<Integer> getSuggestedPrice(Material material, int quantity) {
+        int price = plugin.market().suggestedPrice(material, quantity);
+        return price > 0 ? Optional.of(price) : Optional.empty();
+    }
+
+    /**
+     * Gets the current snapshot of all shops, auctions and shopkeepers.
+     * The snapshot is immutable and can be read from any thread without copying;
+     * it may lag behind the main thread by up to one tick.
+     *
+     * @return the latest published snapshot
+     */
+    public MarketSnapshot getSnapshot() {
+        return plugin.snapshots().snapshot();
+    }
+
+    /**
+     * Gets all snapshot changes after a version, oldest first. Can be called from any thread.
+     *
+     * @param version the last snapshot version the caller has processed
+     * @return the changes, or empty if the version is too old (start over with {@link #getSnapshot()})
+     */
+    public Optional<List<SnapshotChange>> getChangesSince(long version) {
+        return plugin.snapshots().changesSince(version);
+    }
+
+    /**
+     * Gets the MCBN-Shops plugin instance
      *
      * @return the plugin instance
      */
@@ -280,10 +411,10 @@ public class ShopAPI {
     /**
      * Static method to get the ShopAPI instance from any plugin
      *
-     * @return Optional containing the ShopAPI if MCBN-Shop is loaded
+     * @return Optional containing the ShopAPI if MCBN-Shops is loaded
      */
     public static Optional<ShopAPI> getInstance() {
-        Plugin plugin = Bukkit.getPluginManager().getPlugin("MCBN-Shop");
+        Plugin plugin = Bukkit.getPluginManager().getPlugin(Main.PLUGIN_NAME);
         if (plugin != null && plugin instanceof Main) {
             return Optional.of(((Main) plugin).getShopAPI());
         }
@@ -0,0 +1,141 @@
+package de.mcbn.shops.api;
+
+import de.mcbn.shops.util.BlockPosKey;
+
+import java.util.*;
+
+/**
+ * Read-only shop map of a {@link MarketSnapshot}, split into buckets of 512x512 blocks per world.
+ * The next version copies only the buckets that changed; all others are shared between snapshots.
+ */
+final class ShopRegions extends AbstractMap<BlockPosKey, ShopView> {
+    static final ShopRegions EMPTY = new ShopRegions(Collections.emptyMap(), 0);
+
+    /** World plus region coordinates of a bucket. */
+    private static final class Region {
+        final String world;
+        final int x, z;
+
+        Region(BlockPosKey pos) {
+            this.world = pos.world;
+            this.x = pos.x >> 9;
+            this.z = pos.z >> 9;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Region)) return false;
+            Region that = (Region) o;
+            return x == that.x && z == that.z && world.equals(that.world);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(world, x, z);
+        }
+    }
+
+    private final Map<Region, Map<BlockPosKey, ShopView>> buckets;
+    private final int size;
+
+    private ShopRegions(Map<Region, Map<BlockPosKey, ShopView>> buckets, int size) {
+        this.buckets = buckets;
+        this.size = size;
+    }
+
+    @Override
+    public ShopView get(Object key) {
+        if (!(key instanceof BlockPosKey)) return null;
+        Map<BlockPosKey, ShopView> bucket = buckets.get(new Region((BlockPosKey) key));
+        return bucket == null ? null : bucket.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<BlockPosKey, ShopView>> entrySet() {
+        return new AbstractSet<Entry<BlockPosKey, ShopView>>() {
+            @Override
+            public Iterator<Entry<BlockPosKey, ShopView>> iterator() {
+                Iterator<Map<BlockPosKey, ShopView>> outer = buckets.values().iterator();
+                return new Iterator<Entry<BlockPosKey, ShopView>>() {
+                    Iterator<Entry<BlockPosKey, ShopView>> inner = Collections.emptyIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!inner.hasNext() && outer.hasNext()) inner = outer.next().entrySet().iterator();
+                        return inner.hasNext();
+                    }
+
+                    @Override
+                    public Entry<BlockPosKey, ShopView> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return inner.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Builds the next version on top of an existing one. Only the outer bucket table and the
+     * buckets that are written to get copied. Main thread only; the builder is used once.
+     */
+    static final class Builder {
+        private final Map<Region, Map<BlockPosKey, ShopView>> buckets;
+        private final Set<Region> copied = new HashSet<>();
+        private int size;
+
+        Builder(ShopRegions base) {
+            this.buckets = new HashMap<>(base.buckets);
+            this.size = base.size;
+        }
+
+        /** @return the previous view, or null */
+        ShopView put(BlockPosKey pos, ShopView view) {
+            ShopView before = writable(new Region(pos)).put(pos, view);
+            if (before == null) size++;
+            return before;
+        }
+
+        /** @return the removed view, or null */
+        ShopView remove(BlockPosKey pos) {
+            Region region = new Region(pos);
+            Map<BlockPosKey, ShopView> bucket = buckets.get(region);
+            if (bucket == null || !bucket.containsKey(pos)) return null;
+            bucket = writable(region);
+            ShopView before = bucket.remove(pos);
+            size--;
+            if (bucket.isEmpty()) {
+                buckets.remove(region);
+                copied.remove(region);
+            }
+            return before;
+        }
+
+        ShopRegions build() {
+            for (Region region : copied) buckets.put(region, Collections.unmodifiableMap(buckets.get(region)));
+            return new ShopRegions(buckets, size);
+        }
+
+        private Map<BlockPosKey, ShopView> writable(Region region) {
+            if (copied.add(region)) {
+                Map<BlockPosKey, ShopView> bucket = buckets.get(region);
+                buckets.put(region, bucket == null ? new HashMap<>() : new HashMap<>(bucket));
+            }
+            return buckets.get(region);
+        }
+    }
+}
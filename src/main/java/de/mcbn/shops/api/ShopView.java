@@ -0,0 +1,69 @@
+package de.mcbn.shops.api;
+
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.util.BlockPosKey;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Immutable view of a shop inside a {@link MarketSnapshot}.
+ * All values are copied when the snapshot is published; safe to read from any thread.
+ */
+public final class ShopView {
+    private final BlockPosKey pos;
+    private final UUID owner;
+    private final ItemStack template;
+    private final int bundleAmount;
+    private final int price;
+    private final Material currency;
+    private final BlockFace signFace;
+    private final int stock;
+
+    ShopView(Shop shop, int stock) {
+        this.pos = shop.pos();
+        this.owner = shop.owner();
+        this.template = shop.template().clone();
+        this.bundleAmount = shop.bundleAmount();
+        this.price = shop.price();
+        this.currency = shop.currency();
+        this.signFace = shop.signFace();
+        this.stock = stock;
+    }
+
+    /**
+     * Gets the position of the shop container
+     *
+     * @return the block position
+     */
+    public BlockPosKey pos() { return pos; }
+    public UUID owner() { return owner; }
+
+    /**
+     * Gets a copy of the item template being sold
+     *
+     * @return the item template
+     */
+    public ItemStack template() { return template.clone(); }
+
+    public Material type() { return template.getType(); }
+    public int bundleAmount() { return bundleAmount; }
+
+    /**
+     * Gets the price per bundle
+     *
+     * @return the price in {@link #currency()}
+     */
+    public int price() { return price; }
+    public Material currency() { return currency; }
+    public BlockFace signFace() { return signFace; }
+
+    /**
+     * Gets the last known stock of the shop in items
+     *
+     * @return stock in items, or -1 if it was never measured
+     */
+    public int stock() { return stock; }
+}
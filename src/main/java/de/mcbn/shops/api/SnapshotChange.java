@@ -0,0 +1,46 @@
+package de.mcbn.shops.api;
+
+/**
+ * One entry of the snapshot change feed ({@link SnapshotPublisher#changesSince(long)}).
+ * <p>
+ * The key depends on the kind: a {@link de.mcbn.shops.util.BlockPosKey} for shops, the auction id
+ * (String) for auctions and the keeper id ({@link java.util.UUID}) for keepers. The value is the
+ * new {@link ShopView}, {@link AuctionView} or {@link KeeperView}, or null if the entry was removed.
+ */
+public final class SnapshotChange {
+
+    public enum Kind { SHOP, AUCTION, KEEPER }
+
+    public enum Type { ADDED, UPDATED, REMOVED }
+
+    private final long version;
+    private final Kind kind;
+    private final Type type;
+    private final Object key;
+    private final Object value;
+
+    SnapshotChange(long version, Kind kind, Type type, Object key, Object value) {
+        this.version = version;
+        this.kind = kind;
+        this.type = type;
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * Gets the snapshot version that first contains this change
+     *
+     * @return the version
+     */
+    public long version() { return version; }
+    public Kind kind() { return kind; }
+    public Type type() { return type; }
+    public Object key() { return key; }
+
+    /**
+     * Gets the new state of the entry
+     *
+     * @return the new view, or null if the entry was removed
+     */
+    public Object value() { return value; }
+}
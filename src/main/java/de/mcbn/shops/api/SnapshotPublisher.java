@@ -0,0 +1,230 @@
+package de.mcbn.shops.api;
+
+import de.mcbn.shops.Main;
+import de.mcbn.shops.auction.Auction;
+import de.mcbn.shops.keeper.ShopKeeper;
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.shop.StockCache;
+import de.mcbn.shops.util.BlockPosKey;
+import org.bukkit.Bukkit;
+
+import java.util.*;
+
+/**
+ * Publishes copy-on-write {@link MarketSnapshot}s for readers on other threads.
+ * <p>
+ * Mutations on the main thread only mark the changed shop, auction or keeper as dirty. The first
+ * mark in a tick schedules one publish for the next tick; it copies the changed parts of the previous
+ * snapshot (shops per region bucket), applies all dirty entries and records the changes with the new
+ * version. Readers get the current snapshot
+ * and the change feed with a single volatile read.
+ * <p>
+ * The mark methods must be called on the main thread. After a reload the history is reset;
+ * {@link #changesSince(long)} then returns empty for older versions and readers start over
+ * from {@link #snapshot()}.
+ */
+public class SnapshotPublisher implements StockCache.ChangeListener {
+
+    /**
+     * Snapshot plus change history, replaced as a whole. The history is the range {@code [from, to)}
+     * of an append-only log; slots in that range are never written again, so old states stay valid
+     * while the main thread appends behind {@code to}.
+     */
+    private static final class State {
+        final MarketSnapshot snapshot;
+        /** Versions before this one are not in the history. */
+        final long oldest;
+        final SnapshotChange[] log;
+        final int from, to;
+
+        State(MarketSnapshot snapshot, long oldest, SnapshotChange[] log, int from, int to) {
+            this.snapshot = snapshot;
+            this.oldest = oldest;
+            this.log = log;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final SnapshotChange[] NO_CHANGES = new SnapshotChange[0];
+
+    private final Main plugin;
+    private volatile State state = new State(MarketSnapshot.EMPTY, 0, NO_CHANGES, 0, 0);
+
+    private final Set<BlockPosKey> dirtyShops = new HashSet<>();
+    private final Set<String> dirtyAuctions = new HashSet<>();
+    private final Set<UUID> dirtyKeepers = new HashSet<>();
+    private boolean resync;
+    private boolean scheduled;
+
+    public SnapshotPublisher(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets the current snapshot. Safe to call from any thread.
+     *
+     * @return the latest published snapshot
+     */
+    public MarketSnapshot snapshot() {
+        return state.snapshot;
+    }
+
+    /**
+     * Gets all changes published after a version, oldest first. Safe to call from any thread.
+     *
+     * @param version the last version the caller has seen
+     * @return the changes, or empty if the version is no longer covered by the history
+     *         (the caller should start over from {@link #snapshot()})
+     */
+    public Optional<List<SnapshotChange>> changesSince(long version) {
+        State s = state;
+        if (version >= s.snapshot.version()) return Optional.of(Collections.emptyList());
+        if (version + 1 < s.oldest) return Optional.empty();
+        int from = s.to;
+        while (from > s.from && s.log[from - 1].version() > version) from--;
+        return Optional.of(Collections.unmodifiableList(Arrays.asList(s.log).subList(from, s.to)));
+    }
+
+    public void shopChanged(BlockPosKey pos) {
+        dirtyShops.add(pos);
+        schedule();
+    }
+
+    public void auctionChanged(String id) {
+        dirtyAuctions.add(id);
+        schedule();
+    }
+
+    public void keeperChanged(UUID id) {
+        dirtyKeepers.add(id);
+        schedule();
+    }
+
+    /** Rebuilds the whole snapshot with the next publish and resets the change history (after loading). */
+    public void resync() {
+        resync = true;
+        schedule();
+    }
+
+    @Override
+    public void onStockChanged(BlockPosKey pos, int before, int after) {
+        shopChanged(pos);
+    }
+
+    private void schedule() {
+        if (scheduled || !plugin.isEnabled()) return; // no tasks can be scheduled while disabling
+        scheduled = true;
+        Bukkit.getScheduler().runTask(plugin, this::publish);
+    }
+
+    /** Publishes all marked changes immediately (main thread). */
+    public void publish() {
+        scheduled = false;
+        State old = state;
+        long version = old.snapshot.version() + 1;
+        long now = System.currentTimeMillis();
+        if (resync) {
+            resync = false;
+            dirtyShops.clear();
+            dirtyAuctions.clear();
+            dirtyKeepers.clear();
+            state = new State(full(version, now), version + 1, NO_CHANGES, 0, 0);
+            return;
+        }
+        if (dirtyShops.isEmpty() && dirtyAuctions.isEmpty() && dirtyKeepers.isEmpty()) return;
+
+        List<SnapshotChange> changes = new ArrayList<>();
+        ShopRegions shops = (ShopRegions) old.snapshot.shops();
+        if (!dirtyShops.isEmpty()) {
+            // Copy only the region buckets of the changed shops, not the whole map
+            ShopRegions.Builder next = new ShopRegions.Builder(shops);
+            for (BlockPosKey pos : dirtyShops) {
+                Shop s = plugin.shops().get(pos).orElse(null);
+                ShopView view = s == null ? null : shopView(s);
+                record(pos, view == null ? next.remove(pos) : next.put(pos, view), view,
+                        SnapshotChange.Kind.SHOP, version, changes);
+            }
+            shops = next.build();
+            dirtyShops.clear();
+        }
+        Map<String, AuctionView> auctions = old.snapshot.auctions();
+        if (!dirtyAuctions.isEmpty()) {
+            auctions = new HashMap<>(auctions);
+            for (String id : dirtyAuctions) {
+                Auction a = plugin.auctions().getAuctions().get(id);
+                apply(auctions, id, a == null ? null : new AuctionView(a), SnapshotChange.Kind.AUCTION, version, changes);
+            }
+            dirtyAuctions.clear();
+        }
+        Map<UUID, KeeperView> keepers = old.snapshot.keepers();
+        if (!dirtyKeepers.isEmpty()) {
+            keepers = new HashMap<>(keepers);
+            for (UUID id : dirtyKeepers) {
+                ShopKeeper k = plugin.keepers().get(id);
+                apply(keepers, id, k == null ? null : new KeeperView(k), SnapshotChange.Kind.KEEPER, version, changes);
+            }
+            dirtyKeepers.clear();
+        }
+        if (changes.isEmpty()) return;
+
+        // Append to the log and trim its start by index; only a full log is copied, and then only
+        // the live part (amortised O(1) per change)
+        int limit = Math.max(0, plugin.getConfig().getInt("api.snapshot.history-size", 4096));
+        SnapshotChange[] log = old.log;
+        int from = old.from, to = old.to;
+        if (to + changes.size() > log.length) {
+            int live = to - from;
+            SnapshotChange[] grown = new SnapshotChange[Math.max(16, 2 * (live + changes.size()))];
+            System.arraycopy(log, from, grown, 0, live);
+            log = grown;
+            from = 0;
+            to = live;
+        }
+        for (SnapshotChange c : changes) log[to++] = c;
+        // Keep the newest entries of the history (whole versions only)
+        long oldest = old.oldest;
+        while (to - from > limit && from < to) {
+            long v = log[from].version();
+            while (from < to && log[from].version() == v) from++;
+            oldest = v + 1;
+        }
+        state = new State(new MarketSnapshot(version, now, shops,
+                readOnly(old.snapshot.auctions(), auctions), readOnly(old.snapshot.keepers(), keepers)), oldest,
+                log, from, to);
+    }
+
+    /** Wraps a newly copied map; an unchanged map is reused as is. */
+    private static <K, V> Map<K, V> readOnly(Map<K, V> before, Map<K, V> after) {
+        return after == before ? before : Collections.unmodifiableMap(after);
+    }
+
+    private static <K, V> void apply(Map<K, V> map, K key, V value, SnapshotChange.Kind kind, long version,
+                                     List<SnapshotChange> changes) {
+        record(key, value == null ? map.remove(key) : map.put(key, value), value, kind, version, changes);
+    }
+
+    private static <K, V> void record(K key, V before, V value, SnapshotChange.Kind kind, long version,
+                                      List<SnapshotChange> changes) {
+        if (value == null && before == null) return; // never published
+        SnapshotChange.Type type = value == null ? SnapshotChange.Type.REMOVED
+                : before == null ? SnapshotChange.Type.ADDED : SnapshotChange.Type.UPDATED;
+        changes.add(new SnapshotChange(version, kind, type, key, value));
+    }
+
+    private MarketSnapshot full(long version, long now) {
+        ShopRegions.Builder shops = new ShopRegions.Builder(ShopRegions.EMPTY);
+        for (Shop s : plugin.shops().all()) shops.put(s.pos(), shopView(s));
+        Map<String, AuctionView> auctions = new HashMap<>();
+        for (Auction a : plugin.auctions().getAuctions().values()) auctions.put(a.id(), new AuctionView(a));
+        Map<UUID, KeeperView> keepers = new HashMap<>();
+        for (ShopKeeper k : plugin.keepers().all()) keepers.put(k.uuid(), new KeeperView(k));
+        return new MarketSnapshot(version, now, shops.build(),
+                Collections.unmodifiableMap(auctions), Collections.unmodifiableMap(keepers));
+    }
+
+    private ShopView shopView(Shop s) {
+        StockCache.Entry e = plugin.shops().stock().get(s.pos());
+        return new ShopView(s, e == null ? -1 : e.items());
+    }
+}
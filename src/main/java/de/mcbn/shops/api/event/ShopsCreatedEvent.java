@@ -0,0 +1,50 @@
+package de.mcbn.shops.api.event;
+
+import de.mcbn.shops.shop.Shop;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.List;
+
+/**
+ * Event that is fired once for a batch of shops created via
+ * {@link de.mcbn.shops.api.ShopAPI#createShops}.
+ * Can be cancelled to prevent the whole batch.
+ */
+public class ShopsCreatedEvent extends Event implements Cancellable {
+    private static final HandlerList HANDLERS = new HandlerList();
+    private boolean cancelled = false;
+    private final List<Shop> shops;
+
+    public ShopsCreatedEvent(List<Shop> shops) {
+        this.shops = shops;
+    }
+
+    /**
+     * Gets the shops that will be created
+     * @return unmodifiable list of shops
+     */
+    public List<Shop> getShops() {
+        return shops;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,50 @@
+package de.mcbn.shops.api.event;
+
+import de.mcbn.shops.shop.Shop;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.List;
+
+/**
+ * Event that is fired once for a batch of shops removed via
+ * {@link de.mcbn.shops.api.ShopAPI#removeShops}.
+ * This event is not cancellable.
+ */
+public class ShopsRemovedEvent extends Event {
+    private static final HandlerList HANDLERS = new HandlerList();
+    private final Player remover;
+    private final List<Shop> shops;
+
+    public ShopsRemovedEvent(Player remover, List<Shop> shops) {
+        this.remover = remover;
+        this.shops = shops;
+    }
+
+    /**
+     * Gets the player who removed the shops
+     * May be null if removed programmatically
+     * @return the remover or null
+     */
+    public Player getRemover() {
+        return remover;
+    }
+
+    /**
+     * Gets the shops that are removed
+     * @return unmodifiable list of shops
+     */
+    public List<Shop> getShops() {
+        return shops;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,303 @@
+package de.mcbn.shops.auction;
+
+import de.mcbn.shops.gui.GuiItems;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Cache für das Auktionshaus.
+ * <p>
+ * Sortierte/gefilterte Ansichten und fertig gerenderte Seiten werden von allen Spielern geteilt
+ * und nur bei Geboten, neuen oder beendeten Auktionen verworfen. Das Öffnen einer Seite kostet
+ * damit höchstens eine Seite (45 Icons) – unabhängig davon, wie viele Lose es insgesamt gibt.
+ * Fehlt eine Seite, wird auf dem Hauptthread nur eine Momentaufnahme ({@link PageRequest}) erstellt;
+ * die Icons entstehen im Hintergrund ({@link #render}).
+ */
+public class AuctionBrowseCache {
+
+    public enum SortMode {
+        ENDING_SOON("Endet bald"),
+        PRICE("Preis"),
+        NEWEST("Neueste");
+
+        private final String label;
+
+        SortMode(String label) { this.label = label; }
+
+        public String label() { return label; }
+
+        public SortMode next() {
+            SortMode[] all = values();
+            return all[(ordinal() + 1) % all.length];
+        }
+    }
+
+    static final int PAGE_SIZE = 45;
+    /** Seiten enthalten einen Countdown – nach dieser Zeit wird neu gerendert. */
+    private static final long PAGE_TTL_MILLIS = 5000L;
+
+    private final Map<String, List<LotRef>> views = new HashMap<>();
+    private final Map<String, Page> pages = new HashMap<>();
+    private final Map<UUID, Set<LotRef>> bidsByPlayer = new HashMap<>();
+    private final Map<String, Set<UUID>> biddersByAuction = new HashMap<>();
+    private List<LotRef> allLots = new ArrayList<>();
+    /** Steigt bei jeder Invalidierung; asynchron gerenderte Seiten älterer Stände werden nicht gecacht. */
+    private int generation;
+
+    /** Eine gerenderte Seite: Icons und die zugehörigen Lose pro Slot. */
+    static final class Page {
+        final ItemStack[] icons;
+        final LotRef[] refs;
+        final int page;
+        final int totalPages;
+        final long builtAt;
+
+        Page(ItemStack[] icons, LotRef[] refs, int page, int totalPages, long builtAt) {
+            this.icons = icons;
+            this.refs = refs;
+            this.page = page;
+            this.totalPages = totalPages;
+            this.builtAt = builtAt;
+        }
+    }
+
+    /* =================== Invalidierung =================== */
+
+    /** Baut alle Daten aus dem aktuellen Auktionsbestand neu auf (Laden/Reload). */
+    void rebuild(Collection<Auction> auctions) {
+        allLots = new ArrayList<>();
+        bidsByPlayer.clear();
+        biddersByAuction.clear();
+        for (Auction a : auctions) addLots(a);
+        invalidate();
+    }
+
+    void onAuctionAdded(Auction a) {
+        addLots(a);
+        invalidate();
+    }
+
+    void onAuctionRemoved(Auction a) {
+        allLots.removeIf(ref -> ref.auction().id().equals(a.id()));
+        Set<UUID> bidders = biddersByAuction.remove(a.id());
+        if (bidders != null) {
+            for (UUID bidder : bidders) {
+                Set<LotRef> own = bidsByPlayer.get(bidder);
+                if (own == null) continue;
+                own.removeIf(ref -> ref.auction().id().equals(a.id()));
+                if (own.isEmpty()) bidsByPlayer.remove(bidder);
+            }
+        }
+        invalidate();
+    }
+
+    void onBid(LotRef ref, UUID bidder) {
+        trackBidder(ref, bidder);
+        // Ablauf- und Neuheits-Reihenfolge bleiben gleich, nur die Preis-Sortierung ändert sich
+        views.keySet().removeIf(key -> key.startsWith(SortMode.PRICE.name()));
+        pages.clear();
+        generation++;
+    }
+
+    private void addLots(Auction a) {
+        for (AuctionLot lot : a.lots()) {
+            LotRef ref = new LotRef(a, lot);
+            allLots.add(ref);
+            if (lot.highestBidder() != null) trackBidder(ref, lot.highestBidder());
+        }
+    }
+
+    private void trackBidder(LotRef ref, UUID bidder) {
+        bidsByPlayer.computeIfAbsent(bidder, k -> new LinkedHashSet<>()).add(ref);
+        biddersByAuction.computeIfAbsent(ref.auction().id(), k -> new HashSet<>()).add(bidder);
+    }
+
+    private void invalidate() {
+        views.clear();
+        pages.clear();
+        generation++;
+    }
+
+    /* =================== Ansichten =================== */
+
+    /** Geteilte, sortierte Ansicht (optional nach Material gefiltert). */
+    List<LotRef> view(SortMode sort, Material filter) {
+        String key = sort.name() + ":" + (filter == null ? "*" : filter.name());
+        List<LotRef> cached = views.get(key);
+        if (cached != null) return cached;
+
+        List<LotRef> list = new ArrayList<>();
+        for (LotRef ref : allLots) {
+            if (filter == null || ref.lot().type() == filter) list.add(ref);
+        }
+        list.sort(comparator(sort));
+        List<LotRef> result = Collections.unmodifiableList(list);
+        views.put(key, result);
+        return result;
+    }
+
+    /** Lose, auf die der Spieler geboten hat (klein, daher pro Aufruf sortiert). */
+    List<LotRef> myBids(UUID player, SortMode sort) {
+        Set<LotRef> own = bidsByPlayer.get(player);
+        if (own == null || own.isEmpty()) return Collections.emptyList();
+        List<LotRef> list = new ArrayList<>(own);
+        list.sort(comparator(sort));
+        return list;
+    }
+
+    int lotCount() {
+        return allLots.size();
+    }
+
+    private static Comparator<LotRef> comparator(SortMode sort) {
+        switch (sort) {
+            case PRICE:
+                return Comparator.comparingInt((LotRef r) -> r.lot().currentPrice())
+                        .thenComparingLong(r -> r.auction().endMillis());
+            case NEWEST:
+                return Comparator.comparingLong((LotRef r) -> r.auction().startMillis()).reversed();
+            case ENDING_SOON:
+            default:
+                return Comparator.comparingLong((LotRef r) -> r.auction().endMillis());
+        }
+    }
+
+    /* =================== Seiten =================== */
+
+    /** Momentaufnahme eines Loses mit allen Werten, die das Icon zeigt (unveränderlich). */
+    static final class LotSnapshot {
+        final LotRef ref;
+        final ItemStack item;
+        final int startBid;
+        final int currentPrice;
+        final int maxBid;
+        final UUID highestBidder;
+        final Material currency;
+        final long endMillis;
+
+        LotSnapshot(LotRef ref) {
+            AuctionLot lot = ref.lot();
+            this.ref = ref;
+            this.item = lot.stack();
+            this.startBid = lot.startBid();
+            this.currentPrice = lot.currentPrice();
+            this.maxBid = lot.maxBid();
+            this.highestBidder = lot.highestBidder();
+            this.currency = ref.auction().currency();
+            this.endMillis = ref.auction().endMillis();
+        }
+    }
+
+    /**
+     * Auftrag für eine Seite: der sichtbare Ausschnitt der Ansicht als Momentaufnahme. Wird auf dem
+     * Hauptthread erstellt und kann danach auf einem beliebigen Thread gerendert werden.
+     */
+    static final class PageRequest {
+        final String key;          // null = persönliche Seite (wird nicht geteilt)
+        final LotSnapshot[] lots;
+        final int page;
+        final int totalPages;
+        final UUID viewer;
+        final int generation;
+
+        PageRequest(String key, LotSnapshot[] lots, int page, int totalPages, UUID viewer, int generation) {
+            this.key = key;
+            this.lots = lots;
+            this.page = page;
+            this.totalPages = totalPages;
+            this.viewer = viewer;
+            this.generation = generation;
+        }
+    }
+
+    /** Geteilte Seite (optional nach Material gefiltert). */
+    PageRequest request(SortMode sort, Material filter, int page) {
+        List<LotRef> view = view(sort, filter);
+        int totalPages = Math.max(1, (view.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        int p = Math.max(0, Math.min(page, totalPages - 1));
+        String key = sort.name() + ":" + (filter == null ? "*" : filter.name()) + ":" + p;
+        return new PageRequest(key, snapshot(view, p), p, totalPages, null, generation);
+    }
+
+    /** Persönliche Seite "Meine Gebote" – wird nicht geteilt. */
+    PageRequest myBidsRequest(UUID player, SortMode sort, int page) {
+        List<LotRef> view = myBids(player, sort);
+        int totalPages = Math.max(1, (view.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        int p = Math.max(0, Math.min(page, totalPages - 1));
+        return new PageRequest(null, snapshot(view, p), p, totalPages, player, generation);
+    }
+
+    private static LotSnapshot[] snapshot(List<LotRef> view, int page) {
+        int from = page * PAGE_SIZE;
+        int to = Math.min(view.size(), from + PAGE_SIZE);
+        LotSnapshot[] lots = new LotSnapshot[Math.max(0, to - from)];
+        for (int i = from; i < to; i++) lots[i - from] = new LotSnapshot(view.get(i));
+        return lots;
+    }
+
+    /** Noch gültige, bereits gerenderte Seite zu einem Auftrag oder null. */
+    Page cached(PageRequest r) {
+        if (r.key == null) return null;
+        Page cached = pages.get(r.key);
+        return cached != null && System.currentTimeMillis() - cached.builtAt < PAGE_TTL_MILLIS ? cached : null;
+    }
+
+    /** Merkt sich eine gerenderte Seite – nur, wenn seit dem Auftrag nichts invalidiert wurde. */
+    void store(PageRequest r, Page page) {
+        if (r.key != null && r.generation == generation) pages.put(r.key, page);
+    }
+
+    /** Rendert eine Seite aus der Momentaufnahme (threadsicher, greift nicht auf den Cache zu). */
+    static Page render(PageRequest r, long now) {
+        ItemStack[] icons = new ItemStack[PAGE_SIZE];
+        LotRef[] refs = new LotRef[PAGE_SIZE];
+        for (int i = 0; i < r.lots.length; i++) {
+            icons[i] = icon(r.lots[i], r.viewer, now);
+            refs[i] = r.lots[i].ref;
+        }
+        return new Page(icons, refs, r.page, r.totalPages, now);
+    }
+
+    /** Icon eines Loses mit aktuellen Werten (Hauptthread, für Live-Aktualisierung einzelner Slots). */
+    static ItemStack icon(LotRef ref, UUID viewer, long now) {
+        return icon(new LotSnapshot(ref), viewer, now);
+    }
+
+    private static ItemStack icon(LotSnapshot lot, UUID viewer, long now) {
+        List<Component> lore = new ArrayList<>();
+        if (lot.item.getAmount() > 1) {
+            lore.add(GuiItems.text("Menge: ", NamedTextColor.GOLD)
+                    .append(Component.text(lot.item.getAmount() + "x", NamedTextColor.WHITE)));
+        }
+        lore.add(GuiItems.label("Start", lot.startBid, NamedTextColor.AQUA));
+        lore.add(GuiItems.label("Aktuell", lot.currentPrice, NamedTextColor.AQUA));
+        lore.add(GuiItems.label("Währung", lot.currency.name()));
+
+        long remaining = lot.endMillis - now;
+        if (remaining > 0) {
+            lore.add(GuiItems.text("Endet in: ", NamedTextColor.GREEN)
+                    .append(Component.text(AuctionGUI.formatTimeRemaining(remaining), NamedTextColor.WHITE)));
+        } else {
+            lore.add(GuiItems.text("Beendet!", NamedTextColor.RED));
+        }
+
+        if (lot.highestBidder == null) {
+            lore.add(GuiItems.text("Keine Gebote", NamedTextColor.RED));
+        } else if (viewer == null) {
+            lore.add(GuiItems.text("Höchstgebot vorhanden", NamedTextColor.GRAY));
+        } else if (lot.highestBidder.equals(viewer)) {
+            lore.add(GuiItems.text("★ Du bist Höchstbieter! ★", NamedTextColor.GOLD));
+            lore.add(GuiItems.label("Dein Maximalgebot", lot.maxBid, NamedTextColor.AQUA));
+        } else {
+            lore.add(GuiItems.text("Du wurdest überboten!", NamedTextColor.RED));
+        }
+
+        lore.add(Component.empty());
+        lore.add(GuiItems.text("» Klicke zum Bieten «", NamedTextColor.DARK_GRAY));
+        return GuiItems.withLore(lot.item, lore);
+    }
+}
@@ -0,0 +1,121 @@
+package de.mcbn.shops.auction;
+
+import de.mcbn.shops.Main;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Zentraler Ablauf-Scheduler für Auktionen.
+ * <p>
+ * Statt pro Auktion einen eigenen {@code runTaskLater} zu planen, liegen alle Endzeitpunkte
+ * in einer Priority-Queue (sortiert nach {@code endMillis}). Ein einziger Task prüft einmal
+ * pro Tick nur den Kopf der Queue. Überfällige Auktionen (z.B. nach längerer Downtime)
+ * werden gedrosselt beendet, Benachrichtigungen an Gewinner/Verkäufer pro Tick gebündelt.
+ */
+class AuctionExpiryScheduler {
+
+    /** Ab so vielen Nachrichten pro Spieler und Tick wird zusammengefasst. */
+    private static final int MAX_SINGLE_NOTIFICATIONS = 3;
+
+    private final Main plugin;
+    private final AuctionManager manager;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Map<UUID, List<String>> notifications = new LinkedHashMap<>();
+    private int maxPerTick = 5;
+    private int taskId = -1;
+
+    AuctionExpiryScheduler(Main plugin, AuctionManager manager) {
+        this.plugin = plugin;
+        this.manager = manager;
+    }
+
+    /** Startet den einzigen Poll-Task (1x pro Tick). */
+    void start() {
+        stop();
+        maxPerTick = Math.max(1, plugin.getConfig().getInt("auctions.expiry-max-per-tick", 5));
+        taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::poll, 1L, 1L);
+    }
+
+    void stop() {
+        if (taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    /** Plant das Ende einer Auktion ein. Kein eigener Bukkit-Task. */
+    void schedule(Auction a) {
+        queue.add(new Entry(a.id(), a.endMillis()));
+    }
+
+    /** Verwirft alle geplanten Endzeitpunkte (z.B. beim Reload). */
+    void clear() {
+        queue.clear();
+        notifications.clear();
+    }
+
+    /** Merkt eine Nachricht vor; gesendet wird gesammelt am Ende des Ticks. */
+    void notify(UUID player, String message) {
+        notifications.computeIfAbsent(player, k -> new ArrayList<>()).add(message);
+    }
+
+    private void poll() {
+        Entry head = queue.peek();
+        if (head == null) return;
+
+        long now = System.currentTimeMillis();
+        if (head.endMillis > now) return;
+
+        // Catch-up drosseln: höchstens maxPerTick Auktionen pro Tick beenden
+        int ended = 0;
+        while (ended < maxPerTick && (head = queue.peek()) != null && head.endMillis <= now) {
+            queue.poll();
+            if (manager.endAuction(head.auctionId, head.endMillis)) ended++;
+        }
+
+        if (ended > 0) {
+            // Gebündelt speichern – beim Catch-up nicht in jedem Tick komplett schreiben
+            manager.requestSave();
+            flushNotifications();
+        }
+    }
+
+    private void flushNotifications() {
+        for (Map.Entry<UUID, List<String>> e : notifications.entrySet()) {
+            Player p = Bukkit.getPlayer(e.getKey());
+            if (p == null) continue;
+
+            List<String> lines = e.getValue();
+            if (lines.size() <= MAX_SINGLE_NOTIFICATIONS) {
+                for (String line : lines) p.sendMessage(line);
+            } else {
+                for (int i = 0; i < MAX_SINGLE_NOTIFICATIONS - 1; i++) p.sendMessage(lines.get(i));
+                p.sendMessage(manager.getMessages().prefixedFormat("auction-ended-summary",
+                        "count", String.valueOf(lines.size() - (MAX_SINGLE_NOTIFICATIONS - 1))));
+            }
+        }
+        notifications.clear();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final String auctionId;
+        final long endMillis;
+
+        Entry(String auctionId, long endMillis) {
+            this.auctionId = auctionId;
+            this.endMillis = endMillis;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Long.compare(endMillis, o.endMillis);
+        }
+    }
+}
@@ -1,256 +1,288 @@
 package de.mcbn.shops.auction;
 
+import de.mcbn.shops.gui.GuiHolder;
 import de.mcbn.shops.Main;
-import de.mcbn.shops.chat.ChatPromptService;
-import org.bukkit.Bukkit;
+import de.mcbn.shops.gui.GuiItems;
+import de.mcbn.shops.gui.LiveViews;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.InventoryHolder;
-import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * GUI für Auktionserstellung (Setup) und Auktionshaus (Browse/Bieten).
+ * Klicks werden vom {@link de.mcbn.shops.gui.GuiRouter} an die Slot-Aktionen der Holder verteilt.
  */
-public class AuctionGUI implements Listener {
+public final class AuctionGUI {
 
-    private final Main plugin;
-    private final AuctionManager manager;
-    private final ChatPromptService prompts;
-
-    public AuctionGUI(Main plugin, AuctionManager manager, ChatPromptService prompts) {
-        this.plugin = plugin;
-        this.manager = manager;
-        this.prompts = prompts;
+    private AuctionGUI() {
     }
 
     /* =================== Setup GUI =================== */
 
-    public static void openSetup(Player p) {
-        Inventory inv = Bukkit.createInventory(new SetupHolder(p.getUniqueId()), 54, ChatColor.DARK_AQUA + "Auktion erstellen");
-        inv.setItem(53, button(Material.LIME_CONCRETE, ChatColor.GREEN + "Bestätigen"));
-        inv.setItem(45, button(Material.BARRIER, ChatColor.RED + "Abbrechen"));
-        p.openInventory(inv);
-    }
-
-    @EventHandler
-    public void onSetupClick(InventoryClickEvent event) {
-        if (!(event.getInventory().getHolder() instanceof SetupHolder)) return;
-        event.setCancelled(true);
-
-        Player p = (Player) event.getWhoClicked();
-
-        if (event.getRawSlot() < event.getInventory().getSize()) {
-            // Klick im oberen (Setup-) Inventar
-            if (event.getRawSlot() == 53) {
-                // Bestätigen: Items aus Slots 0..44 einsammeln (Buttons ignorieren)
-                List<ItemStack> items = new ArrayList<>();
-                for (int i = 0; i < 45; i++) {
-                    ItemStack it = event.getInventory().getItem(i);
-                    if (it != null && it.getType() != Material.AIR) {
-                        int amount = it.getAmount();
-                        for (int j = 0; j < amount; j++) {
-                            ItemStack copy = it.clone();
-                            copy.setAmount(1);
-                            items.add(copy);
-                        }
-                    }
-                }
-                // Setup-Felder leeren und GUI schließen
-                for (int i = 0; i < 45; i++) event.getInventory().setItem(i, null);
-                p.closeInventory();
-                manager.createAuctionFromSetup(p, items);
-
-            } else if (event.getRawSlot() == 45) {
-                // Abbrechen: Items zurückgeben
-                for (int i = 0; i < 45; i++) {
-                    ItemStack it = event.getInventory().getItem(i);
-                    if (it != null) p.getInventory().addItem(it);
-                    event.getInventory().setItem(i, null);
-                }
-                p.closeInventory();
-            }
-        } else {
-            // Klick im Spielerinventar (unten) -> Shift-Move als Komfort
-            if (event.getClick() == ClickType.SHIFT_LEFT || event.getClick() == ClickType.SHIFT_RIGHT) {
-                ItemStack cursor = event.getCurrentItem();
-                if (cursor != null && cursor.getType() != Material.AIR) {
-                    int remain = cursor.getAmount();
-                    for (int i = 0; i < 45 && remain > 0; i++) {
-                        if (event.getInventory().getItem(i) == null) {
-                            ItemStack one = cursor.clone();
-                            one.setAmount(1);
-                            event.getInventory().setItem(i, one);
-                            remain--;
-                        }
-                    }
-                    cursor.setAmount(remain);
-                    event.setCurrentItem(remain <= 0 ? null : cursor);
-                }
-            }
-        }
-    }
-
-    @EventHandler
-    public void onSetupClose(InventoryCloseEvent event) {
-        if (!(event.getInventory().getHolder() instanceof SetupHolder)) return;
-        // Restliche Items zurück
-        Player p = (Player) event.getPlayer();
-        for (int i = 0; i < 45; i++) {
-            ItemStack it = event.getInventory().getItem(i);
-            if (it != null) p.getInventory().addItem(it);
-        }
-    }
-
-    private static class SetupHolder implements InventoryHolder {
-        private final java.util.UUID owner;
-        public SetupHolder(java.util.UUID owner) { this.owner = owner; }
-        @Override public Inventory getInventory() { return null; }
-    }
+    private static final int SETUP_SLOTS = 45;
 
-    private static ItemStack button(Material mat, String name) {
-        ItemStack is = new ItemStack(mat);
-        ItemMeta meta = is.getItemMeta();
-        meta.setDisplayName(name);
-        meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES);
-        is.setItemMeta(meta);
-        return is;
+    public static void openSetup(Player p, AuctionManager manager) {
+        new SetupHolder(p.getUniqueId(), manager).open(p);
     }
 
-    /* =================== Browse GUI =================== */
-
-    public static void openBrowse(Player p, List<Auction> auctions) {
-        int lots = auctions.stream().mapToInt(a -> a.lots().size()).sum();
-        int size = ((lots + 8) / 9) * 9;
-        size = Math.min(Math.max(9, size), 54);
-
-        Inventory inv = Bukkit.createInventory(new BrowseHolder(), size, ChatColor.DARK_AQUA + "Auktionshaus");
+    private static class SetupHolder extends GuiHolder {
+        private final AuctionManager manager;
 
-        int slot = 0;
-        for (Auction a : auctions) {
-            // Calculate time remaining
-            long remaining = a.endMillis() - System.currentTimeMillis();
-            String timeStr = formatTimeRemaining(remaining);
-            boolean isActive = a.isActive();
+        SetupHolder(UUID owner, AuctionManager manager) {
+            super(owner);
+            this.manager = manager;
+        }
 
-            for (AuctionLot lot : a.lots()) {
-                ItemStack it = lot.item().clone();
-                ItemMeta meta = it.getItemMeta();
-                List<String> lore = new ArrayList<>();
+        void open(Player p) {
+            create(54, ChatColor.DARK_AQUA + "Auktion erstellen");
+            set(53, GuiItems.button(Material.LIME_CONCRETE, GuiItems.text("Bestätigen", NamedTextColor.GREEN)), this::confirm);
+            set(45, GuiItems.button(Material.BARRIER, GuiItems.text("Abbrechen", NamedTextColor.RED)), this::abort);
+            p.openInventory(getInventory());
+        }
 
-                // Amount info (if stack)
-                if (it.getAmount() > 1) {
-                    lore.add(ChatColor.GOLD + "Menge: " + ChatColor.WHITE + it.getAmount() + "x");
+        /** Bestätigen: Items aus Slots 0..44 einsammeln (Buttons ignorieren) */
+        private void confirm(Player p, InventoryClickEvent event) {
+            Inventory inv = getInventory();
+            List<ItemStack> items = new ArrayList<>();
+            for (int i = 0; i < SETUP_SLOTS; i++) {
+                ItemStack it = inv.getItem(i);
+                if (it != null && it.getType() != Material.AIR) {
+                    int amount = it.getAmount();
+                    for (int j = 0; j < amount; j++) {
+                        ItemStack copy = it.clone();
+                        copy.setAmount(1);
+                        items.add(copy);
+                    }
                 }
+            }
+            // Setup-Felder leeren und GUI schließen
+            for (int i = 0; i < SETUP_SLOTS; i++) inv.setItem(i, null);
+            p.closeInventory();
+            manager.createAuctionFromSetup(p, items);
+        }
 
-                lore.add(ChatColor.GRAY + "Start: " + ChatColor.AQUA + lot.startBid());
-                lore.add(ChatColor.GRAY + "Aktuell: " + ChatColor.AQUA + lot.currentPrice());
-                lore.add(ChatColor.GRAY + "Währung: " + ChatColor.WHITE + a.currency().name());
+        /** Abbrechen: Items zurückgeben (erledigt onClose) */
+        private void abort(Player p, InventoryClickEvent event) {
+            p.closeInventory();
+        }
 
-                // Time remaining
-                if (isActive) {
-                    lore.add(ChatColor.GREEN + "Endet in: " + ChatColor.WHITE + timeStr);
-                } else {
-                    lore.add(ChatColor.RED + "Beendet!");
-                }
+        /** Items dürfen in die Ablagefelder gezogen werden, nicht auf die Buttons. */
+        @Override
+        protected boolean acceptsItems(int slot) {
+            return slot < SETUP_SLOTS;
+        }
 
-                // Bidder status
-                if (lot.highestBidder() != null) {
-                    if (lot.highestBidder().equals(p.getUniqueId())) {
-                        lore.add(ChatColor.GOLD + "★ Du bist Höchstbieter! ★");
-                    } else {
-                        lore.add(ChatColor.GRAY + "Höchstbieter: " + ChatColor.YELLOW + "Anderer Spieler");
-                    }
-                } else {
-                    lore.add(ChatColor.RED + "Keine Gebote");
+        /** Klick im Spielerinventar (unten) -> Shift-Move als Komfort */
+        @Override
+        protected void onBottomClick(Player p, InventoryClickEvent event) {
+            if (event.getClick() != ClickType.SHIFT_LEFT && event.getClick() != ClickType.SHIFT_RIGHT) return;
+            ItemStack cursor = event.getCurrentItem();
+            if (cursor == null || cursor.getType() == Material.AIR) return;
+
+            Inventory inv = getInventory();
+            int remain = cursor.getAmount();
+            for (int i = 0; i < SETUP_SLOTS && remain > 0; i++) {
+                if (inv.getItem(i) == null) {
+                    ItemStack one = cursor.clone();
+                    one.setAmount(1);
+                    inv.setItem(i, one);
+                    remain--;
                 }
-
-                lore.add("");
-                lore.add(ChatColor.DARK_GRAY + "Auktions-ID: " + a.id() + " | Los: " + lot.id());
-                meta.setLore(lore);
-                it.setItemMeta(meta);
-
-                inv.setItem(slot++, it);
-                if (slot >= size) break;
             }
-            if (slot >= size) break;
+            cursor.setAmount(remain);
+            event.setCurrentItem(remain <= 0 ? null : cursor);
         }
 
-        p.openInventory(inv);
+        /** Restliche Items zurück */
+        @Override
+        protected void onClose(Player p, InventoryCloseEvent event) {
+            Inventory inv = getInventory();
+            for (int i = 0; i < SETUP_SLOTS; i++) {
+                ItemStack it = inv.getItem(i);
+                if (it != null) p.getInventory().addItem(it);
+                inv.setItem(i, null);
+            }
+        }
     }
 
-    @EventHandler
-    public void onBrowseClick(InventoryClickEvent event) {
-        if (!(event.getInventory().getHolder() instanceof BrowseHolder)) return;
-        event.setCancelled(true);
-        if (event.getRawSlot() >= event.getInventory().getSize()) return;
-
-        ItemStack clicked = event.getCurrentItem();
-        if (clicked == null || clicked.getType() == Material.AIR) return;
-
-        Player p = (Player) event.getWhoClicked();
-
-        if (clicked.getItemMeta() == null || clicked.getItemMeta().getLore() == null) return;
-        String idLine = clicked.getItemMeta().getLore().stream()
-                .filter(s -> ChatColor.stripColor(s).contains("Auktions-ID"))
-                .findFirst().orElse(null);
-        if (idLine == null) return;
-
-        String[] parts = ChatColor.stripColor(idLine).split("\\|");
-        if (parts.length < 2) return;
+    /* =================== Browse GUI =================== */
 
-        String auctionId = parts[0].split(":")[1].trim();
-        String lotId = parts[1].split(":")[1].trim();
+    private static final int SLOT_PREV = 45;
+    private static final int SLOT_SORT = 47;
+    private static final int SLOT_MY_BIDS = 48;
+    private static final int SLOT_INFO = 49;
+    private static final int SLOT_FILTER = 50;
+    private static final int SLOT_NEXT = 53;
 
-        Auction a = manager.getAuctions().get(auctionId);
-        if (a == null) return;
+    /**
+     * Öffnet das Auktionshaus (erste Seite, Standard-Sortierung).
+     *
+     * @param filter optionaler Material-Filter (null = alle)
+     * @param myBids nur Lose anzeigen, auf die der Spieler geboten hat
+     */
+    public static void openBrowse(Player p, AuctionManager manager, Material filter, boolean myBids) {
+        BrowseHolder holder = new BrowseHolder(p.getUniqueId(), manager);
+        holder.filter = filter;
+        holder.myBids = myBids;
+        holder.open(p);
+    }
 
-        AuctionLot lot = a.lots().stream().filter(l -> l.id().equals(lotId)).findFirst().orElse(null);
-        if (lot == null) return;
+    /** Zustand einer geöffneten Auktionshaus-Ansicht (pro Spieler). */
+    private static class BrowseHolder extends GuiHolder {
+        private final AuctionManager manager;
+        private AuctionBrowseCache.SortMode sort = AuctionBrowseCache.SortMode.ENDING_SOON;
+        private Material filter;
+        private boolean myBids;
+        private int page;
+
+        BrowseHolder(UUID viewer, AuctionManager manager) {
+            super(viewer);
+            this.manager = manager;
+        }
 
-        int current = lot.currentPrice();
+        /**
+         * Öffnet die aktuelle Seite: aus dem Cache sofort, sonst wird sie aus einer Momentaufnahme der
+         * Lose im Hintergrund gerendert.
+         */
+        void open(Player p) {
+            AuctionBrowseCache cache = manager.browseCache();
+            AuctionBrowseCache.PageRequest request = myBids
+                    ? cache.myBidsRequest(viewer, sort, page)
+                    : cache.request(sort, filter, page);
+            page = request.page;
+            AuctionBrowseCache.Page cached = cache.cached(request);
+            if (cached != null) {
+                Main.get().pages().cancel(p);
+                show(p, cached);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            Main.get().pages().build(p, () -> AuctionBrowseCache.render(request, now), (pl, data) -> {
+                cache.store(request, data);
+                show(pl, data);
+            });
+        }
 
-        String itemName = (clicked.getItemMeta().hasDisplayName()
-                ? clicked.getItemMeta().getDisplayName()
-                : clicked.getType().name());
+        private void show(Player p, AuctionBrowseCache.Page data) {
+            page = data.page;
+
+            create(54, ChatColor.DARK_AQUA + "Auktionshaus "
+                    + ChatColor.DARK_GRAY + "(" + (data.page + 1) + "/" + data.totalPages + ")");
+            LiveViews views = Main.get().views();
+            UUID personal = myBids ? viewer : null; // geteilte Seiten zeigen keine persönlichen Infos
+            for (int i = 0; i < data.icons.length; i++) {
+                LotRef ref = data.refs[i];
+                if (ref == null) continue;
+                int slot = i;
+                set(slot, data.icons[i], (pl, e) -> bid(pl, ref));
+                // Gebote anderer Spieler und der Countdown aktualisieren nur diesen Slot
+                views.subscribe(this, ref, () -> update(slot, AuctionBrowseCache.icon(ref, personal, System.currentTimeMillis())));
+                views.countdown(this, slot,
+                        () -> formatTimeRemaining(ref.auction().endMillis() - System.currentTimeMillis()),
+                        () -> AuctionBrowseCache.icon(ref, personal, System.currentTimeMillis()));
+            }
 
-        prompts.ask(p, manager.getMessages().format("auction-bid-prompt",
-                        "item", itemName,
-                        "current", String.valueOf(current)),
-                (pl, input) -> {
-                    int bid;
-                    try {
-                        bid = Integer.parseInt(input.trim());
-                        if (bid <= 0) throw new NumberFormatException();
-                    } catch (NumberFormatException ex) {
-                        pl.sendMessage(manager.getMessages().prefixed("auction-bid-too-low"));
-                        return;
-                    }
-                    manager.tryBid(pl, a, lot, bid);
+            if (data.page > 0) {
+                set(SLOT_PREV, GuiItems.button(Material.ARROW, GuiItems.text("« Vorherige Seite", NamedTextColor.YELLOW)), (pl, e) -> {
+                    page--;
+                    open(pl);
                 });
+            }
+            if (data.page + 1 < data.totalPages) {
+                set(SLOT_NEXT, GuiItems.button(Material.ARROW, GuiItems.text("Nächste Seite »", NamedTextColor.YELLOW)), (pl, e) -> {
+                    page++;
+                    open(pl);
+                });
+            }
+            set(SLOT_SORT, GuiItems.button(Material.HOPPER, GuiItems.text("Sortierung: ", NamedTextColor.AQUA)
+                    .append(Component.text(sort.label(), NamedTextColor.WHITE))), (pl, e) -> {
+                sort = sort.next();
+                page = 0;
+                open(pl);
+            });
+            set(SLOT_MY_BIDS, GuiItems.button(Material.NAME_TAG, GuiItems.text("Meine Gebote ", NamedTextColor.GOLD).append(myBids
+                    ? Component.text("(an)", NamedTextColor.GREEN)
+                    : Component.text("(aus)", NamedTextColor.GRAY))), (pl, e) -> {
+                myBids = !myBids;
+                page = 0;
+                open(pl);
+            });
+            set(SLOT_INFO, GuiItems.item(Material.PAPER, GuiItems.text("Seite ", NamedTextColor.GRAY)
+                    .append(Component.text(data.page + 1, NamedTextColor.WHITE))
+                    .append(Component.text("/", NamedTextColor.GRAY))
+                    .append(Component.text(data.totalPages, NamedTextColor.WHITE))));
+            set(SLOT_FILTER, filter == null
+                    ? GuiItems.button(Material.COMPASS, GuiItems.text("Filter: alle ", NamedTextColor.GRAY)
+                            .append(Component.text("(Item im Inventar anklicken)", NamedTextColor.DARK_GRAY)))
+                    : GuiItems.button(Material.COMPASS, GuiItems.text("Filter: ", NamedTextColor.AQUA)
+                            .append(GuiItems.name(filter).color(NamedTextColor.WHITE))
+                            .append(Component.text(" (Klick = aufheben)", NamedTextColor.DARK_GRAY))), (pl, e) -> {
+                filter = null;
+                page = 0;
+                open(pl);
+            });
+            p.openInventory(getInventory());
+        }
 
-        p.closeInventory();
-    }
+        /** Klick ins eigene Inventar: nach dem Material dieses Items filtern */
+        @Override
+        protected void onBottomClick(Player p, InventoryClickEvent event) {
+            ItemStack own = event.getCurrentItem();
+            if (own == null || own.getType() == Material.AIR) return;
+            filter = own.getType();
+            page = 0;
+            open(p);
+        }
 
-    private static class BrowseHolder implements InventoryHolder {
-        @Override public Inventory getInventory() { return null; }
+        private void bid(Player p, LotRef ref) {
+            Auction a = ref.auction();
+            // Überfällige Auktionen gelten als beendet, auch wenn der Ablauf-Scheduler sie noch nicht abgearbeitet hat
+            if (!manager.isOpen(a)) {
+                p.sendMessage(manager.getMessages().prefixed("auction-browse-none"));
+                open(p);
+                return;
+            }
+            AuctionLot lot = ref.lot();
+
+            int current = lot.currentPrice();
+            ItemStack item = lot.item();
+            String itemName = GuiItems.plainName(item);
+
+            manager.prompts().ask(p, manager.getMessages().format("auction-bid-prompt",
+                            "item", itemName,
+                            "current", String.valueOf(current),
+                            "min", String.valueOf(manager.minimumBid(lot))),
+                    (pl, input) -> {
+                        int bid;
+                        try {
+                            bid = Integer.parseInt(input.trim());
+                            if (bid <= 0) throw new NumberFormatException();
+                        } catch (NumberFormatException ex) {
+                            pl.sendMessage(manager.getMessages().prefixed("auction-bid-too-low"));
+                            return;
+                        }
+                        manager.tryBid(pl, a, lot, bid);
+                    });
+
+            p.closeInventory();
+        }
     }
 
     /**
      * Formatiert Millisekunden zu lesbarer Zeit.
      */
-    private static String formatTimeRemaining(long ms) {
+    static String formatTimeRemaining(long ms) {
         if (ms <= 0) return "Abgelaufen";
 
         long hours = ms / (1000 * 60 * 60);
@@ -0,0 +1,208 @@
+package de.mcbn.shops.auction;
+
+import org.bukkit.Material;
+
+import java.util.*;
+
+/**
+ * Such-Indizes über alle aktiven Auktionen und Lose.
+ * <p>
+ * Wird ausschließlich vom {@link AuctionManager} bei Erstellen, Bieten, Beenden und Stornieren
+ * gepflegt. Abfragen (Befehle, GUIs, {@link de.mcbn.shops.api.AuctionAPI}) laufen über die
+ * sortierten Mengen, statt jedes Mal alle Auktionen zu durchlaufen.
+ * <p>
+ * Abgelaufene Auktionen, die der Ablauf-Scheduler gedrosselt noch nicht beendet hat, liefern die
+ * Listen-Abfragen nicht mehr aus.
+ * <p>
+ * Die Methoden sind synchronisiert, da API-Aufrufe fremder Plugins (z.B. Discord-Bridge,
+ * Webpanel) auch asynchron kommen können.
+ */
+public class AuctionIndex {
+
+    /** Sortierreihenfolge: günstigster Preis zuerst, dann frühestes Ende. */
+    private static final Comparator<PriceKey> BY_PRICE = Comparator
+            .comparingInt((PriceKey k) -> k.price)
+            .thenComparingLong(k -> k.endMillis)
+            .thenComparing(k -> k.auctionId)
+            .thenComparing(k -> k.lotId);
+
+    /** Sortierreihenfolge: frühestes Ende zuerst. */
+    private static final Comparator<Auction> BY_END = Comparator
+            .comparingLong(Auction::endMillis)
+            .thenComparing(Auction::id);
+
+    private final Map<Material, NavigableSet<PriceKey>> byMaterial = new EnumMap<>(Material.class);
+    private final NavigableSet<PriceKey> byPrice = new TreeSet<>(BY_PRICE);
+    private final Map<LotRef, PriceKey> keys = new HashMap<>();
+    private final Map<UUID, Set<Auction>> bySeller = new HashMap<>();
+    private final NavigableSet<Auction> byEnd = new TreeSet<>(BY_END);
+
+    /**
+     * Unveränderlicher Sortierschlüssel. Der Preis wird beim Einfügen festgehalten,
+     * damit ein Gebot die Ordnung der Mengen nicht unbemerkt zerstört.
+     */
+    private static final class PriceKey {
+        final int price;
+        final long endMillis;
+        final String auctionId;
+        final String lotId;
+        final LotRef ref;
+
+        PriceKey(LotRef ref) {
+            this.ref = ref;
+            this.price = ref.lot().currentPrice();
+            this.endMillis = ref.auction().endMillis();
+            this.auctionId = ref.auction().id();
+            this.lotId = ref.lot().id();
+        }
+
+        /** Suchschranke: sortiert vor jedem echten Schlüssel mit diesem Preis. */
+        PriceKey(int price) {
+            this.ref = null;
+            this.price = price;
+            this.endMillis = Long.MIN_VALUE;
+            this.auctionId = "";
+            this.lotId = "";
+        }
+    }
+
+    /* =================== Pflege (nur AuctionManager) =================== */
+
+    synchronized void rebuild(Collection<Auction> auctions) {
+        byMaterial.clear();
+        byPrice.clear();
+        keys.clear();
+        bySeller.clear();
+        byEnd.clear();
+        for (Auction a : auctions) add(a);
+    }
+
+    synchronized void add(Auction a) {
+        byEnd.add(a);
+        bySeller.computeIfAbsent(a.owner(), k -> new LinkedHashSet<>()).add(a);
+        for (AuctionLot lot : a.lots()) {
+            insert(new PriceKey(new LotRef(a, lot)));
+        }
+    }
+
+    synchronized void remove(Auction a) {
+        byEnd.remove(a);
+        Set<Auction> own = bySeller.get(a.owner());
+        if (own != null) {
+            own.remove(a);
+            if (own.isEmpty()) bySeller.remove(a.owner());
+        }
+        for (AuctionLot lot : a.lots()) {
+            PriceKey key = keys.remove(new LotRef(a, lot));
+            if (key != null) erase(key);
+        }
+    }
+
+    /** Nach einem Gebot: Los mit neuem Preis umsortieren. */
+    synchronized void onBid(LotRef ref) {
+        PriceKey old = keys.remove(ref);
+        if (old != null) erase(old);
+        insert(new PriceKey(ref));
+    }
+
+    private void insert(PriceKey key) {
+        keys.put(key.ref, key);
+        byPrice.add(key);
+        byMaterial.computeIfAbsent(key.ref.lot().type(), k -> new TreeSet<>(BY_PRICE)).add(key);
+    }
+
+    private void erase(PriceKey key) {
+        byPrice.remove(key);
+        Material type = key.ref.lot().type();
+        NavigableSet<PriceKey> set = byMaterial.get(type);
+        if (set != null) {
+            set.remove(key);
+            if (set.isEmpty()) byMaterial.remove(type);
+        }
+    }
+
+    /* =================== Abfragen =================== */
+
+    /**
+     * Lose eines Materials, günstigste zuerst.
+     *
+     * @param maxPrice Höchstpreis (inklusive), {@code Integer.MAX_VALUE} für unbegrenzt
+     * @param limit maximale Anzahl Treffer
+     */
+    public synchronized List<LotRef> search(Material material, int maxPrice, int limit) {
+        NavigableSet<PriceKey> set = byMaterial.get(material);
+        if (set == null) return Collections.emptyList();
+        return collect(set, maxPrice, 0, limit);
+    }
+
+    /** Anzahl Lose eines Materials bis zum Höchstpreis (für "x weitere Treffer"). */
+    public synchronized int count(Material material, int maxPrice) {
+        NavigableSet<PriceKey> set = byMaterial.get(material);
+        if (set == null) return 0;
+        if (maxPrice == Integer.MAX_VALUE) return set.size();
+        return set.headSet(new PriceKey(maxPrice + 1), false).size();
+    }
+
+    /** Alle Lose bis zum Höchstpreis, günstigste zuerst (seitenweise). */
+    public synchronized List<LotRef> cheapest(int maxPrice, int offset, int limit) {
+        return collect(byPrice, maxPrice, offset, limit);
+    }
+
+    /** Aktive Auktionen eines Verkäufers (in Erstellungsreihenfolge). */
+    public synchronized List<Auction> bySeller(UUID seller) {
+        Set<Auction> own = bySeller.get(seller);
+        if (own == null) return Collections.emptyList();
+        List<Auction> out = new ArrayList<>(own.size());
+        for (Auction a : own) if (a.isActive()) out.add(a);
+        return out;
+    }
+
+    /** Aktive Auktionen nach Endzeitpunkt sortiert (seitenweise). */
+    public synchronized List<Auction> endingSoonest(int offset, int limit) {
+        List<Auction> out = new ArrayList<>(Math.min(limit, byEnd.size()));
+        long now = System.currentTimeMillis();
+        int i = 0;
+        for (Auction a : byEnd) {
+            if (out.size() >= limit) break;
+            if (a.endMillis() <= now) continue; // überfällig, noch nicht beendet
+            if (i++ >= offset) out.add(a);
+        }
+        return out;
+    }
+
+    /** Auktionen, die vor dem angegebenen Zeitpunkt enden. */
+    public synchronized List<Auction> endingBefore(long millis, int limit) {
+        List<Auction> out = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Auction a : byEnd) {
+            if (a.endMillis() >= millis || out.size() >= limit) break;
+            if (a.endMillis() > now) out.add(a);
+        }
+        return out;
+    }
+
+    /** Materialien, für die aktuell Lose existieren (für Tab-Completion). */
+    public synchronized Set<Material> materials() {
+        return byMaterial.isEmpty() ? Collections.emptySet() : EnumSet.copyOf(byMaterial.keySet());
+    }
+
+    public synchronized int auctionCount() {
+        return byEnd.size();
+    }
+
+    public synchronized int lotCount() {
+        return byPrice.size();
+    }
+
+    private static List<LotRef> collect(NavigableSet<PriceKey> set, int maxPrice, int offset, int limit) {
+        List<LotRef> out = new ArrayList<>(Math.min(limit, set.size()));
+        long now = System.currentTimeMillis();
+        int i = 0;
+        for (PriceKey key : set) {
+            if (key.price > maxPrice || out.size() >= limit) break;
+            if (key.endMillis <= now) continue; // überfällig, noch nicht beendet
+            if (i++ >= offset) out.add(key.ref);
+        }
+        return out;
+    }
+}
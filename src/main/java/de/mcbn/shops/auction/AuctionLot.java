@@ -1,5 +1,6 @@
 package de.mcbn.shops.auction;
 
+import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.UUID;
@@ -10,6 +11,7 @@ public class AuctionLot {
     private final int startBid;
     private int highestBid;
     private UUID highestBidder; // null if none
+    private int maxBid;         // verdecktes, hinterlegtes Maximalgebot des Höchstbieters
 
     public AuctionLot(String id, ItemStack item, int startBid) {
         this.id = id;
@@ -22,14 +24,30 @@ public class AuctionLot {
 
     public String id() { return id; }
     public ItemStack item() { return item.clone(); }
+    /** Das gespeicherte Item ohne Kopie (wird nie verändert) – nur lesen, z.B. für Momentaufnahmen. */
+    ItemStack stack() { return item; }
+    /** Material des Loses ohne das Item zu klonen. */
+    public Material type() { return item.getType(); }
+    /** Stückzahl des Loses ohne das Item zu klonen. */
+    public int amount() { return item.getAmount(); }
     public int startBid() { return startBid; }
     public int highestBid() { return highestBidder == null ? 0 : highestBid; }
+    /** Vom Höchstbieter hinterlegtes Maximum (Escrow), mindestens der sichtbare Preis. */
+    public int maxBid() { return highestBidder == null ? 0 : Math.max(maxBid, highestBid); }
     public UUID highestBidder() { return highestBidder; }
 
     public int currentPrice() { return highestBidder == null ? startBid : highestBid; }
 
     public void applyBid(UUID bidder, int amount) {
+        applyBid(bidder, amount, amount);
+    }
+
+    /**
+     * Setzt Höchstbieter, sichtbaren Preis und hinterlegtes Maximum (Proxy-Gebot).
+     */
+    public void applyBid(UUID bidder, int visible, int max) {
         this.highestBidder = bidder;
-        this.highestBid = amount;
+        this.highestBid = visible;
+        this.maxBid = Math.max(visible, max);
     }
 }
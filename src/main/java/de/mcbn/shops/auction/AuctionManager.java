@@ -2,6 +2,8 @@ package de.mcbn.shops.auction;
 
 import de.mcbn.shops.Main;
 import de.mcbn.shops.chat.ChatPromptService;
+import de.mcbn.shops.gui.GuiItems;
+import de.mcbn.shops.market.PriceHistory;
 import de.mcbn.shops.util.InventoryUtils;
 import de.mcbn.shops.util.Messages;
 import org.bukkit.Bukkit;
@@ -28,14 +30,18 @@ public class AuctionManager {
     private final ChatPromptService prompts;
 
     private final Map<String, Auction> auctions = new ConcurrentHashMap<>();
-    private final Map<UUID, List<ItemStack>> pendingItems = new ConcurrentHashMap<>();
-    private final Map<UUID, Integer> pendingCurrency = new ConcurrentHashMap<>();
-    // BUGFIX: Task-Tracking für End-Tasks
-    // Ermöglicht Canceln bei Reload/Shutdown
-    private final Map<String, Integer> endTasks = new ConcurrentHashMap<>();
+    // Rückgaben, Gewinne und Erlöse liegen im Postfach (mailbox.yml), nicht in auctions.yml
+    private final ClaimMailbox mailbox;
+    // PERFORMANCE FIX: Ein zentraler Ablauf-Scheduler statt eines Bukkit-Tasks pro Auktion
+    private final AuctionExpiryScheduler expiry;
+    // PERFORMANCE FIX: Geteilte, gerenderte Auktionshaus-Seiten
+    private final AuctionBrowseCache browseCache = new AuctionBrowseCache();
+    // PERFORMANCE FIX: Indizes nach Material, Verkäufer, Preis und Endzeit
+    private final AuctionIndex index = new AuctionIndex();
 
     private File file;
     private YamlConfiguration data;
+    private int saveTaskId = -1;
 
     public AuctionManager(Main plugin, ChatPromptService prompts) {
         this.plugin = plugin;
@@ -43,6 +49,18 @@ public class AuctionManager {
         this.prompts = prompts;
         this.file = new File(plugin.getDataFolder(), "auctions.yml");
         this.data = new YamlConfiguration();
+        this.expiry = new AuctionExpiryScheduler(plugin, this);
+        this.mailbox = new ClaimMailbox(plugin);
+    }
+
+    /** Startet den Ablauf-Scheduler (ein Poll pro Tick für alle Auktionen). */
+    public void startExpiryScheduler() {
+        expiry.start();
+    }
+
+    /** Stoppt den Ablauf-Scheduler. */
+    public void stopExpiryScheduler() {
+        expiry.stop();
     }
 
     /** Command-Executor für /auction */
@@ -55,6 +73,11 @@ public class AuctionManager {
         return auctions;
     }
 
+    /** Chat-Prompts (für das Bieten aus dem Auktionshaus). */
+    public ChatPromptService prompts() {
+        return prompts;
+    }
+
     /** Zugriff auf Messages (für GUIs/Prompts). */
     public Messages getMessages() {
         return msg;
@@ -69,15 +92,11 @@ public class AuctionManager {
     /* =================== Laden/Speichern =================== */
 
     public void loadAuctions() {
-        // BUGFIX: Cancle alle alten End-Tasks bei Reload
-        for (Integer taskId : endTasks.values()) {
-            Bukkit.getScheduler().cancelTask(taskId);
-        }
-        endTasks.clear();
+        // Alte Endzeitpunkte verwerfen, werden unten neu eingeplant
+        expiry.clear();
 
         auctions.clear();
-        pendingItems.clear();
-        pendingCurrency.clear();
+        mailbox.load();
 
         try {
             if (!file.exists()) {
@@ -113,10 +132,12 @@ public class AuctionManager {
                                 AuctionLot lot = new AuctionLot(lid, item, startBid);
 
                                 int hb = data.getInt(lb + "highestBid");
+                                // Ältere Daten ohne maxBid: Escrow entsprach dem sichtbaren Gebot
+                                int max = data.getInt(lb + "maxBid", hb);
                                 String hbId = data.getString(lb + "highestBidder", null);
                                 if (hbId != null) {
                                     try {
-                                        lot.applyBid(UUID.fromString(hbId), hb);
+                                        lot.applyBid(UUID.fromString(hbId), hb, max);
                                     } catch (IllegalArgumentException e) {
                                         plugin.getLogger().warning("Ungültige Bieter-UUID in Auktion '" + id + "', Lot '" + lid + "': " + e.getMessage());
                                         plugin.getLogger().warning("Gebot wird übersprungen.");
@@ -134,14 +155,16 @@ public class AuctionManager {
                 }
             }
 
+            // Migration: alte pendingItems/pendingCurrency aus auctions.yml ins Postfach übernehmen
+            boolean migrated = false;
             if (data.isConfigurationSection("pendingItems")) {
                 for (String uuid : data.getConfigurationSection("pendingItems").getKeys(false)) {
                     try {
-                        List<ItemStack> items = new ArrayList<>();
+                        UUID id = UUID.fromString(uuid);
                         for (Object o : data.getList("pendingItems." + uuid)) {
-                            if (o instanceof ItemStack) items.add((ItemStack) o);
+                            if (o instanceof ItemStack) mailbox.depositItem(id, (ItemStack) o);
                         }
-                        pendingItems.put(UUID.fromString(uuid), items);
+                        migrated = true;
                     } catch (IllegalArgumentException e) {
                         plugin.getLogger().warning("Ungültige UUID in pendingItems '" + uuid + "': " + e.getMessage());
                         plugin.getLogger().warning("Eintrag wird übersprungen.");
@@ -153,7 +176,8 @@ public class AuctionManager {
                 for (String uuid : data.getConfigurationSection("pendingCurrency").getKeys(false)) {
                     try {
                         int val = data.getInt("pendingCurrency." + uuid);
-                        pendingCurrency.put(UUID.fromString(uuid), val);
+                        mailbox.depositCurrency(UUID.fromString(uuid), val);
+                        migrated = true;
                     } catch (IllegalArgumentException e) {
                         plugin.getLogger().warning("Ungültige UUID in pendingCurrency '" + uuid + "': " + e.getMessage());
                         plugin.getLogger().warning("Eintrag wird übersprungen.");
@@ -161,16 +185,29 @@ public class AuctionManager {
                 }
             }
 
-            // End-Termine replanen
+            if (migrated) {
+                mailbox.save();
+                saveAuctions();
+                plugin.getLogger().info("Offene Abholungen aus auctions.yml ins Postfach (mailbox.yml) übernommen.");
+            }
+
+            // End-Termine replanen (überfällige Auktionen beendet der Scheduler gedrosselt)
             for (Auction a : auctions.values()) {
-                scheduleEndTask(a);
+                expiry.schedule(a);
             }
+            browseCache.rebuild(auctions.values());
+            index.rebuild(auctions.values());
         } catch (Exception e) {
             plugin.getLogger().severe("Fehler beim Laden von auctions.yml: " + e.getMessage());
         }
     }
 
     public void saveAuctions() {
+        if (saveTaskId != -1) {
+            // Ein ausstehendes, gebündeltes Speichern ist damit erledigt
+            Bukkit.getScheduler().cancelTask(saveTaskId);
+            saveTaskId = -1;
+        }
         try {
             data = new YamlConfiguration();
 
@@ -189,21 +226,16 @@ public class AuctionManager {
                     data.set(lb + "highestBid", lot.highestBid());
                     if (lot.highestBidder() != null) {
                         data.set(lb + "highestBidder", lot.highestBidder().toString());
+                        data.set(lb + "maxBid", lot.maxBid());
                     }
                 }
             }
 
-            for (Map.Entry<UUID, List<ItemStack>> e : pendingItems.entrySet()) {
-                data.set("pendingItems." + e.getKey(), e.getValue());
-            }
-            for (Map.Entry<UUID, Integer> e : pendingCurrency.entrySet()) {
-                data.set("pendingCurrency." + e.getKey(), e.getValue());
-            }
-
             data.save(file);
         } catch (IOException e) {
             plugin.getLogger().severe("Fehler beim Speichern von auctions.yml: " + e.getMessage());
         }
+        mailbox.save();
     }
 
     /* =================== Commands =================== */
@@ -219,40 +251,142 @@ public class AuctionManager {
             String sub = args.length > 0 ? args[0].toLowerCase(Locale.ROOT) : "browse";
             switch (sub) {
                 case "start":  return startAuctionFlow(p);
-                case "browse": return browse(p);
-                case "list":   return listActive(p);
+                case "browse": return browse(p, args);
+                case "list":   return listActive(p, args);
+                case "search": return search(p, args);
                 case "cancel": return cancelOwn(p);
-                case "claim":  return claim(p);
-                default:       return browse(p);
+                case "claim":  return claim(p, args);
+                default:       return browse(p, new String[0]);
             }
         }
 
         @Override
         public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
-            if (args.length == 1) return Arrays.asList("start","browse","list","cancel","claim");
+            if (args.length == 1) return Arrays.asList("start","browse","list","search","cancel","claim");
+            if (args.length == 2 && args[0].equalsIgnoreCase("browse")) return Collections.singletonList("mine");
+            if (args.length == 2 && args[0].equalsIgnoreCase("claim")) return Collections.singletonList("all");
+            if (args.length == 2 && args[0].equalsIgnoreCase("search")) {
+                String prefix = args[1].toUpperCase(Locale.ROOT);
+                return index.materials().stream()
+                        .map(Material::name)
+                        .filter(n -> n.startsWith(prefix))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
             return Collections.emptyList();
         }
     }
 
-    private boolean browse(Player p) {
+    /** /auction browse [mine|MATERIAL] */
+    private boolean browse(Player p, String[] args) {
         if (auctions.isEmpty()) {
             p.sendMessage(msg.prefixed("auction-browse-none"));
             return true;
         }
-        AuctionGUI.openBrowse(p, new ArrayList<>(auctions.values()));
+        Material filter = null;
+        boolean mine = false;
+        if (args.length >= 2) {
+            if (args[1].equalsIgnoreCase("mine")) {
+                mine = true;
+            } else {
+                filter = Material.matchMaterial(args[1]);
+                if (filter == null) {
+                    p.sendMessage("§cUnbekanntes Material: §f" + args[1]);
+                    return true;
+                }
+            }
+        }
+        AuctionGUI.openBrowse(p, this, filter, mine);
         return true;
     }
 
-    private boolean listActive(Player p) {
-        if (auctions.isEmpty()) {
+    /** Geteilter Cache für das Auktionshaus. */
+    public AuctionBrowseCache browseCache() {
+        return browseCache;
+    }
+
+    /** Such-Indizes über alle aktiven Auktionen (auch für die API). */
+    public AuctionIndex index() {
+        return index;
+    }
+
+    private static final int LIST_PAGE_SIZE = 10;
+
+    /** /auction list [seite] – seitenweise, nach Endzeit sortiert. */
+    private boolean listActive(Player p, String[] args) {
+        int total = index.auctionCount();
+        if (total == 0) {
             p.sendMessage(msg.prefixed("auction-browse-none"));
-        } else {
-            p.sendMessage("§7Aktive Auktionen: §f" + auctions.size());
-            for (Auction a : auctions.values()) {
-                long rem = Math.max(0, a.endMillis() - System.currentTimeMillis());
-                p.sendMessage("§8- §7" + a.id() + " §7von §f" + a.owner() + " §7Ende in §f" + formatDuration(rem));
+            return true;
+        }
+        int pages = (total + LIST_PAGE_SIZE - 1) / LIST_PAGE_SIZE;
+        int page = 1;
+        if (args.length >= 2) {
+            try {
+                page = Integer.parseInt(args[1]);
+            } catch (NumberFormatException ignored) {
             }
         }
+        page = Math.max(1, Math.min(page, pages));
+
+        p.sendMessage("§7Aktive Auktionen: §f" + total + " §8(Seite " + page + "/" + pages + ")");
+        long now = System.currentTimeMillis();
+        for (Auction a : index.endingSoonest((page - 1) * LIST_PAGE_SIZE, LIST_PAGE_SIZE)) {
+            long rem = Math.max(0, a.endMillis() - now);
+            String owner = Bukkit.getOfflinePlayer(a.owner()).getName();
+            p.sendMessage("§8- §7" + a.id() + " §7von §f" + (owner == null ? a.owner().toString() : owner)
+                    + " §7(" + a.lots().size() + " Lose) Ende in §f" + formatDuration(rem));
+        }
+        if (page < pages) p.sendMessage("§8Weiter mit §7/auction list " + (page + 1));
+        return true;
+    }
+
+    private static final int SEARCH_LIMIT = 10;
+
+    /** /auction search <material> [maxPreis] – günstigste Lose zuerst. */
+    private boolean search(Player p, String[] args) {
+        if (args.length < 2) {
+            p.sendMessage(msg.prefixed("auction-search-usage"));
+            return true;
+        }
+        Material mat = Material.matchMaterial(args[1]);
+        if (mat == null) {
+            p.sendMessage("§cUnbekanntes Material: §f" + args[1]);
+            return true;
+        }
+        int maxPrice = Integer.MAX_VALUE;
+        if (args.length >= 3) {
+            try {
+                maxPrice = Integer.parseInt(args[2]);
+                if (maxPrice <= 0) throw new NumberFormatException();
+            } catch (NumberFormatException ex) {
+                p.sendMessage(msg.prefixed("auction-search-usage"));
+                return true;
+            }
+        }
+
+        List<LotRef> hits = index.search(mat, maxPrice, SEARCH_LIMIT);
+        if (hits.isEmpty()) {
+            p.sendMessage(msg.prefixedFormat("auction-search-none", "material", mat.name()));
+            return true;
+        }
+        int count = index.count(mat, maxPrice);
+        p.sendMessage(msg.prefixedFormat("auction-search-header", "material", mat.name(), "count", String.valueOf(count)));
+        long now = System.currentTimeMillis();
+        for (LotRef ref : hits) {
+            AuctionLot lot = ref.lot();
+            Auction a = ref.auction();
+            p.sendMessage(msg.format("auction-search-entry",
+                    "amount", String.valueOf(lot.amount()),
+                    "item", mat.name(),
+                    "price", String.valueOf(lot.currentPrice()),
+                    "currency", a.currency().name(),
+                    "time", formatDuration(Math.max(0, a.endMillis() - now)),
+                    "id", a.id()));
+        }
+        if (count > hits.size()) {
+            p.sendMessage(msg.format("auction-search-more", "count", String.valueOf(count - hits.size()), "material", mat.name()));
+        }
         return true;
     }
 
@@ -270,47 +404,36 @@ public class AuctionManager {
         for (String id : canCancel) {
             Auction a = auctions.remove(id);
             for (AuctionLot lot : a.lots()) {
-                pendingItems.computeIfAbsent(a.owner(), k -> new ArrayList<>()).add(lot.item());
+                mailbox.depositItem(a.owner(), lot.item());
             }
+            browseCache.onAuctionRemoved(a);
+            plugin.snapshots().auctionChanged(a.id());
+            index.remove(a);
+            publishLots(a);
         }
         saveAuctions();
         p.sendMessage("§aAuktion(en) storniert und Items zur Abholung bereit (/auction claim).");
         return true;
     }
 
-    private boolean claim(Player p) {
-        int cur = pendingCurrency.getOrDefault(p.getUniqueId(), 0);
-        List<ItemStack> items = pendingItems.getOrDefault(p.getUniqueId(), new ArrayList<>());
-        boolean any = false;
-
-        if (cur > 0) {
-            any = true;
-            int rest = cur;
-            while (rest > 0) {
-                int give = Math.min(64, rest);
-                InventoryUtils.giveOrDrop(p, new ItemStack(getCurrency(), give));
-                rest -= give;
-            }
-            pendingCurrency.remove(p.getUniqueId());
+    /** /auction claim [all] – Postfach-GUI bzw. alles abholen, was ins Inventar passt. */
+    private boolean claim(Player p, String[] args) {
+        if (!mailbox.hasMail(p.getUniqueId())) {
+            p.sendMessage(msg.prefixed("claim-nothing"));
+            return true;
         }
-
-        if (!items.isEmpty()) {
-            any = true;
-            for (ItemStack is : items) {
-                InventoryUtils.giveOrDrop(p, is);
-            }
-            pendingItems.remove(p.getUniqueId());
+        if (args.length >= 2 && args[1].equalsIgnoreCase("all")) {
+            boolean complete = mailbox.claimAll(p, getCurrency());
+            mailbox.save();
+            p.sendMessage(msg.prefixed(complete ? "claim-done" : "claim-partial"));
+            return true;
         }
-
-        if (!any) p.sendMessage(msg.prefixed("claim-nothing"));
-        else p.sendMessage(msg.prefixed("claim-done"));
-
-        saveAuctions();
+        ClaimGUI.open(p, this);
         return true;
     }
 
     private boolean startAuctionFlow(Player p) {
-        AuctionGUI.openSetup(p);
+        AuctionGUI.openSetup(p, this);
         p.sendMessage(msg.prefixed("auction-setup-open"));
         return true;
     }
@@ -335,10 +458,13 @@ public class AuctionManager {
                     return;
                 }
                 ItemStack it = items.get(idx[0]);
-                String pretty = it.getItemMeta() != null && it.getItemMeta().hasDisplayName()
-                        ? it.getItemMeta().getDisplayName()
-                        : it.getType().name();
+                String pretty = GuiItems.plainName(it);
 
+                // Vorschlag aus der Preis-Historie (falls vorhanden)
+                int suggested = plugin.market().suggestedPrice(it.getType(), it.getAmount());
+                if (suggested > 0) {
+                    owner.sendMessage(msg.prefixedFormat("market-suggestion", "price", String.valueOf(suggested), "currency", currency.name()));
+                }
                 prompts.ask(owner, msg.format("auction-start-prompt-bid", "item", pretty, "currency", currency.name()), (pl, input) -> {
                     int start;
                     try {
@@ -372,7 +498,10 @@ public class AuctionManager {
                     a.lots().add(new AuctionLot(String.valueOf(i), it, bids.get(i)));
                 }
                 auctions.put(a.id(), a);
-                scheduleEndTask(a);
+                expiry.schedule(a);
+                browseCache.onAuctionAdded(a);
+                plugin.snapshots().auctionChanged(a.id());
+                index.add(a);
                 saveAuctions();
 
                 owner.sendMessage(msg.prefixedFormat("auction-started",
@@ -382,72 +511,165 @@ public class AuctionManager {
         });
     }
 
-    private void scheduleEndTask(Auction a) {
-        // BUGFIX: Cancle alten Task falls vorhanden
-        Integer oldTask = endTasks.get(a.id());
-        if (oldTask != null) {
-            Bukkit.getScheduler().cancelTask(oldTask);
+    /**
+     * Beendet eine Auktion. Wird ausschließlich vom {@link AuctionExpiryScheduler} aufgerufen,
+     * der danach einmal gesammelt speichert und die Benachrichtigungen versendet.
+     *
+     * @param id Auktions-ID
+     * @param scheduledEnd Endzeitpunkt, zu dem der Eintrag eingeplant wurde
+     * @return true wenn die Auktion beendet wurde, false bei veraltetem Eintrag
+     */
+    boolean endAuction(String id, long scheduledEnd) {
+        Auction a = auctions.get(id);
+        if (a == null || a.endMillis() != scheduledEnd) return false;
+        auctions.remove(id);
+        browseCache.onAuctionRemoved(a);
+        plugin.snapshots().auctionChanged(a.id());
+        index.remove(a);
+        publishLots(a);
+
+        for (AuctionLot lot : a.lots()) {
+            if (lot.highestBidder() != null) {
+                mailbox.depositItem(lot.highestBidder(), lot.item());
+                mailbox.depositCurrency(a.owner(), lot.highestBid());
+                // Nicht benötigter Teil des hinterlegten Maximums geht an den Gewinner zurück
+                mailbox.depositCurrency(lot.highestBidder(), lot.maxBid() - lot.highestBid());
+                plugin.market().record(lot.type(), lot.amount(), lot.highestBid(), PriceHistory.Source.AUCTION);
+
+                expiry.notify(lot.highestBidder(), msg.prefixedFormat("auction-ended-winner", "item", GuiItems.plainName(lot.item()), "amount", String.valueOf(lot.highestBid()), "currency", a.currency().name()));
+                expiry.notify(a.owner(), msg.prefixedFormat("auction-ended-seller", "item", GuiItems.plainName(lot.item()), "amount", String.valueOf(lot.highestBid()), "currency", a.currency().name()));
+            } else {
+                expiry.notify(a.owner(), msg.prefixedFormat("auction-ended-no-bids", "item", GuiItems.plainName(lot.item())));
+                mailbox.depositItem(a.owner(), lot.item());
+            }
         }
+        return true;
+    }
 
-        long delayTicks = Math.max(1L, (a.endMillis() - System.currentTimeMillis()) / 50L);
-        int taskId = Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            endAuction(a.id());
-            endTasks.remove(a.id()); // Aufräumen
-        }, delayTicks).getTaskId();
+    /** Offene Auktionshaus-Ansichten zeigen die Lose einer beendeten/stornierten Auktion als beendet. */
+    private void publishLots(Auction a) {
+        for (AuctionLot lot : a.lots()) plugin.views().publish(new LotRef(a, lot));
+    }
+
+    /* =================== Bieten (Proxy/Escrow) =================== */
 
-        endTasks.put(a.id(), taskId);
+    /** Ob auf die Auktion noch geboten werden kann: noch registriert und nicht abgelaufen. */
+    public boolean isOpen(Auction a) {
+        return auctions.get(a.id()) == a && a.isActive();
     }
 
-    private void endAuction(String id) {
-        Auction a = auctions.remove(id);
-        if (a == null) return;
+    /** Mindestschritt, um den ein Gebot den sichtbaren Preis übertreffen muss. */
+    public int minIncrement() {
+        return Math.max(1, plugin.getConfig().getInt("auctions.min-increment", 1));
+    }
 
-        for (AuctionLot lot : a.lots()) {
-            if (lot.highestBidder() != null) {
-                pendingItems.computeIfAbsent(lot.highestBidder(), k -> new ArrayList<>()).add(lot.item());
-                pendingCurrency.merge(a.owner(), lot.highestBid(), Integer::sum);
+    /** Kleinstes gültiges Maximalgebot für einen fremden Bieter. */
+    public int minimumBid(AuctionLot lot) {
+        return lot.highestBidder() == null ? lot.startBid() : lot.highestBid() + minIncrement();
+    }
 
-                Player win = Bukkit.getPlayer(lot.highestBidder());
-                if (win != null) win.sendMessage(msg.prefixedFormat("auction-ended-winner", "item", pretty(lot.item()), "amount", String.valueOf(lot.highestBid())));
-                Player seller = Bukkit.getPlayer(a.owner());
-                if (seller != null) seller.sendMessage(msg.prefixedFormat("auction-ended-seller", "item", pretty(lot.item()), "amount", String.valueOf(lot.highestBid())));
-            } else {
-                Player seller = Bukkit.getPlayer(a.owner());
-                if (seller != null) seller.sendMessage(msg.prefixedFormat("auction-ended-no-bids", "item", pretty(lot.item())));
-                pendingItems.computeIfAbsent(a.owner(), k -> new ArrayList<>()).add(lot.item());
+    /**
+     * Proxy-Gebot: Der Bieter hinterlegt einmalig sein Maximum. Konkurrierende Maxima werden
+     * sofort im Speicher aufgelöst – der sichtbare Preis steigt nur um den Mindestschritt über
+     * das zweithöchste Maximum. Escrow und Rückerstattung passieren in einem Schritt, gespeichert
+     * wird gebündelt über {@link #requestSave()}.
+     *
+     * @param max Maximalgebot des Bieters
+     */
+    public boolean tryBid(Player bidder, Auction a, AuctionLot lot, int max) {
+        // BUGFIX: Zwischen Klick und Chat-Eingabe kann die Auktion beendet oder entfernt worden sein –
+        // dann darf kein Escrow mehr eingezogen werden, Gewinner und Rückerstattungen stehen schon fest.
+        if (!isOpen(a)) {
+            bidder.sendMessage(msg.prefixed("auction-bid-closed"));
+            return false;
+        }
+        UUID id = bidder.getUniqueId();
+        UUID leader = lot.highestBidder();
+        int inc = minIncrement();
+
+        // Eigenes Maximum erhöhen: nur die Differenz hinterlegen
+        if (id.equals(leader)) {
+            int oldMax = lot.maxBid();
+            if (max <= oldMax) {
+                bidder.sendMessage(msg.prefixedFormat("auction-bid-too-low", "min", String.valueOf(oldMax + 1)));
+                return false;
             }
+            if (!escrow(bidder, a, max - oldMax)) return false;
+            lot.applyBid(id, lot.highestBid(), max);
+            bidder.sendMessage(msg.prefixedFormat("auction-max-raised", "max", String.valueOf(max), "currency", a.currency().name()));
+            requestSave();
+            return true;
         }
-        saveAuctions();
-    }
-
-    /* =================== Bieten (Escrow/Refund) =================== */
 
-    public boolean tryBid(Player bidder, Auction a, AuctionLot lot, int amount) {
-        int min = (lot.highestBidder() == null) ? lot.startBid() : (lot.highestBid() + 1);
-        if (amount < min) {
+        int min = minimumBid(lot);
+        if (max < min) {
             bidder.sendMessage(msg.prefixedFormat("auction-bid-too-low", "min", String.valueOf(min)));
             return false;
         }
 
+        LotRef ref = new LotRef(a, lot);
+        if (leader != null && max <= lot.maxBid()) {
+            // Bisheriger Höchstbieter hält (Gleichstand gewinnt das ältere Gebot):
+            // nichts wird hinterlegt, nur der sichtbare Preis steigt.
+            int visible = Math.min(lot.maxBid(), max + inc);
+            lot.applyBid(leader, visible, lot.maxBid());
+            browseCache.onBid(ref, leader);
+            index.onBid(ref);
+            plugin.views().publish(ref);
+            plugin.snapshots().auctionChanged(a.id());
+            bidder.sendMessage(msg.prefixedFormat("auction-bid-outbid-instant", "amount", String.valueOf(visible), "currency", a.currency().name()));
+            requestSave();
+            return false;
+        }
+
+        if (!escrow(bidder, a, max)) return false;
+
+        int visible = leader == null ? lot.startBid() : Math.min(max, lot.maxBid() + inc);
+        if (leader != null) {
+            // Komplettes Escrow des bisherigen Höchstbieters zurück ins Postfach
+            int refund = lot.maxBid();
+            mailbox.depositCurrency(leader, refund);
+            Player prev = Bukkit.getPlayer(leader);
+            if (prev != null) prev.sendMessage(msg.prefixedFormat("auction-refund", "amount", String.valueOf(refund), "currency", a.currency().name()));
+        }
+
+        lot.applyBid(id, visible, max);
+        browseCache.onBid(ref, id);
+        index.onBid(ref);
+        plugin.views().publish(ref);
+        plugin.snapshots().auctionChanged(a.id());
+        bidder.sendMessage(msg.prefixedFormat("auction-bid-ok",
+                "amount", String.valueOf(visible),
+                "max", String.valueOf(max),
+                "currency", a.currency().name()));
+        requestSave();
+        return true;
+    }
+
+    /** Zieht den Betrag aus dem Inventar ein (alles oder nichts). */
+    private boolean escrow(Player bidder, Auction a, int amount) {
         int removed = InventoryUtils.removeMaterial(bidder.getInventory(), a.currency(), amount);
         if (removed != amount) {
             bidder.sendMessage(msg.prefixedFormat("buy-insufficient-funds", "currency", a.currency().name()));
             if (removed > 0) bidder.getInventory().addItem(new ItemStack(a.currency(), removed));
             return false;
         }
-
-        if (lot.highestBidder() != null) {
-            pendingCurrency.merge(lot.highestBidder(), lot.highestBid(), Integer::sum);
-            Player prev = Bukkit.getPlayer(lot.highestBidder());
-            if (prev != null) prev.sendMessage(msg.prefixedFormat("auction-refund", "amount", String.valueOf(lot.highestBid())));
-        }
-
-        lot.applyBid(bidder.getUniqueId(), amount);
-        bidder.sendMessage(msg.prefixedFormat("auction-bid-ok", "amount", String.valueOf(amount), "currency", a.currency().name()));
-        saveAuctions();
         return true;
     }
 
+    /**
+     * Fordert ein gebündeltes Speichern an. Mehrere Gebote innerhalb der Verzögerung
+     * ({@code auctions.save-delay-ticks}) führen zu genau einem Schreibvorgang.
+     */
+    public void requestSave() {
+        if (saveTaskId != -1) return;
+        long delay = Math.max(1L, plugin.getConfig().getLong("auctions.save-delay-ticks", 40L));
+        saveTaskId = Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
+            saveTaskId = -1;
+            saveAuctions();
+        }, delay);
+    }
+
     public Material getCurrency() {
         String c = plugin.getConfig().getString("currency-material", "DIAMOND");
         Material mat = Material.matchMaterial(c);
@@ -493,28 +715,11 @@ public class AuctionManager {
         return sb.toString().trim();
     }
 
-    private String pretty(ItemStack is) {
-        if (is.getItemMeta() != null && is.getItemMeta().hasDisplayName()) return is.getItemMeta().getDisplayName();
-        return is.getType().name();
-    }
-
     /**
-     * Gibt die Map mit nicht abgeholten Items zurück.
+     * Abhol-Postfach für Gewinne, Rückgaben und Erlöse.
      * Wird vom AuctionReminderService verwendet.
-     *
-     * @return Map von UUID zu Liste von ItemStacks
-     */
-    public Map<UUID, List<ItemStack>> getPendingItems() {
-        return pendingItems;
-    }
-
-    /**
-     * Gibt die Map mit nicht abgeholter Währung zurück.
-     * Wird vom AuctionReminderService verwendet.
-     *
-     * @return Map von UUID zu Integer (Währungsmenge)
      */
-    public Map<UUID, Integer> getPendingCurrency() {
-        return pendingCurrency;
+    public ClaimMailbox mailbox() {
+        return mailbox;
     }
 }
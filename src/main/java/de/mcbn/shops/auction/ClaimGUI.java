@@ -0,0 +1,103 @@
+package de.mcbn.shops.auction;
+
+import de.mcbn.shops.gui.GuiHolder;
+import de.mcbn.shops.gui.GuiItems;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Seitenweises Abholen aus dem {@link ClaimMailbox}.
+ * Klick auf einen Stack holt diesen ab, die Buttons unten holen Währung bzw. alles ab –
+ * jeweils nur so viel, wie ins Inventar passt.
+ */
+final class ClaimGUI extends GuiHolder {
+
+    private static final int PAGE_SIZE = 45;
+    private static final int SLOT_PREV = 45;
+    private static final int SLOT_CURRENCY = 48;
+    private static final int SLOT_ALL = 49;
+    private static final int SLOT_NEXT = 53;
+
+    private final AuctionManager manager;
+    private int page;
+
+    private ClaimGUI(UUID viewer, AuctionManager manager) {
+        super(viewer);
+        this.manager = manager;
+    }
+
+    static void open(Player p, AuctionManager manager) {
+        new ClaimGUI(p.getUniqueId(), manager).render(p);
+    }
+
+    private void render(Player p) {
+        ClaimMailbox mailbox = manager.mailbox();
+        List<ItemStack> items = mailbox.items(viewer);
+        int currency = mailbox.currency(viewer);
+        if (items.isEmpty() && currency <= 0) {
+            p.closeInventory();
+            p.sendMessage(manager.getMessages().prefixed("claim-done"));
+            return;
+        }
+
+        int totalPages = Math.max(1, (items.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.max(0, Math.min(page, totalPages - 1));
+
+        create(54, ChatColor.DARK_AQUA + "Postfach " + ChatColor.DARK_GRAY + "(" + (page + 1) + "/" + totalPages + ")");
+        int from = page * PAGE_SIZE;
+        int to = Math.min(items.size(), from + PAGE_SIZE);
+        for (int i = from; i < to; i++) {
+            int index = i;
+            set(i - from, items.get(i), (pl, e) -> {
+                if (manager.mailbox().claimStack(pl, index) == 0) {
+                    pl.sendMessage(manager.getMessages().prefixed("claim-partial"));
+                }
+                manager.mailbox().save();
+                render(pl);
+            });
+        }
+
+        if (page > 0) {
+            set(SLOT_PREV, GuiItems.button(Material.ARROW, GuiItems.text("« Vorherige Seite", NamedTextColor.YELLOW)), (pl, e) -> {
+                page--;
+                render(pl);
+            });
+        }
+        if (page + 1 < totalPages) {
+            set(SLOT_NEXT, GuiItems.button(Material.ARROW, GuiItems.text("Nächste Seite »", NamedTextColor.YELLOW)), (pl, e) -> {
+                page++;
+                render(pl);
+            });
+        }
+        if (currency > 0) {
+            Material cur = manager.getCurrency();
+            set(SLOT_CURRENCY, GuiItems.item(cur, GuiItems.text("Währung abholen: ", NamedTextColor.AQUA)
+                    .append(Component.text(currency + "x ", NamedTextColor.WHITE))
+                    .append(GuiItems.name(cur).color(NamedTextColor.WHITE))), (pl, e) -> {
+                manager.mailbox().claimCurrency(pl, cur);
+                if (manager.mailbox().currency(pl.getUniqueId()) > 0) {
+                    pl.sendMessage(manager.getMessages().prefixed("claim-partial"));
+                }
+                manager.mailbox().save();
+                render(pl);
+            });
+        }
+        set(SLOT_ALL, GuiItems.button(Material.CHEST, GuiItems.text("Alles abholen", NamedTextColor.GREEN),
+                GuiItems.text("Nur so viel, wie ins Inventar passt.", NamedTextColor.GRAY)), (pl, e) -> {
+            if (!manager.mailbox().claimAll(pl, manager.getCurrency())) {
+                pl.sendMessage(manager.getMessages().prefixed("claim-partial"));
+            }
+            manager.mailbox().save();
+            render(pl);
+        });
+
+        p.openInventory(getInventory());
+    }
+}
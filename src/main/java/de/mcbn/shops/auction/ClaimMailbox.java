@@ -0,0 +1,368 @@
+package de.mcbn.shops.auction;
+
+import de.mcbn.shops.Main;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Abhol-Postfach für Auktionsgewinne, Rückgaben und Erlöse.
+ * <p>
+ * Gleichartige Items werden beim Einlegen zu vollen Stacks zusammengeführt. Postfächer von
+ * Spielern, die länger als {@code auctions.mailbox.cold-after-days} Tage nicht online waren,
+ * wandern beim Laden nach {@code mailbox-cold.yml}. Diese Datei wird erst gelesen, wenn ein
+ * solcher Spieler wieder auftaucht. Abholen legt nur so viel ins Inventar, wie hineinpasst –
+ * der Rest bleibt im Postfach, es werden nie Items auf den Boden geworfen.
+ */
+public class ClaimMailbox {
+
+    /** Wird bei jeder Änderung eines Postfachs benachrichtigt (Hauptthread). */
+    public interface ChangeListener {
+        /**
+         * @param player Besitzer des Postfachs
+         * @param deposited true bei neuem Inhalt, false nach dem Abholen
+         */
+        void onMailChanged(UUID player, boolean deposited);
+    }
+
+    /** Inhalt eines Postfachs. */
+    static final class Mailbox {
+        final List<ItemStack> items = new ArrayList<>();
+        int currency;
+
+        boolean isEmpty() {
+            return items.isEmpty() && currency <= 0;
+        }
+    }
+
+    private final Main plugin;
+    private final File file;
+    private final File coldFile;
+
+    private final Map<UUID, Mailbox> hot = new ConcurrentHashMap<>();
+    /** UUIDs mit ausgelagertem Postfach (wird in mailbox.yml mitgeführt). */
+    private final Set<UUID> coldIndex = ConcurrentHashMap.newKeySet();
+    /** Erst beim ersten Zugriff auf ein kaltes Postfach geladen. */
+    private YamlConfiguration cold;
+    private boolean dirty;
+    private boolean coldDirty;
+    private ChangeListener listener;
+
+    public ClaimMailbox(Main plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "mailbox.yml");
+        this.coldFile = new File(plugin.getDataFolder(), "mailbox-cold.yml");
+    }
+
+    /** Setzt den Listener für Postfach-Änderungen (null = keiner). */
+    public void setChangeListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    private void changed(UUID player, boolean deposited) {
+        if (listener != null) listener.onMailChanged(player, deposited);
+    }
+
+    /* =================== Laden/Speichern =================== */
+
+    public void load() {
+        hot.clear();
+        coldIndex.clear();
+        cold = null;
+        dirty = false;
+        coldDirty = false;
+
+        YamlConfiguration data = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection sec = data.getConfigurationSection("mail");
+        if (sec != null) {
+            for (String key : sec.getKeys(false)) {
+                try {
+                    hot.put(UUID.fromString(key), read(sec.getConfigurationSection(key)));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Ungültige UUID im Postfach '" + key + "': " + e.getMessage());
+                }
+            }
+        }
+        for (String key : data.getStringList("cold-index")) {
+            try {
+                coldIndex.add(UUID.fromString(key));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        int days = plugin.getConfig().getInt("auctions.mailbox.cold-after-days", 30);
+        if (days > 0) moveColdMailboxes(days * 86_400_000L);
+    }
+
+    /** Speichert nur, wenn sich seit dem letzten Speichern etwas geändert hat. */
+    public void save() {
+        if (dirty) {
+            YamlConfiguration data = new YamlConfiguration();
+            for (Map.Entry<UUID, Mailbox> e : hot.entrySet()) {
+                if (e.getValue().isEmpty()) continue;
+                write(data, "mail." + e.getKey(), e.getValue());
+            }
+            List<String> index = new ArrayList<>();
+            for (UUID id : coldIndex) index.add(id.toString());
+            data.set("cold-index", index);
+            try {
+                data.save(file);
+                dirty = false;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Fehler beim Speichern von mailbox.yml: " + e.getMessage());
+            }
+        }
+        if (coldDirty && cold != null) {
+            try {
+                cold.save(coldFile);
+                coldDirty = false;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Fehler beim Speichern von mailbox-cold.yml: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Lagert Postfächer lange abwesender Spieler in die kalte Datei aus. */
+    private void moveColdMailboxes(long maxAbsentMillis) {
+        long now = System.currentTimeMillis();
+        List<UUID> toMove = new ArrayList<>();
+        for (UUID id : hot.keySet()) {
+            OfflinePlayer op = Bukkit.getOfflinePlayer(id);
+            if (op.isOnline()) continue;
+            long lastSeen = op.getLastSeen();
+            if (lastSeen > 0 && now - lastSeen > maxAbsentMillis) toMove.add(id);
+        }
+        if (toMove.isEmpty()) return;
+
+        YamlConfiguration c = cold();
+        for (UUID id : toMove) {
+            Mailbox box = hot.remove(id);
+            if (box == null || box.isEmpty()) continue;
+            // Falls schon ein kaltes Postfach existiert: zusammenführen
+            Mailbox existing = c.isConfigurationSection(id.toString()) ? read(c.getConfigurationSection(id.toString())) : new Mailbox();
+            for (ItemStack it : box.items) merge(existing, it);
+            existing.currency += box.currency;
+            write(c, id.toString(), existing);
+            coldIndex.add(id);
+        }
+        dirty = true;
+        coldDirty = true;
+        save();
+        plugin.getLogger().info(toMove.size() + " Postfächer inaktiver Spieler nach mailbox-cold.yml ausgelagert.");
+    }
+
+    private YamlConfiguration cold() {
+        if (cold == null) cold = YamlConfiguration.loadConfiguration(coldFile);
+        return cold;
+    }
+
+    private static Mailbox read(ConfigurationSection sec) {
+        Mailbox box = new Mailbox();
+        if (sec == null) return box;
+        List<?> list = sec.getList("items");
+        if (list != null) {
+            for (Object o : list) {
+                if (o instanceof ItemStack) merge(box, (ItemStack) o);
+            }
+        }
+        box.currency = sec.getInt("currency", 0);
+        return box;
+    }
+
+    private static void write(ConfigurationSection data, String path, Mailbox box) {
+        data.set(path + ".items", new ArrayList<>(box.items));
+        data.set(path + ".currency", box.currency);
+    }
+
+    /* =================== Zugriff =================== */
+
+    /** Postfach eines Spielers; holt ein ausgelagertes Postfach bei Bedarf zurück. */
+    private Mailbox box(UUID player, boolean create) {
+        Mailbox box = hot.get(player);
+        if (box != null) return box;
+        if (coldIndex.remove(player)) {
+            YamlConfiguration c = cold();
+            box = read(c.getConfigurationSection(player.toString()));
+            c.set(player.toString(), null);
+            hot.put(player, box);
+            dirty = true;
+            coldDirty = true;
+            return box;
+        }
+        if (!create) return null;
+        box = new Mailbox();
+        hot.put(player, box);
+        return box;
+    }
+
+    /** Legt ein Item ins Postfach (wird mit gleichartigen Stacks zusammengeführt). */
+    public void depositItem(UUID player, ItemStack item) {
+        if (item == null || item.getType() == Material.AIR || item.getAmount() <= 0) return;
+        merge(box(player, true), item);
+        dirty = true;
+        changed(player, true);
+    }
+
+    /** Schreibt Währung gut. */
+    public void depositCurrency(UUID player, int amount) {
+        if (amount <= 0) return;
+        box(player, true).currency += amount;
+        dirty = true;
+        changed(player, true);
+    }
+
+    private static void merge(Mailbox box, ItemStack item) {
+        int remaining = item.getAmount();
+        int max = Math.max(1, item.getMaxStackSize());
+        for (ItemStack existing : box.items) {
+            if (remaining <= 0) break;
+            if (existing.getAmount() >= max || !existing.isSimilar(item)) continue;
+            int add = Math.min(max - existing.getAmount(), remaining);
+            existing.setAmount(existing.getAmount() + add);
+            remaining -= add;
+        }
+        while (remaining > 0) {
+            ItemStack stack = item.clone();
+            int amount = Math.min(max, remaining);
+            stack.setAmount(amount);
+            box.items.add(stack);
+            remaining -= amount;
+        }
+    }
+
+    public boolean hasMail(UUID player) {
+        Mailbox box = hot.get(player);
+        if (box != null) return !box.isEmpty();
+        return coldIndex.contains(player);
+    }
+
+    /** Nur-Lesen-Kopie der Stacks eines Spielers. */
+    public List<ItemStack> items(UUID player) {
+        Mailbox box = box(player, false);
+        if (box == null) return Collections.emptyList();
+        List<ItemStack> out = new ArrayList<>(box.items.size());
+        for (ItemStack it : box.items) out.add(it.clone());
+        return out;
+    }
+
+    /** Anzahl Stacks im Postfach. */
+    public int stackCount(UUID player) {
+        Mailbox box = box(player, false);
+        return box == null ? 0 : box.items.size();
+    }
+
+    /** Gesamtzahl der Items im Postfach. */
+    public int itemCount(UUID player) {
+        Mailbox box = box(player, false);
+        if (box == null) return 0;
+        int n = 0;
+        for (ItemStack it : box.items) n += it.getAmount();
+        return n;
+    }
+
+    public int currency(UUID player) {
+        Mailbox box = box(player, false);
+        return box == null ? 0 : box.currency;
+    }
+
+    /** Spieler mit nicht-leerem, geladenem Postfach. */
+    public Set<UUID> recipients() {
+        Set<UUID> out = new HashSet<>();
+        for (Map.Entry<UUID, Mailbox> e : hot.entrySet()) {
+            if (!e.getValue().isEmpty()) out.add(e.getKey());
+        }
+        return out;
+    }
+
+    /* =================== Abholen =================== */
+
+    /**
+     * Holt einen Stack (nach Position im Postfach) ab – so viel wie ins Inventar passt.
+     *
+     * @return Anzahl tatsächlich übergebener Items
+     */
+    public int claimStack(Player p, int index) {
+        Mailbox box = box(p.getUniqueId(), false);
+        if (box == null || index < 0 || index >= box.items.size()) return 0;
+        int given = give(p, box, index);
+        cleanup(p.getUniqueId(), box);
+        return given;
+    }
+
+    /**
+     * Zahlt Währung aus – so viel wie ins Inventar passt.
+     *
+     * @return Anzahl ausgezahlter Währungs-Items
+     */
+    public int claimCurrency(Player p, Material currency) {
+        Mailbox box = box(p.getUniqueId(), false);
+        if (box == null || box.currency <= 0) return 0;
+        int given = 0;
+        while (box.currency > 0) {
+            int chunk = Math.min(currency.getMaxStackSize(), box.currency);
+            HashMap<Integer, ItemStack> rest = p.getInventory().addItem(new ItemStack(currency, chunk));
+            int left = 0;
+            for (ItemStack r : rest.values()) left += r.getAmount();
+            given += chunk - left;
+            box.currency -= chunk - left;
+            if (left > 0) break;
+        }
+        if (given > 0) dirty = true;
+        cleanup(p.getUniqueId(), box);
+        return given;
+    }
+
+    /**
+     * Holt alles ab, was ins Inventar passt (Währung zuerst).
+     *
+     * @return true wenn danach nichts mehr im Postfach liegt
+     */
+    public boolean claimAll(Player p, Material currency) {
+        claimCurrency(p, currency);
+        Mailbox box = box(p.getUniqueId(), false);
+        if (box == null) return true;
+        for (int i = 0; i < box.items.size(); ) {
+            int before = box.items.size();
+            give(p, box, i);
+            if (box.items.size() == before) {
+                // Stack passte nicht (vollständig) – Inventar voll
+                if (p.getInventory().firstEmpty() == -1) break;
+                i++;
+            }
+        }
+        cleanup(p.getUniqueId(), box);
+        return box.isEmpty();
+    }
+
+    private int give(Player p, Mailbox box, int index) {
+        ItemStack stack = box.items.get(index);
+        int amount = stack.getAmount();
+        HashMap<Integer, ItemStack> rest = p.getInventory().addItem(stack.clone());
+        int left = 0;
+        for (ItemStack r : rest.values()) left += r.getAmount();
+        if (left <= 0) {
+            box.items.remove(index);
+        } else {
+            stack.setAmount(left);
+        }
+        if (left < amount) dirty = true;
+        return amount - left;
+    }
+
+    private void cleanup(UUID player, Mailbox box) {
+        if (box.isEmpty()) {
+            hot.remove(player);
+            dirty = true;
+        }
+        changed(player, false);
+    }
+}
@@ -0,0 +1,32 @@
+package de.mcbn.shops.auction;
+
+import java.util.Objects;
+
+/** Verweis auf ein einzelnes Los innerhalb einer Auktion (für Ansichten und Indizes). */
+public final class LotRef {
+    private final Auction auction;
+    private final AuctionLot lot;
+
+    public LotRef(Auction auction, AuctionLot lot) {
+        this.auction = auction;
+        this.lot = lot;
+    }
+
+    public Auction auction() { return auction; }
+    public AuctionLot lot() { return lot; }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LotRef)) return false;
+        LotRef that = (LotRef) o;
+        return auction.id().equals(that.auction.id()) && lot.id().equals(that.lot.id());
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(auction.id(), lot.id());
+    }
+
+    @Override public String toString() {
+        return auction.id() + "#" + lot.id();
+    }
+}
@@ -0,0 +1,92 @@
+package de.mcbn.shops.gui;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Basis für alle Plugin-GUIs.
+ * <p>
+ * Jeder Holder hält seinen Sitzungszustand als typisierte Felder und ein Array mit einer
+ * {@link SlotAction} pro Slot. Der {@link GuiRouter} schlägt beim Klick nur den Slot nach –
+ * Lore dient ausschließlich der Anzeige und wird nie ausgewertet.
+ */
+public abstract class GuiHolder implements InventoryHolder {
+
+    private static final SlotAction[] NO_ACTIONS = new SlotAction[0];
+
+    /** Spieler, für den das GUI geöffnet wurde (null = jeder darf klicken). */
+    protected final UUID viewer;
+    private Inventory inventory;
+    private SlotAction[] actions = NO_ACTIONS;
+
+    protected GuiHolder(UUID viewer) {
+        this.viewer = viewer;
+    }
+
+    /** Erzeugt ein neues Inventar für diesen Holder und verwirft alle Slot-Aktionen. */
+    public Inventory create(int size, String title) {
+        inventory = Bukkit.createInventory(this, size, title);
+        actions = new SlotAction[size];
+        return inventory;
+    }
+
+    /** Setzt ein Icon mit Aktion. */
+    public void set(int slot, ItemStack icon, SlotAction action) {
+        inventory.setItem(slot, icon);
+        actions[slot] = action;
+    }
+
+    /** Setzt ein reines Anzeige-Icon (ohne Aktion). */
+    public void set(int slot, ItemStack icon) {
+        set(slot, icon, null);
+    }
+
+    /** Ersetzt nur das Icon eines Slots; die Aktion bleibt (Live-Aktualisierung). */
+    public void update(int slot, ItemStack icon) {
+        inventory.setItem(slot, icon);
+    }
+
+    /** Füllt alle leeren Slots mit einem Deko-Item. */
+    public void fill(ItemStack icon) {
+        for (int i = 0; i < inventory.getSize(); i++) {
+            if (inventory.getItem(i) == null) inventory.setItem(i, icon);
+        }
+    }
+
+    public UUID viewer() {
+        return viewer;
+    }
+
+    /** Aktion für einen Slot des oberen Inventars (oder null). */
+    SlotAction action(int slot) {
+        return slot < actions.length ? actions[slot] : null;
+    }
+
+    /**
+     * Ob Spieler Items per Ziehen in diesen Slot des oberen Inventars legen dürfen (z.B. Ablagefelder).
+     * Standard: nein.
+     */
+    protected boolean acceptsItems(int slot) {
+        return false;
+    }
+
+    /** Klick ins Spielerinventar (unten). Standard: ignorieren. */
+    protected void onBottomClick(Player player, InventoryClickEvent event) {
+    }
+
+    /** Wird beim Schließen aufgerufen. Standard: nichts. */
+    protected void onClose(Player player, InventoryCloseEvent event) {
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
@@ -0,0 +1,132 @@
+package de.mcbn.shops.gui;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gemeinsame Bausteine für GUI-Items.
+ * <p>
+ * Gleichbleibende Items (Füllglas, feste Buttons) werden einmal als Prototyp gebaut und danach nur
+ * noch geklont. Namen und Lore sind Adventure-Komponenten; Item-Namen werden als übersetzbare
+ * Schlüssel geschickt und vom Client in seiner Sprache angezeigt.
+ */
+public final class GuiItems {
+
+    private static final Map<Material, ItemStack> FILLERS = new ConcurrentHashMap<>();
+    // Nur für Buttons mit festem Inhalt – dynamische Werte gehören in item(...)
+    private static final Map<List<Object>, ItemStack> BUTTONS = new ConcurrentHashMap<>();
+    private static final Map<Material, String> PLAIN_NAMES = new ConcurrentHashMap<>();
+
+    private GuiItems() {
+    }
+
+    /** Deko-Glas ohne sichtbaren Namen. */
+    public static ItemStack filler(Material m) {
+        return FILLERS.computeIfAbsent(m, k -> item(k, Component.text(" "))).clone();
+    }
+
+    /** Button mit festem Namen und fester Lore (Prototyp wird zwischengespeichert). */
+    public static ItemStack button(Material m, Component name, Component... lore) {
+        List<Object> key = Arrays.asList(m, name, Arrays.asList(lore));
+        return BUTTONS.computeIfAbsent(key, k -> item(m, name, lore)).clone();
+    }
+
+    /** Neues Item mit Namen und Lore, für wechselnde Inhalte. */
+    public static ItemStack item(Material m, Component name, Component... lore) {
+        return named(new ItemStack(m), name, lore);
+    }
+
+    /** Setzt Name (und Lore, falls angegeben) auf eine Kopie von {@code base}. */
+    public static ItemStack named(ItemStack base, Component name, Component... lore) {
+        ItemStack it = base.clone();
+        ItemMeta im = it.getItemMeta();
+        im.displayName(plain(name));
+        if (lore.length > 0) {
+            Component[] lines = new Component[lore.length];
+            for (int i = 0; i < lore.length; i++) lines[i] = plain(lore[i]);
+            im.lore(Arrays.asList(lines));
+        }
+        it.setItemMeta(im);
+        return it;
+    }
+
+    /** Ersetzt nur die Lore auf einer Kopie von {@code base}; ein eigener Name bleibt erhalten. */
+    public static ItemStack withLore(ItemStack base, List<Component> lore) {
+        ItemStack it = base.clone();
+        ItemMeta im = it.getItemMeta();
+        List<Component> lines = new ArrayList<>(lore.size());
+        for (Component c : lore) lines.add(plain(c));
+        im.lore(lines);
+        it.setItemMeta(im);
+        return it;
+    }
+
+    /** Text in einer Farbe (Kursivschrift entfernt {@link #named} für Name und Lore). */
+    public static Component text(String s, TextColor color) {
+        return Component.text(s, color);
+    }
+
+    /** Lore-Zeile "Bezeichnung: Wert" (grau/weiß). */
+    public static Component label(String label, Object value) {
+        return label(label, value, NamedTextColor.WHITE);
+    }
+
+    /** Lore-Zeile "Bezeichnung: Wert" mit eigener Farbe für den Wert. */
+    public static Component label(String label, Object value, TextColor valueColor) {
+        return text(label + ": ", NamedTextColor.GRAY).append(Component.text(String.valueOf(value), valueColor));
+    }
+
+    /** Anzeigename eines Items: eigener Name, sonst der übersetzbare Name des Materials. */
+    public static Component name(ItemStack is) {
+        if (is == null) return Component.text("?");
+        ItemMeta meta = is.getItemMeta();
+        if (meta != null && meta.hasDisplayName()) return meta.displayName();
+        return name(is.getType());
+    }
+
+    public static Component name(Material m) {
+        return Component.translatable(m.translationKey());
+    }
+
+    /**
+     * Lesbarer Name als String (Schilder, Chat-Vorlagen): eigener Name oder der einmalig formatierte
+     * Materialname ("Oak Log").
+     */
+    public static String plainName(ItemStack is) {
+        if (is == null || is.getType() == Material.AIR) return "Unbekannt";
+        ItemMeta meta = is.getItemMeta();
+        if (meta != null && meta.hasDisplayName()) return meta.getDisplayName();
+        return plainName(is.getType());
+    }
+
+    public static String plainName(Material m) {
+        return PLAIN_NAMES.computeIfAbsent(m, GuiItems::format);
+    }
+
+    private static String format(Material m) {
+        String[] parts = m.name().toLowerCase(Locale.ROOT).split("_");
+        StringBuilder sb = new StringBuilder(m.name().length());
+        for (String part : parts) {
+            if (part.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(Character.toUpperCase(part.charAt(0))).append(part, 1, part.length());
+        }
+        return sb.toString();
+    }
+
+    private static Component plain(Component c) {
+        return c.decorationIfAbsent(TextDecoration.ITALIC, TextDecoration.State.FALSE);
+    }
+}
@@ -0,0 +1,69 @@
+package de.mcbn.shops.gui;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.inventory.InventoryHolder;
+
+/**
+ * Einziger Inventar-Listener des Plugins.
+ * <p>
+ * PERFORMANCE FIX: Statt dass jedes GUI jeden {@link InventoryClickEvent} prüft, wird hier
+ * einmal nach Holder-Typ verteilt und die Slot-Aktion direkt aus dem Array gelesen (O(1),
+ * kein String-Parsing).
+ */
+public class GuiRouter implements Listener {
+
+    private final LiveViews views;
+
+    public GuiRouter(LiveViews views) {
+        this.views = views;
+    }
+
+    @EventHandler
+    public void onClick(InventoryClickEvent event) {
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (!(holder instanceof GuiHolder)) return;
+        event.setCancelled(true);
+        if (!(event.getWhoClicked() instanceof Player)) return;
+
+        GuiHolder gui = (GuiHolder) holder;
+        Player p = (Player) event.getWhoClicked();
+        if (gui.viewer() != null && !gui.viewer().equals(p.getUniqueId())) return;
+
+        int raw = event.getRawSlot();
+        if (raw < 0) return;
+        if (raw >= event.getInventory().getSize()) {
+            gui.onBottomClick(p, event);
+            return;
+        }
+        SlotAction action = gui.action(raw);
+        if (action != null) action.onClick(p, event);
+    }
+
+    @EventHandler
+    public void onDrag(InventoryDragEvent event) {
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (!(holder instanceof GuiHolder)) return;
+        GuiHolder gui = (GuiHolder) holder;
+        int topSize = event.getInventory().getSize();
+        for (int raw : event.getRawSlots()) {
+            if (raw < topSize && !gui.acceptsItems(raw)) {
+                event.setCancelled(true);
+                return;
+            }
+        }
+    }
+
+    @EventHandler
+    public void onClose(InventoryCloseEvent event) {
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (!(holder instanceof GuiHolder)) return;
+        views.release(event.getInventory()); // Live-Abos dieser Seite verwerfen
+        if (!(event.getPlayer() instanceof Player)) return;
+        ((GuiHolder) holder).onClose((Player) event.getPlayer(), event);
+    }
+}
@@ -0,0 +1,144 @@
+package de.mcbn.shops.gui;
+
+import de.mcbn.shops.shop.StockCache;
+import de.mcbn.shops.util.BlockPosKey;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Live-Aktualisierung geöffneter GUIs.
+ * <p>
+ * Holder abonnieren die Modelle, die sie anzeigen – Shops über ihre {@link BlockPosKey}, Auktionslose
+ * über ihren {@code LotRef}. Ändert sich ein Modell (Bestand oder Shop entfernt laut {@link StockCache},
+ * Gebot laut Auktionshaus), führt {@link #publish} nur die Refresh-Aktionen dieser Abos aus; es werden
+ * also nur die betroffenen Slots neu gesetzt. Countdowns laufen über einen gemeinsamen Ticker, der einen Slot nur dann neu setzt,
+ * wenn sich der angezeigte Wert geändert hat.
+ * <p>
+ * Abos hängen am Inventar, nicht am Holder: Blättert ein Holder um (neues Inventar), verfallen die
+ * Abos der alten Seite mit deren Schließen.
+ */
+public class LiveViews implements StockCache.ChangeListener {
+
+    private static final class Subscription {
+        final Object topic;
+        final Inventory inventory;
+        final Runnable refresh;
+
+        Subscription(Object topic, Inventory inventory, Runnable refresh) {
+            this.topic = topic;
+            this.inventory = inventory;
+            this.refresh = refresh;
+        }
+    }
+
+    private static final class Countdown {
+        final GuiHolder holder;
+        final int slot;
+        final Supplier<String> value;
+        final Supplier<ItemStack> render;
+        String shown;
+
+        Countdown(GuiHolder holder, int slot, Supplier<String> value, Supplier<ItemStack> render) {
+            this.holder = holder;
+            this.slot = slot;
+            this.value = value;
+            this.render = render;
+            this.shown = value.get();
+        }
+    }
+
+    private final Plugin plugin;
+    private final Map<Object, List<Subscription>> byTopic = new HashMap<>();
+    private final Map<Inventory, List<Subscription>> byInventory = new IdentityHashMap<>();
+    private final Map<Inventory, List<Countdown>> countdowns = new IdentityHashMap<>();
+    private int taskId = -1;
+
+    public LiveViews(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /** Startet den gemeinsamen Countdown-Ticker (einmal pro Sekunde). */
+    public void start() {
+        if (taskId != -1) return;
+        taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::tick, 20L, 20L);
+    }
+
+    public void stop() {
+        if (taskId != -1) Bukkit.getScheduler().cancelTask(taskId);
+        taskId = -1;
+        byTopic.clear();
+        byInventory.clear();
+        countdowns.clear();
+    }
+
+    /**
+     * Registriert eine Refresh-Aktion des aktuellen Inventars von {@code holder} für ein Modell.
+     * Die Aktion läuft auf dem Hauptthread und sollte nur die betroffenen Slots setzen.
+     */
+    public void subscribe(GuiHolder holder, Object topic, Runnable refresh) {
+        Subscription s = new Subscription(topic, holder.getInventory(), refresh);
+        byTopic.computeIfAbsent(topic, k -> new ArrayList<>()).add(s);
+        byInventory.computeIfAbsent(s.inventory, k -> new ArrayList<>()).add(s);
+    }
+
+    /**
+     * Countdown-Slot: {@code value} liefert den angezeigten Wert (z.B. "4m 12s"); ändert er sich,
+     * wird das Icon aus {@code render} gesetzt. Die Slot-Aktion bleibt erhalten.
+     */
+    public void countdown(GuiHolder holder, int slot, Supplier<String> value, Supplier<ItemStack> render) {
+        countdowns.computeIfAbsent(holder.getInventory(), k -> new ArrayList<>())
+                .add(new Countdown(holder, slot, value, render));
+    }
+
+    /** Meldet eine Modelländerung an alle offenen Ansichten, die das Modell zeigen. */
+    public void publish(Object topic) {
+        List<Subscription> subs = byTopic.get(topic);
+        if (subs == null) return;
+        for (Subscription s : new ArrayList<>(subs)) {
+            if (s.inventory.getViewers().isEmpty()) {
+                release(s.inventory); // verwaist (z.B. Schließen ohne Event beim Reload)
+                continue;
+            }
+            s.refresh.run();
+        }
+    }
+
+    /** Verwirft alle Abos und Countdowns eines Inventars (beim Schließen). */
+    public void release(Inventory inventory) {
+        countdowns.remove(inventory);
+        List<Subscription> subs = byInventory.remove(inventory);
+        if (subs == null) return;
+        for (Subscription s : subs) {
+            List<Subscription> list = byTopic.get(s.topic);
+            if (list == null) continue;
+            list.remove(s);
+            if (list.isEmpty()) byTopic.remove(s.topic);
+        }
+    }
+
+    private void tick() {
+        if (countdowns.isEmpty()) return;
+        for (Map.Entry<Inventory, List<Countdown>> e : new ArrayList<>(countdowns.entrySet())) {
+            if (e.getKey().getViewers().isEmpty()) {
+                release(e.getKey());
+                continue;
+            }
+            for (Countdown c : e.getValue()) {
+                String now = c.value.get();
+                if (now.equals(c.shown)) continue; // nur geänderte Werte neu setzen
+                c.shown = now;
+                c.holder.update(c.slot, c.render.get());
+            }
+        }
+    }
+
+    @Override
+    public void onStockChanged(BlockPosKey pos, int before, int after) {
+        publish(pos);
+    }
+}
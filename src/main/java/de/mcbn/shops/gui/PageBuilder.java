@@ -0,0 +1,106 @@
+package de.mcbn.shops.gui;
+
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Baut schwere GUI-Seiten im Hintergrund.
+ * <p>
+ * Der Aufrufer erstellt auf dem Hauptthread eine unveränderliche Momentaufnahme und übergibt das
+ * Rendern (Icons, Lore) als {@code work}. Es läuft asynchron; nur {@code show} – also
+ * {@code createInventory}, Slots setzen und {@code openInventory} – läuft wieder auf dem Hauptthread.
+ * Dauert der Bau länger als {@code gui.async.placeholder-ticks}, sieht der Spieler so lange eine
+ * Lade-Seite. Pro Spieler zählt nur die zuletzt angeforderte Seite; ältere Ergebnisse werden verworfen,
+ * ebenso wenn der Spieler die Lade-Seite inzwischen geschlossen hat.
+ */
+public class PageBuilder {
+
+    /** Platzhalter-Inventar, solange eine Seite gebaut wird. */
+    private static final class LoadingHolder extends GuiHolder {
+        LoadingHolder(UUID viewer) {
+            super(viewer);
+        }
+    }
+
+    private final Plugin plugin;
+    /** Letzte Anforderung pro Spieler (Token). */
+    private final Map<UUID, Object> latest = new ConcurrentHashMap<>();
+
+    public PageBuilder(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Baut eine Seite für {@code p}: {@code work} im Hintergrund, {@code show} danach auf dem Hauptthread.
+     * Ist {@code gui.async.enabled} aus, läuft beides sofort.
+     */
+    public <T> void build(Player p, Supplier<T> work, BiConsumer<Player, T> show) {
+        UUID id = p.getUniqueId();
+        if (!plugin.getConfig().getBoolean("gui.async.enabled", true)) {
+            latest.remove(id);
+            show.accept(p, work.get());
+            return;
+        }
+        Object token = new Object();
+        latest.put(id, token);
+        LoadingHolder[] loading = new LoadingHolder[1];
+        boolean[] done = new boolean[1];
+
+        long delay = Math.max(0, plugin.getConfig().getLong("gui.async.placeholder-ticks", 2));
+        Runnable placeholder = () -> {
+            Player pl = Bukkit.getPlayer(id);
+            if (done[0] || pl == null || latest.get(id) != token) return;
+            loading[0] = new LoadingHolder(id);
+            loading[0].create(54, "§8Lädt…");
+            loading[0].set(22, GuiItems.button(Material.CLOCK, GuiItems.text("Lädt…", NamedTextColor.GRAY)));
+            loading[0].fill(GuiItems.filler(Material.GRAY_STAINED_GLASS_PANE));
+            pl.openInventory(loading[0].getInventory());
+        };
+        if (delay == 0) placeholder.run();
+        else Bukkit.getScheduler().runTaskLater(plugin, placeholder, delay);
+
+        // PERFORMANCE FIX: Icons und Lore werden nicht mehr im Klick-Handler gebaut
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            T result;
+            try {
+                result = work.get();
+            } catch (RuntimeException ex) {
+                plugin.getLogger().log(Level.WARNING, "GUI-Seite konnte nicht gebaut werden", ex);
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    done[0] = true;
+                    Player pl = Bukkit.getPlayer(id);
+                    if (!latest.remove(id, token) || pl == null) return;
+                    if (loading[0] != null) pl.closeInventory();
+                    pl.sendMessage("§cSeite konnte nicht geladen werden.");
+                });
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                done[0] = true;
+                Player pl = Bukkit.getPlayer(id);
+                if (!latest.remove(id, token) || pl == null) return; // überholt oder offline
+                if (loading[0] != null) {
+                    InventoryHolder open = pl.getOpenInventory().getTopInventory().getHolder();
+                    if (open != loading[0]) return; // Lade-Seite geschlossen
+                }
+                show.accept(pl, result);
+            });
+        });
+    }
+
+    /** Verwirft eine laufende Anforderung (z.B. wenn eine Seite direkt aus dem Cache geöffnet wird). */
+    public void cancel(Player p) {
+        latest.remove(p.getUniqueId());
+    }
+}
@@ -1,23 +1,25 @@
 package de.mcbn.shops.shop.gui;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.gui.GuiHolder;
+import de.mcbn.shops.gui.GuiItems;
+import de.mcbn.shops.market.PriceHistory;
+import de.mcbn.shops.market.PriceStats;
+import de.mcbn.shops.market.PriceWindow;
 import de.mcbn.shops.shop.ShopManager;
 import de.mcbn.shops.util.BlockPosKey;
-import org.bukkit.Bukkit;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
-import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.*;
-import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.*;
 
-public class ShopCreateGUI implements Listener {
+public class ShopCreateGUI {
 
     private final Main plugin;
     private final ShopManager shops;
@@ -28,169 +30,114 @@ public class ShopCreateGUI implements Listener {
     }
 
     /** Session-Daten pro Spieler */
-    private static final class Session {
-        final UUID player;
+    private final class Holder extends GuiHolder {
         final BlockPosKey blockKey;
         final ItemStack template;
+        final String currency;
         int bundle = 16;
         int price = 1;
-        Session(UUID player, Block block, ItemStack template) {
-            this.player = player;
+
+        Holder(UUID player, Block block, ItemStack template) {
+            super(player);
             this.blockKey = new BlockPosKey(block.getLocation());
             this.template = template;
+            this.currency = plugin.getConfig().getString("currency-material", "DIAMOND");
         }
-    }
 
-    private static final class Holder implements InventoryHolder {
-        final Session session;
-        Holder(Session s) { this.session = s; }
-        @Override public Inventory getInventory() { return null; }
-    }
+        void open(Player p) {
+            create(27, ChatColor.DARK_GREEN + "Shop erstellen");
 
-    /** Öffnet das Create-GUI, wenn im Ziel-Container ein Item als Template vorhanden ist. */
-    public void open(Player p, Block target, ItemStack template) {
-        Session s = new Session(p.getUniqueId(), target, template.clone());
-        s.template.setAmount(1);
+            // Template in die Mitte
+            set(4, GuiItems.named(template, GuiItems.text("Verkaufs-Item", NamedTextColor.GOLD)));
 
-        Inventory inv = Bukkit.createInventory(new Holder(s), 27, ChatColor.DARK_GREEN + "Shop erstellen");
+            // Bundle-Menü
+            set(10, GuiItems.button(Material.REDSTONE, GuiItems.text("Bundle -1", NamedTextColor.RED)), (pl, e) -> setBundle(bundle - 1));
+            set(11, bundleItem(bundle));
+            set(12, GuiItems.button(Material.EMERALD, GuiItems.text("Bundle +1", NamedTextColor.GREEN)), (pl, e) -> setBundle(bundle + 1));
 
-        // Deko
-        fill(inv, glass(Material.GRAY_STAINED_GLASS_PANE, " "));
+            // Preis-Menü (Währung aus Config)
+            set(19, GuiItems.button(Material.REDSTONE, GuiItems.text("Preis -1", NamedTextColor.RED)), (pl, e) -> setPrice(price - 1));
+            set(20, priceItem(price, currency));
+            set(21, GuiItems.button(Material.EMERALD, GuiItems.text("Preis +1", NamedTextColor.GREEN)), (pl, e) -> setPrice(price + 1));
 
-        // Template in die Mitte
-        inv.setItem(4, named(template.clone(), ChatColor.GOLD + "Verkaufs-Item"));
+            // Marktpreis aus der Preis-Historie (Klick übernimmt den Vorschlag)
+            renderMarket();
 
-        // Bundle-Menü
-        inv.setItem(10, named(icon(Material.REDSTONE, "-1 Bundle"), ChatColor.RED + "Bundle -1"));
-        inv.setItem(11, bundleItem(s.bundle));
-        inv.setItem(12, named(icon(Material.EMERALD, "+1 Bundle"), ChatColor.GREEN + "Bundle +1"));
+            // Aktionen
+            set(24, GuiItems.button(Material.LIME_WOOL, GuiItems.text("Erstellen", NamedTextColor.GREEN).decorate(TextDecoration.BOLD)), (pl, e) -> confirm(pl));
+            set(25, GuiItems.button(Material.RED_WOOL, GuiItems.text("Abbrechen", NamedTextColor.RED)), (pl, e) -> pl.closeInventory());
 
-        // Preis-Menü (Währung aus Config)
-        String currency = plugin.getConfig().getString("currency-material", "DIAMOND");
-        inv.setItem(19, named(icon(Material.REDSTONE, "-1 Preis"), ChatColor.RED + "Preis -1"));
-        inv.setItem(20, priceItem(s.price, currency));
-        inv.setItem(21, named(icon(Material.EMERALD, "+1 Preis"), ChatColor.GREEN + "Preis +1"));
+            // Deko
+            fill(GuiItems.filler(Material.GRAY_STAINED_GLASS_PANE));
 
-        // Aktionen
-        inv.setItem(24, named(icon(Material.LIME_WOOL, "§a§lErstellen"), ChatColor.GREEN + "" + ChatColor.BOLD + "Erstellen"));
-        inv.setItem(25, named(icon(Material.RED_WOOL, "§cAbbrechen"), ChatColor.RED + "Abbrechen"));
+            p.openInventory(getInventory());
+        }
 
-        p.openInventory(inv);
-    }
+        private void setBundle(int value) {
+            bundle = Math.max(1, Math.min(3456, value)); // 54*64 Hardcap
+            set(11, bundleItem(bundle));
+            renderMarket();
+        }
 
-    private static ItemStack icon(Material m, String name) {
-        ItemStack it = new ItemStack(m);
-        ItemMeta im = it.getItemMeta();
-        im.setDisplayName(name);
-        it.setItemMeta(im);
-        return it;
-    }
+        private void renderMarket() {
+            PriceHistory market = plugin.market();
+            int suggested = market.suggestedPrice(template.getType(), bundle);
+            if (suggested <= 0) {
+                set(22, GuiItems.button(Material.PAPER, GuiItems.text("Marktpreis", NamedTextColor.GRAY),
+                        GuiItems.text("Noch keine Verkäufe erfasst", NamedTextColor.DARK_GRAY)));
+                return;
+            }
+            PriceStats day = market.stats(template.getType(), PriceWindow.DAY);
+            PriceStats week = market.stats(template.getType(), PriceWindow.WEEK);
+            set(22, GuiItems.item(Material.PAPER,
+                    GuiItems.text("Marktpreis: ", NamedTextColor.GOLD).append(Component.text(suggested + " " + currency, NamedTextColor.WHITE)),
+                    GuiItems.text("pro Bundle (" + bundle + "x)", NamedTextColor.GRAY),
+                    GuiItems.label("Median 24h", formatUnit(day.median())).append(Component.text(" / Stück", NamedTextColor.GRAY)),
+                    GuiItems.label("VWAP 7d", formatUnit(week.vwap())).append(Component.text(" / Stück", NamedTextColor.GRAY)),
+                    GuiItems.label("Volumen 1h/24h/7d",
+                            market.stats(template.getType(), PriceWindow.HOUR).volume() + "/" + day.volume() + "/" + week.volume()),
+                    Component.empty(),
+                    GuiItems.text("» Klicke, um den Preis zu übernehmen «", NamedTextColor.DARK_GRAY)), (pl, e) -> setPrice(suggested));
+        }
 
-    private static ItemStack named(ItemStack it, String name) {
-        ItemMeta im = it.getItemMeta();
-        im.setDisplayName(name);
-        it.setItemMeta(im);
-        return it;
-    }
+        private void setPrice(int value) {
+            price = Math.max(1, Math.min(64000, value));
+            set(20, priceItem(price, currency));
+        }
 
-    private static ItemStack bundleItem(int bundle) {
-        ItemStack it = new ItemStack(Material.PAPER);
-        ItemMeta im = it.getItemMeta();
-        im.setDisplayName(ChatColor.YELLOW + "Bundle: " + ChatColor.WHITE + bundle);
-        im.setLore(Collections.singletonList(ChatColor.GRAY + "Menge pro Kauf"));
-        it.setItemMeta(im);
-        return it;
-    }
+        private void confirm(Player p) {
+            Block target = blockKey.toLocation().getBlock();
+            Optional<org.bukkit.inventory.Inventory> invOpt = ShopManager.getContainerInventory(target);
+            if (!invOpt.isPresent()) { p.sendMessage("§cKein Behälter gefunden."); p.closeInventory(); return; }
+            if (shops.isShop(target)) { p.sendMessage("§cHier existiert bereits ein Shop."); p.closeInventory(); return; }
 
-    private static ItemStack priceItem(int price, String currency) {
-        ItemStack it = new ItemStack(Material.DIAMOND);
-        ItemMeta im = it.getItemMeta();
-        im.setDisplayName(ChatColor.AQUA + "Preis: " + ChatColor.WHITE + price + " " + currency);
-        im.setLore(Collections.singletonList(ChatColor.GRAY + "Preis pro Bundle"));
-        it.setItemMeta(im);
-        return it;
+            shops.createShop(p.getUniqueId(), target, template, bundle, price);
+            p.sendMessage("§aShop erstellt: §f" + bundle + "x " + GuiItems.plainName(template) + " §7für §b" + price);
+            p.closeInventory();
+        }
     }
 
-    private static void fill(Inventory inv, ItemStack it) {
-        for (int i = 0; i < inv.getSize(); i++) if (inv.getItem(i) == null) inv.setItem(i, it);
+    /** Öffnet das Create-GUI, wenn im Ziel-Container ein Item als Template vorhanden ist. */
+    public void open(Player p, Block target, ItemStack template) {
+        ItemStack single = template.clone();
+        single.setAmount(1);
+        new Holder(p.getUniqueId(), target, single).open(p);
     }
 
-    @EventHandler
-    public void onClick(InventoryClickEvent e) {
-        if (!(e.getInventory().getHolder() instanceof Holder)) return;
-        e.setCancelled(true);
-        if (e.getRawSlot() >= e.getInventory().getSize()) return;
-
-        Holder holder = (Holder) e.getInventory().getHolder();
-        Session s = holder.session;
-        HumanEntity he = e.getWhoClicked();
-        if (!(he instanceof Player)) return;
-        Player p = (Player) he;
-        if (!p.getUniqueId().equals(s.player)) return;
-
-        ItemStack clicked = e.getCurrentItem();
-        if (clicked == null || clicked.getType().isAir()) return;
-
-        String currency = plugin.getConfig().getString("currency-material", "DIAMOND");
-
-        switch (clicked.getType()) {
-            case REDSTONE: {
-                if (clicked != null && clicked.getType() != Material.AIR) {
-                    ItemMeta meta = clicked.getItemMeta();
-                    if (meta == null || !meta.hasDisplayName()) return;
-
-                    String name = ChatColor.stripColor(meta.getDisplayName());
-                    if (name.contains("Bundle")) {
-                        s.bundle = Math.max(1, s.bundle - 1);
-                        e.getInventory().setItem(11, bundleItem(s.bundle));
-                    } else if (name.contains("Preis")) {
-                        s.price = Math.max(1, s.price - 1);
-                        e.getInventory().setItem(20, priceItem(s.price, currency));
-                    }
-                }
-                break;
-            }
-            case EMERALD: {
-                String name = ChatColor.stripColor(clicked.getItemMeta().getDisplayName());
-                if (name.contains("Bundle")) s.bundle = Math.min(3456, s.bundle + 1); // 54*64 Hardcap
-                if (name.contains("Preis")) s.price = Math.min(64000, s.price + 1);
-                e.getInventory().setItem(11, bundleItem(s.bundle));
-                e.getInventory().setItem(20, priceItem(s.price, currency));
-                break;
-            }
-            case LIME_WOOL: {
-                // Erstellen
-                Block target = s.blockKey.toLocation().getBlock();
-                Optional<org.bukkit.inventory.Inventory> invOpt = ShopManager.getContainerInventory(target);
-                if (!invOpt.isPresent()) { p.sendMessage("§cKein Behälter gefunden."); p.closeInventory(); return; }
-                if (plugin.shops().isShop(target)) { p.sendMessage("§cHier existiert bereits ein Shop."); p.closeInventory(); return; }
-
-                plugin.shops().createShop(p.getUniqueId(), target, s.template, s.bundle, s.price);
-                p.sendMessage("§aShop erstellt: §f" + s.bundle + "x " + prettyItem(s.template) + " §7für §b" + s.price);
-                p.closeInventory();
-                break;
-            }
-            case RED_WOOL:
-                p.closeInventory();
-                break;
-            default:
-                break;
-        }
+    private static String formatUnit(double unit) {
+        if (unit <= 0) return "-";
+        return unit >= 10 ? String.valueOf(Math.round(unit)) : String.format(Locale.ROOT, "%.2f", unit);
     }
 
-    private static String prettyItem(ItemStack is) {
-        if (is == null) return "Unbekannt";
-        if (is.getItemMeta() != null && is.getItemMeta().hasDisplayName()) return is.getItemMeta().getDisplayName();
-        String n = is.getType().name().toLowerCase(Locale.ROOT).replace('_',' ');
-        return Character.toUpperCase(n.charAt(0)) + n.substring(1);
+    private static ItemStack bundleItem(int bundle) {
+        return GuiItems.item(Material.PAPER,
+                GuiItems.text("Bundle: ", NamedTextColor.YELLOW).append(Component.text(bundle, NamedTextColor.WHITE)),
+                GuiItems.text("Menge pro Kauf", NamedTextColor.GRAY));
     }
 
-    // 🔧 FEHLENDE METHODE HINZUGEFÜGT:
-    private static ItemStack glass(Material m, String name) {
-        ItemStack it = new ItemStack(m);
-        ItemMeta im = it.getItemMeta();
-        im.setDisplayName(name);
-        it.setItemMeta(im);
-        return it;
+    private static ItemStack priceItem(int price, String currency) {
+        return GuiItems.item(Material.DIAMOND,
+                GuiItems.text("Preis: ", NamedTextColor.AQUA).append(Component.text(price + " " + currency, NamedTextColor.WHITE)),
+                GuiItems.text("Preis pro Bundle", NamedTextColor.GRAY));
     }
 }
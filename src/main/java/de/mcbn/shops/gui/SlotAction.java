@@ -0,0 +1,13 @@
+package de.mcbn.shops.gui;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+/**
+ * Aktion, die an einen Slot eines {@link GuiHolder} gebunden ist.
+ * Der Zustand steckt im Holder bzw. in der Closure – nicht in der Lore.
+ */
+@FunctionalInterface
+public interface SlotAction {
+    void onClick(Player player, InventoryClickEvent event);
+}
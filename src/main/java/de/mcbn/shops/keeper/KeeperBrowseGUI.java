@@ -1,27 +1,57 @@
 package de.mcbn.shops.keeper;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.gui.GuiHolder;
+import de.mcbn.shops.gui.GuiItems;
 import de.mcbn.shops.shop.Shop;
 import de.mcbn.shops.shop.ShopManager;
+import de.mcbn.shops.shop.StockCache;
 import de.mcbn.shops.util.BlockPosKey;
-import de.mcbn.shops.util.InventoryUtils;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
-public class KeeperBrowseGUI implements Listener {
+/**
+ * Schaufenster eines Shopkeepers: alle verknüpften Shops seitenweise, mit Suche und Sortierung.
+ * <p>
+ * Gefiltert und sortiert wird nur über Shop-Daten und den zuletzt bekannten Bestand. Icons entstehen
+ * ausschließlich für die sichtbare Seite und kommen aus dem {@link ShopIconCache} – ein Keeper mit
+ * hunderten Shops kostet beim Öffnen also nur eine Seite Icon-Kopien. Gebaut werden die Icons über den
+ * {@link de.mcbn.shops.gui.PageBuilder} im Hintergrund.
+ */
+public class KeeperBrowseGUI {
+
+    static final int PAGE_SIZE = 45;
+    private static final int SLOT_PREV = 45;
+    private static final int SLOT_SORT = 47;
+    private static final int SLOT_INFO = 49;
+    private static final int SLOT_SEARCH = 51;
+    private static final int SLOT_NEXT = 53;
+
+    public enum SortMode {
+        PRICE("Preis"),
+        STOCK("Vorrat"),
+        NAME("Name");
+
+        private final String label;
+
+        SortMode(String label) { this.label = label; }
+
+        public String label() { return label; }
+
+        public SortMode next() {
+            SortMode[] all = values();
+            return all[(ordinal() + 1) % all.length];
+        }
+    }
 
     private final Main plugin;
     private final KeeperManager keeperManager;
@@ -33,112 +63,220 @@ public class KeeperBrowseGUI implements Listener {
         this.shops = shops;
     }
 
+    /** Schaufenster eines Keepers; die verknüpften Shops werden bei jedem Seitenwechsel neu aufgelöst. */
+    public static void open(Player p, ShopKeeper k) {
+        BrowseHolder holder = new BrowseHolder(p.getUniqueId(), k.uuid(), null);
+        if (holder.shops().isEmpty()) {
+            p.sendMessage(Main.get().messages().prefixed("shop-not-found"));
+            return;
+        }
+        holder.open(p);
+    }
+
+    /** Schaufenster über eine feste Shop-Liste. */
     public static void open(Player p, List<Shop> list) {
-        int size = Math.min(54, Math.max(9, ((list.size() + 8) / 9) * 9));
-        Inventory inv = Bukkit.createInventory(new BrowseHolder(), size, "§8§l⚑ §a§lShop-Übersicht §8§l⚑");
-        int slot = 0;
-
-        for (Shop s : list) {
-            ItemStack it = s.template().clone();
-            ItemMeta meta = it.getItemMeta();
-
-            // Bestand berechnen
-            Optional<org.bukkit.inventory.Inventory> invOpt = ShopManager.getContainerInventory(s.pos().toLocation().getBlock());
-            int stockBundles = 0;
-            if (invOpt.isPresent()) {
-                int stockItems = InventoryUtils.countSimilar(invOpt.get(), s.template());
-                stockBundles = stockItems / s.bundleAmount();
-            }
+        if (list.isEmpty()) {
+            p.sendMessage(Main.get().messages().prefixed("shop-not-found"));
+            return;
+        }
+        new BrowseHolder(p.getUniqueId(), null, new ArrayList<>(list)).open(p);
+    }
+
+    /** Zustand einer geöffneten Schaufenster-Ansicht (pro Spieler). */
+    public static class BrowseHolder extends GuiHolder {
+        private final UUID keeperId;
+        private final List<Shop> fixed;
+        private SortMode sort = SortMode.PRICE;
+        private String query;
+        private int page;
+
+        BrowseHolder(UUID player, UUID keeperId, List<Shop> fixed) {
+            super(player);
+            this.keeperId = keeperId;
+            this.fixed = fixed;
+        }
 
-            // Item-Name mit Farbe
-            String itemName = meta.hasDisplayName() ? meta.getDisplayName() :
-                             ChatColor.AQUA + formatItemName(s.template().getType().name());
-            meta.setDisplayName(itemName);
-
-            // Lore mit visueller Trennung
-            List<String> lore = new ArrayList<>();
-            lore.add("");
-            lore.add(ChatColor.GRAY + "▸ Bundle-Größe: " + ChatColor.WHITE + s.bundleAmount() + " Stück");
-            lore.add(ChatColor.GRAY + "▸ Preis: " + ChatColor.GOLD + s.price() + "x " + ChatColor.YELLOW + formatItemName(s.currency().name()));
-            lore.add("");
-
-            // Bestand mit Farb-Indikator
-            String stockColor = getStockColor(stockBundles);
-            String stockIcon = getStockIcon(stockBundles);
-            lore.add(ChatColor.GRAY + "▸ Vorrat: " + stockColor + stockIcon + " " + stockBundles + " Bundle" + (stockBundles != 1 ? "s" : ""));
-            lore.add("");
-            lore.add(ChatColor.DARK_GRAY + "» Klicke zum Kaufen «");
-            lore.add(ChatColor.DARK_GRAY + "" + ChatColor.ITALIC + s.pos().toString());
-
-            meta.setLore(lore);
-
-            // Glühen für gut gefüllte Shops
-            if (stockBundles >= 10) {
-                meta.addEnchant(org.bukkit.enchantments.Enchantment.LURE, 1, true);
-                meta.addItemFlags(org.bukkit.inventory.ItemFlag.HIDE_ENCHANTS);
+        /** Aktuelle Shops (ohne Chunk-Load aufgelöst). */
+        List<Shop> shops() {
+            if (fixed != null) return fixed;
+            ShopKeeper k = Main.get().keepers().get(keeperId);
+            if (k == null) return Collections.emptyList();
+            List<Shop> list = new ArrayList<>(k.linked().size());
+            for (BlockPosKey pos : k.linked()) {
+                Shop s = Main.get().shops().get(pos).orElse(null);
+                if (s != null) list.add(s);
             }
+            return list;
+        }
+
+        /**
+         * Öffnet die aktuelle Seite. Bestand und Ladezustand der sichtbaren Shops werden auf dem
+         * Hauptthread festgehalten, die Icons im Hintergrund gebaut.
+         */
+        void open(Player p) {
+            List<Shop> view = view();
+            int totalPages = Math.max(1, (view.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+            page = Math.max(0, Math.min(page, totalPages - 1));
 
-            it.setItemMeta(meta);
-            inv.setItem(slot++, it);
-            if (slot >= size) break;
+            RemoteShopAccess remote = Main.get().keepers().remote();
+            ShopIconCache icons = Main.get().keepers().icons();
+            StockCache stock = Main.get().shops().stock();
+
+            int from = page * PAGE_SIZE;
+            int count = Math.max(0, Math.min(PAGE_SIZE, view.size() - from));
+            Shop[] shops = new Shop[count];
+            int[] items = new int[count];
+            boolean[] pending = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                shops[i] = view.get(from + i);
+                // PERFORMANCE FIX: Nur geladene Kisten werden sofort gelesen; für entfernte Shops wird
+                // der letzte bekannte Bestand als "lädt…" angezeigt und nach dem async Chunk-Load ersetzt
+                pending[i] = !remote.isLoaded(shops[i]);
+                items[i] = stock.stock(shops[i]);
+            }
+            int shown = page, total = view.size();
+            Main.get().pages().build(p, () -> {
+                ItemStack[] rendered = new ItemStack[count];
+                for (int i = 0; i < count; i++) rendered[i] = icons.icon(shops[i], items[i], pending[i]);
+                return rendered;
+            }, (pl, rendered) -> show(pl, shown, totalPages, total, shops, pending, rendered));
         }
 
-        p.openInventory(inv);
-    }
+        private void show(Player p, int shown, int totalPages, int total, Shop[] shops, boolean[] pending, ItemStack[] rendered) {
+            page = shown;
+            Inventory inv = create(54, "§8§l⚑ §a§lShop-Übersicht §8(" + (page + 1) + "/" + totalPages + ")");
+            RemoteShopAccess remote = Main.get().keepers().remote();
+            ShopIconCache icons = Main.get().keepers().icons();
+            StockCache stock = Main.get().shops().stock();
+
+            for (int i = 0; i < shops.length; i++) {
+                Shop s = shops[i];
+                int slot = i;
+                set(slot, rendered[i], (pl, e) -> click(pl, s, e.isRightClick()));
+                if (pending[i]) {
+                    remote.withBlock(s, b -> {
+                        if (getInventory() != inv || inv.getViewers().isEmpty()) return; // Seite gewechselt/geschlossen
+                        update(slot, icons.icon(s, stock.stock(s), false));
+                    }, () -> { });
+                }
+                // Nur dieser Slot wird neu gesetzt, wenn sich der Bestand des Shops ändert
+                Main.get().views().subscribe(this, s.pos(), () -> {
+                    StockCache.Entry known = stock.get(s.pos());
+                    if (known != null) update(slot, icons.icon(s, known.items(), false));
+                });
+            }
+
+            if (page > 0) {
+                set(SLOT_PREV, GuiItems.button(Material.ARROW, GuiItems.text("« Vorherige Seite", NamedTextColor.YELLOW)), (pl, e) -> {
+                    page--;
+                    open(pl);
+                });
+            }
+            if (page + 1 < totalPages) {
+                set(SLOT_NEXT, GuiItems.button(Material.ARROW, GuiItems.text("Nächste Seite »", NamedTextColor.YELLOW)), (pl, e) -> {
+                    page++;
+                    open(pl);
+                });
+            }
+            set(SLOT_SORT, GuiItems.item(Material.HOPPER,
+                    GuiItems.text("Sortierung: ", NamedTextColor.AQUA).append(Component.text(sort.label(), NamedTextColor.WHITE))), (pl, e) -> {
+                sort = sort.next();
+                page = 0;
+                open(pl);
+            });
+            set(SLOT_INFO, GuiItems.item(Material.PAPER, GuiItems.text("Seite ", NamedTextColor.GRAY)
+                    .append(Component.text(page + 1, NamedTextColor.WHITE))
+                    .append(Component.text("/", NamedTextColor.GRAY))
+                    .append(Component.text(totalPages, NamedTextColor.WHITE))
+                    .append(Component.text(" · " + total + " Shops", NamedTextColor.DARK_GRAY))));
+            set(SLOT_SEARCH, GuiItems.item(Material.OAK_SIGN, query == null
+                    ? GuiItems.text("Suche: alle ", NamedTextColor.GRAY)
+                            .append(Component.text("(Klick = suchen)", NamedTextColor.DARK_GRAY))
+                    : GuiItems.text("Suche: ", NamedTextColor.AQUA)
+                            .append(Component.text(query, NamedTextColor.WHITE))
+                            .append(Component.text(" (Rechtsklick = aufheben)", NamedTextColor.DARK_GRAY))), (pl, e) -> {
+                if (query != null && e.isRightClick()) {
+                    query = null;
+                    page = 0;
+                    open(pl);
+                    return;
+                }
+                pl.closeInventory();
+                Main.get().prompts().ask(pl, "§7Suchbegriff eingeben (§e-§7 = alle anzeigen):", (who, input) -> {
+                    String q = input.trim().toLowerCase(Locale.ROOT);
+                    query = q.isEmpty() || q.equals("-") ? null : q;
+                    page = 0;
+                    open(who);
+                });
+            });
+            p.openInventory(inv);
+        }
 
-    private static String formatItemName(String name) {
-        String[] parts = name.toLowerCase().replace('_', ' ').split(" ");
-        StringBuilder result = new StringBuilder();
-        for (String part : parts) {
-            if (part.length() > 0) {
-                result.append(Character.toUpperCase(part.charAt(0)))
-                      .append(part.substring(1))
-                      .append(" ");
+        /** Gefilterte und sortierte Ansicht – ohne Icons und ohne Kisten zu lesen. */
+        private List<Shop> view() {
+            List<Shop> view = new ArrayList<>();
+            for (Shop s : shops()) if (query == null || matches(s, query)) view.add(s);
+            StockCache stock = Main.get().shops().stock();
+            Comparator<Shop> cmp;
+            switch (sort) {
+                case STOCK:
+                    cmp = Comparator.comparingInt((Shop s) -> knownBundles(stock, s)).reversed();
+                    break;
+                case NAME:
+                    cmp = Comparator.comparing((Shop s) -> s.template().getType().name());
+                    break;
+                default:
+                    cmp = Comparator.comparingInt(KeeperBrowseGUI::unitPrice);
             }
+            view.sort(cmp.thenComparingInt(Shop::price));
+            return view;
         }
-        return result.toString().trim();
     }
 
-    private static String getStockColor(int bundles) {
-        if (bundles == 0) return ChatColor.RED + "" + ChatColor.BOLD;
-        if (bundles < 3) return ChatColor.RED + "";
-        if (bundles < 10) return ChatColor.YELLOW + "";
-        if (bundles < 20) return ChatColor.GREEN + "";
-        return ChatColor.DARK_GREEN + "" + ChatColor.BOLD;
+    private static boolean matches(Shop s, String query) {
+        ItemStack t = s.template();
+        if (t.getType().name().toLowerCase(Locale.ROOT).replace('_', ' ').contains(query)) return true;
+        if (!t.hasItemMeta()) return false;
+        ItemMeta meta = t.getItemMeta();
+        return meta.hasDisplayName() && ChatColor.stripColor(meta.getDisplayName()).toLowerCase(Locale.ROOT).contains(query);
     }
 
-    private static String getStockIcon(int bundles) {
-        if (bundles == 0) return "✗";
-        if (bundles < 3) return "▁";
-        if (bundles < 10) return "▄";
-        if (bundles < 20) return "▆";
-        return "█";
+    private static int knownBundles(StockCache stock, Shop s) {
+        StockCache.Entry e = stock.get(s.pos());
+        return e == null ? -1 : e.items() / s.bundleAmount();
     }
 
-    @EventHandler
-    public void onClick(InventoryClickEvent event) {
-        if (!(event.getInventory().getHolder() instanceof BrowseHolder)) return;
-        event.setCancelled(true);
-        if (event.getRawSlot() >= event.getInventory().getSize()) return;
-        Player p = (Player) event.getWhoClicked();
-        ItemStack clicked = event.getCurrentItem();
-        if (clicked == null || clicked.getType() == Material.AIR) return;
-        if (!clicked.hasItemMeta() || clicked.getItemMeta().getLore() == null) return;
-
-        String posStr = null;
-        for (String s : clicked.getItemMeta().getLore()) {
-            String raw = ChatColor.stripColor(s);
-            if (raw != null && raw.startsWith("Shop: ")) { posStr = raw.substring(6).trim(); break; }
-        }
-        if (posStr == null) return;
-        BlockPosKey key = BlockPosKey.fromString(posStr);
-        Optional<Shop> shopOpt = shops.get(key.toLocation().getBlock());
-        if (!shopOpt.isPresent()) { p.sendMessage(Main.get().messages().prefixed("shop-not-found")); return; }
+    private static int unitPrice(Shop s) {
+        return (int) Math.ceil(s.price() / (double) s.bundleAmount());
+    }
 
-        KeeperBuyGUI.open(p, shopOpt.get());
+    /** Linksklick kauft ein Bundle, Rechtsklick öffnet die Mengenauswahl. */
+    private static void click(Player p, Shop s, boolean right) {
+        // Shop kann inzwischen entfernt worden sein – daher neu nachschlagen
+        Optional<Shop> shopOpt = Main.get().shops().get(s.pos());
+        if (!shopOpt.isPresent()) { p.sendMessage(Main.get().messages().prefixed("shop-not-found")); return; }
+        if (right) KeeperBuyGUI.open(p, shopOpt.get());
+        else buyOne(p, shopOpt.get());
     }
 
-    public static class BrowseHolder implements InventoryHolder {
-        @Override public Inventory getInventory() { return null; }
+    private static void buyOne(Player p, Shop s) {
+        Main plugin = Main.get();
+        RemoteShopAccess remote = plugin.keepers().remote();
+        if (!remote.isLoaded(s)) p.sendMessage("§7Shop wird geladen…");
+        // PERFORMANCE FIX: Entfernte Kiste asynchron laden, Kauf danach auf dem Hauptthread
+        UUID buyer = p.getUniqueId();
+        remote.withBlock(s, block -> {
+            Player pl = Bukkit.getPlayer(buyer);
+            if (pl == null) return;
+            if (plugin.shops().get(s.pos()).orElse(null) != s) { // während des Ladens entfernt
+                pl.sendMessage(plugin.messages().prefixed("shop-not-found"));
+                return;
+            }
+            plugin.purchases().performPurchase(pl, block, s, 1);
+            remote.traded(s);
+        }, () -> {
+            Player pl = Bukkit.getPlayer(buyer);
+            if (pl != null) pl.sendMessage(plugin.messages().prefixed("shop-not-found"));
+        });
     }
 }
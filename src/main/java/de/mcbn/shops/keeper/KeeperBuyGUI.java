@@ -1,28 +1,22 @@
 package de.mcbn.shops.keeper;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.gui.GuiHolder;
+import de.mcbn.shops.gui.GuiItems;
 import de.mcbn.shops.shop.Shop;
-import de.mcbn.shops.shop.ShopCommands;
 import de.mcbn.shops.shop.ShopManager;
-import de.mcbn.shops.util.InventoryUtils;
+import de.mcbn.shops.shop.StockCache;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
+import java.util.UUID;
 
-public class KeeperBuyGUI implements Listener {
+public class KeeperBuyGUI {
 
     private final Main plugin;
     private final ShopManager shops;
@@ -35,98 +29,107 @@ public class KeeperBuyGUI implements Listener {
     }
 
     public static void open(Player p, Shop s) {
-        Inventory inv = Bukkit.createInventory(new BuyHolder(s), 27, ChatColor.DARK_GREEN + "Kaufmenü");
-        ItemStack display = s.template().clone();
-        inv.setItem(10, display);
-
-        ItemStack info = new ItemStack(Material.PAPER);
-        ItemMeta meta = info.getItemMeta();
-        int stockBundles = 0;
-        java.util.Optional<org.bukkit.inventory.Inventory> invOpt = ShopManager.getContainerInventory(s.pos().toLocation().getBlock());
-        if (invOpt.isPresent()) {
-            int stockItems = InventoryUtils.countSimilar(invOpt.get(), s.template());
-            stockBundles = stockItems / s.bundleAmount();
-        }
-        meta.setDisplayName(ChatColor.YELLOW + "Info");
-        meta.setLore(Arrays.asList(
-                ChatColor.GRAY + "Bundle: " + ChatColor.WHITE + s.bundleAmount(),
-                ChatColor.GRAY + "Preis: " + ChatColor.AQUA + s.price() + "x " + s.currency().name(),
-                ChatColor.GRAY + "Bestand: " + ChatColor.WHITE + stockBundles + " Bundles",
-                ChatColor.DARK_GRAY + "Auswahl: 0 Bundles"
-        ));
-        info.setItemMeta(meta);
-        inv.setItem(12, info);
-
-        inv.setItem(19, button(Material.LIME_CONCRETE, "+1"));
-        inv.setItem(20, button(Material.LIME_CONCRETE, "+5"));
-        inv.setItem(21, button(Material.LIME_CONCRETE, "+10"));
-        inv.setItem(22, button(Material.YELLOW_CONCRETE, "Max"));
-        inv.setItem(25, button(Material.EMERALD_BLOCK, "Bestätigen"));
-        inv.setItem(26, button(Material.BARRIER, "Abbrechen"));
-
-        p.openInventory(inv);
+        new BuyHolder(p.getUniqueId(), s).open(p);
     }
 
     private static ItemStack button(Material m, String name) {
-        ItemStack is = new ItemStack(m);
-        ItemMeta meta = is.getItemMeta();
-        meta.setDisplayName(ChatColor.GREEN + name);
-        is.setItemMeta(meta);
-        return is;
+        return GuiItems.button(m, GuiItems.text(name, NamedTextColor.GREEN));
+    }
+
+    /** Bestand in Bundles; liest die Kiste nur bei geladenem Chunk, sonst den letzten bekannten Wert. */
+    private static int stockBundles(Shop s) {
+        int items = Main.get().shops().stock().stock(s);
+        return items < 0 ? 0 : items / s.bundleAmount();
     }
 
-    @EventHandler
-    public void onClick(InventoryClickEvent event) {
-        if (!(event.getInventory().getHolder() instanceof BuyHolder)) return;
-        event.setCancelled(true);
-        Player p = (Player) event.getWhoClicked();
-        BuyHolder holder = (BuyHolder) event.getInventory().getHolder();
-        Shop s = holder.shop;
-        ItemStack info = event.getInventory().getItem(12);
-        if (info == null || !info.hasItemMeta()) return;
-        ItemMeta im = info.getItemMeta();
-        List<String> lore = im.getLore();
-        if (lore == null || lore.size() < 4) return;
-
-        Optional<org.bukkit.inventory.Inventory> invOpt = ShopManager.getContainerInventory(s.pos().toLocation().getBlock());
-        int stockBundles = 0;
-        if (invOpt.isPresent()) {
-            int stockItems = InventoryUtils.countSimilar(invOpt.get(), s.template());
-            stockBundles = stockItems / s.bundleAmount();
+    /** Sitzung: Auswahl und Bestand werden als Felder gehalten, die Lore zeigt sie nur an. */
+    public static class BuyHolder extends GuiHolder {
+        final Shop shop;
+        private int selected;
+        private int stock;
+        /** Chunk des Shops wird noch asynchron geladen (Bestand vorläufig). */
+        private boolean loading;
+
+        public BuyHolder(UUID player, Shop s) {
+            super(player);
+            this.shop = s;
         }
 
-        String clickedName = event.getCurrentItem() != null && event.getCurrentItem().hasItemMeta() ? ChatColor.stripColor(event.getCurrentItem().getItemMeta().getDisplayName()) : "";
-        int selected = 0;
-        try {
-            String line = ChatColor.stripColor(lore.get(3));
-            selected = Integer.parseInt(line.replace("Auswahl:", "").replace("Bundles", "").trim());
-        } catch (Exception ignored) {}
-
-        if (clickedName.equalsIgnoreCase("+1")) selected += 1;
-        else if (clickedName.equalsIgnoreCase("+5")) selected += 5;
-        else if (clickedName.equalsIgnoreCase("+10")) selected += 10;
-        else if (clickedName.equalsIgnoreCase("Max")) selected = stockBundles;
-        else if (clickedName.equalsIgnoreCase("Abbrechen")) { p.closeInventory(); return; }
-        else if (clickedName.equalsIgnoreCase("Bestätigen")) {
-            if (selected <= 0) { p.sendMessage(Main.get().messages().prefixed("prompt-buy-qty")); return; }
-            Block block = s.pos().toLocation().getBlock();
-            new ShopCommands(Main.get(), Main.get().shops(), Main.get().prompts()).performPurchase(p, block, s, selected);
-            p.closeInventory();
-            return;
+        void open(Player p) {
+            create(27, ChatColor.DARK_GREEN + "Kaufmenü");
+            set(10, shop.template().clone());
+            RemoteShopAccess remote = Main.get().keepers().remote();
+            stock = stockBundles(shop);
+            loading = !remote.isLoaded(shop);
+            renderInfo();
+            if (loading) {
+                // PERFORMANCE FIX: Entfernte Kiste asynchron laden statt getBlock() auf dem Hauptthread
+                remote.withBlock(shop, b -> refresh(), this::refresh);
+            }
+            // Käufe anderer Spieler und Nachfüllen kommen über den StockCache
+            Main.get().views().subscribe(this, shop.pos(), this::onStockChanged);
+
+            set(19, button(Material.LIME_CONCRETE, "+1"), (pl, e) -> select(selected + 1));
+            set(20, button(Material.LIME_CONCRETE, "+5"), (pl, e) -> select(selected + 5));
+            set(21, button(Material.LIME_CONCRETE, "+10"), (pl, e) -> select(selected + 10));
+            set(22, button(Material.YELLOW_CONCRETE, "Max"), (pl, e) -> select(Integer.MAX_VALUE));
+            set(25, button(Material.EMERALD_BLOCK, "Bestätigen"), (pl, e) -> confirm(pl));
+            set(26, button(Material.BARRIER, "Abbrechen"), (pl, e) -> pl.closeInventory());
+
+            p.openInventory(getInventory());
         }
 
-        if (selected > stockBundles) selected = stockBundles;
-        if (selected < 0) selected = 0;
+        private void refresh() {
+            loading = false;
+            stock = stockBundles(shop);
+            selected = Math.min(selected, stock);
+            renderInfo();
+        }
 
-        lore.set(3, ChatColor.DARK_GRAY + "Auswahl: " + selected + " Bundles");
-        im.setLore(lore);
-        info.setItemMeta(im);
-        event.getInventory().setItem(12, info);
-    }
+        private void onStockChanged() {
+            if (loading) return; // refresh() folgt nach dem Laden
+            StockCache.Entry e = Main.get().shops().stock().get(shop.pos());
+            stock = e == null ? 0 : e.items() / shop.bundleAmount();
+            selected = Math.min(selected, stock);
+            renderInfo();
+        }
 
-    public static class BuyHolder implements InventoryHolder {
-        final Shop shop;
-        public BuyHolder(Shop s) { this.shop = s; }
-        @Override public Inventory getInventory() { return null; }
+        private void select(int value) {
+            selected = Math.max(0, Math.min(value, stock));
+            renderInfo();
+        }
+
+        private void confirm(Player p) {
+            if (selected <= 0) { p.sendMessage(Main.get().messages().prefixed("prompt-buy-qty")); return; }
+            if (loading) { p.sendMessage("§7Shop wird noch geladen…"); return; }
+            p.closeInventory();
+            int bundles = selected;
+            UUID buyer = p.getUniqueId();
+            RemoteShopAccess remote = Main.get().keepers().remote();
+            remote.withBlock(shop, block -> {
+                Player pl = Bukkit.getPlayer(buyer);
+                if (pl == null) return;
+                if (Main.get().shops().get(shop.pos()).orElse(null) != shop) { // inzwischen entfernt
+                    pl.sendMessage(Main.get().messages().prefixed("shop-not-found"));
+                    return;
+                }
+                Main.get().purchases().performPurchase(pl, block, shop, bundles);
+                remote.traded(shop);
+            }, () -> {
+                Player pl = Bukkit.getPlayer(buyer);
+                if (pl != null) pl.sendMessage(Main.get().messages().prefixed("shop-not-found"));
+            });
+        }
+
+        private void renderInfo() {
+            Component stockLine = GuiItems.label("Bestand", stock + " Bundles");
+            if (loading) stockLine = stockLine.append(Component.text(" (lädt…)", NamedTextColor.DARK_GRAY));
+            set(12, GuiItems.item(Material.PAPER, GuiItems.text("Info", NamedTextColor.YELLOW),
+                    GuiItems.label("Bundle", shop.bundleAmount()),
+                    GuiItems.text("Preis: ", NamedTextColor.GRAY).append(Component.text(shop.price() + "x ", NamedTextColor.AQUA))
+                            .append(GuiItems.name(shop.currency()).color(NamedTextColor.AQUA)),
+                    stockLine,
+                    GuiItems.text("Auswahl: " + selected + " Bundles", NamedTextColor.DARK_GRAY)));
+        }
     }
 }
@@ -2,8 +2,13 @@ package de.mcbn.shops.keeper;
 
 import de.mcbn.shops.Main;
 import de.mcbn.shops.chat.ChatPromptService;
+import de.mcbn.shops.order.ItemVariant;
 import de.mcbn.shops.order.OrderManager;
+import de.mcbn.shops.order.OrderPlan;
+import de.mcbn.shops.order.OrderPlanner;
 import de.mcbn.shops.order.PurchaseOrder;
+import de.mcbn.shops.order.ShoppingListParser;
+import de.mcbn.shops.order.StandingOrder;
 import de.mcbn.shops.shop.ShopManager;
 import de.mcbn.shops.util.BlockPosKey;
 import org.bukkit.Material;
@@ -45,8 +50,9 @@ public class KeeperCommands implements CommandExecutor, TabCompleter {
             case "tp": return tp(p);
             case "order": return order(p);
             case "hire": return hire(p);
+            case "buyorder": return buyOrder(p, args);
             default:
-                p.sendMessage("/shopkeeper <create|link|unlink|remove|list|tp|order|hire>");
+                p.sendMessage("/shopkeeper <create|link|unlink|remove|list|tp|order|hire|buyorder>");
                 return true;
         }
     }
@@ -94,10 +100,7 @@ public class KeeperCommands implements CommandExecutor, TabCompleter {
     }
 
     private boolean list(Player p) {
-        List<ShopKeeper> myKeepers = new ArrayList<>();
-        for (ShopKeeper k : keeperManager.all()) {
-            if (k.owner().equals(p.getUniqueId())) myKeepers.add(k);
-        }
+        List<ShopKeeper> myKeepers = keeperManager.ownedBy(p.getUniqueId());
 
         if (myKeepers.isEmpty()) {
             p.sendMessage("§8§m                                    ");
@@ -163,13 +166,13 @@ public class KeeperCommands implements CommandExecutor, TabCompleter {
             String in = input.trim().toUpperCase(Locale.ROOT);
             if (in.equals("CANCEL")) { player.sendMessage("§7Abgebrochen."); return; }
             if (in.equals("DONE")) { finishOrder(player, tmp); return; }
-            Material mat = Material.matchMaterial(in);
-            if (mat == null) { player.sendMessage("§cUnbekanntes Material."); askItem(player, tmp); return; }
-            askAmount(player, tmp, mat);
+            ItemVariant item = ItemVariant.parse(in);
+            if (item == null) { player.sendMessage("§cUnbekanntes Material."); askItem(player, tmp); return; }
+            askAmount(player, tmp, item);
         });
     }
 
-    private void askAmount(Player p, PurchaseOrder tmp, Material mat) {
+    private void askAmount(Player p, PurchaseOrder tmp, ItemVariant mat) {
         prompts.ask(p, "§7Menge für §e" + mat.name() + "§7 angeben (Zahl):", (player, input) -> {
             try {
                 int amt = Integer.parseInt(input.trim());
@@ -182,7 +185,7 @@ public class KeeperCommands implements CommandExecutor, TabCompleter {
         });
     }
 
-    private void askMaxPrice(Player p, PurchaseOrder tmp, Material mat, int amt) {
+    private void askMaxPrice(Player p, PurchaseOrder tmp, ItemVariant mat, int amt) {
         prompts.ask(p, "§7Maximalpreis pro Stück (leer = egal):", (player, input) -> {
             int max = 0;
             if (!input.trim().isEmpty()) {
@@ -222,7 +225,10 @@ public class KeeperCommands implements CommandExecutor, TabCompleter {
         ItemStack inHand = p.getInventory().getItemInMainHand();
         PurchaseOrder orderFromBook = null;
         if (inHand != null && (inHand.getType() == org.bukkit.Material.WRITABLE_BOOK || inHand.getType() == org.bukkit.Material.WRITTEN_BOOK)) {
-            orderFromBook = orders.parseFromBook(p.getUniqueId(), inHand);
+            List<ShoppingListParser.Problem> problems = new ArrayList<>();
+            orderFromBook = orders.parseFromBook(p.getUniqueId(), inHand, problems);
+            for (int i = 0; i < problems.size() && i < 5; i++) p.sendMessage("§eÜbersprungen: §7" + problems.get(i));
+            if (problems.size() > 5) p.sendMessage("§7… und " + (problems.size() - 5) + " weitere Zeile(n).");
         }
         // 2) Fallback: vorhandene Order des Spielers
         PurchaseOrder order = orderFromBook != null ? orderFromBook : orders.byOwner(p.getUniqueId()).orElse(null);
@@ -230,22 +236,94 @@ public class KeeperCommands implements CommandExecutor, TabCompleter {
             p.sendMessage("§cKeine gültige Einkaufsliste gefunden. Halte ein Einkaufs-Buch oder nutze §e/shopkeeper order§c.");
             return true;
         }
-        ShopKeeper chosen = lastOwnKeeper(p.getUniqueId());
-        if (chosen == null) { p.sendMessage("§cDu hast keinen Shopkeeper."); return true; }
+        List<ShopKeeper> own = ownKeepers(p.getUniqueId());
+        if (own.isEmpty()) { p.sendMessage("§cDu hast keinen Shopkeeper."); return true; }
+
+        // Probelauf: kompletter Plan aus Bestands-Cache und Preisen, erst nach Bestätigung wird gekauft.
+        // "Weit weg" gilt gemessen am nächsten Keeper des Besitzers, nicht nur am zuletzt erstellten.
+        List<org.bukkit.Location> origins = new ArrayList<>(own.size());
+        for (ShopKeeper k : own) {
+            org.bukkit.World w = org.bukkit.Bukkit.getWorld(k.world());
+            if (w != null) origins.add(new org.bukkit.Location(w, k.x(), k.y(), k.z()));
+        }
+        if (origins.isEmpty()) { p.sendMessage("§cShopkeeper-Welt nicht geladen."); return true; }
+        int distant = Math.max(16, plugin.getConfig().getInt("shopkeepers.instant.distant-blocks", 256));
+        OrderPlan plan = OrderPlanner.plan(order, shops.all(), shops.stock(), origins, distant);
+        if (plan.isEmpty()) {
+            p.sendMessage("§7Keine passenden Shops mit bekanntem Bestand für deine Einkaufsliste gefunden.");
+            return true;
+        }
+        boolean instant = plugin.getConfig().getBoolean("shopkeepers.instant.enabled", true) && plan.crossesUnloaded();
+        // Alle Keeper des Besitzers teilen sich die Reise (Aufteilung nach Region)
+        OrderPlanGUI.open(p, plan, new ShopperFleet(plugin, keeperManager, shops, plan, own), instant);
+        return true;
+    }
+
+    /**
+     * Stehende Kauforders: {@code buyorder <Material> <Menge> <Max/Stk>}, {@code buyorder list},
+     * {@code buyorder cancel <Nr>}. Die Bezahlung wird beim Einstellen als Treuhand einbehalten.
+     */
+    private boolean buyOrder(Player p, String[] args) {
+        List<StandingOrder> mine = orders.book().ofOwner(p.getUniqueId());
+        String sub = args.length > 1 ? args[1].toLowerCase(Locale.ROOT) : "list";
+        if (sub.equals("list")) {
+            if (mine.isEmpty()) { p.sendMessage("§7Keine Kauforders. §e/shopkeeper buyorder <Material> <Menge> <Max/Stk>"); return true; }
+            for (int i = 0; i < mine.size(); i++) {
+                StandingOrder o = mine.get(i);
+                p.sendMessage("§7" + (i + 1) + ". §f" + o.remaining() + "x " + o.material().name()
+                        + " §7max §b" + o.maxPerItem() + "/Stk §8(Treuhand " + o.escrow() + ")");
+            }
+            return true;
+        }
+        if (sub.equals("cancel")) {
+            int idx;
+            try { idx = Integer.parseInt(args.length > 2 ? args[2] : "") - 1; } catch (NumberFormatException e) { idx = -1; }
+            if (idx < 0 || idx >= mine.size()) { p.sendMessage("§c/shopkeeper buyorder cancel <Nr>"); return true; }
+            int refund = orders.book().cancel(mine.get(idx));
+            p.sendMessage("§aKauforder storniert." + (refund > 0 ? " §7" + refund + " gutgeschrieben: §e/auction claim" : ""));
+            return true;
+        }
 
-        new ShopperTask(plugin, keeperManager, shops, order, chosen).start(p);
+        if (args.length < 4) { p.sendMessage("§c/shopkeeper buyorder <Material> <Menge> <Max/Stk> §7| list | cancel <Nr>"); return true; }
+        Material mat = Material.matchMaterial(args[1]);
+        if (mat == null) { p.sendMessage("§cUnbekanntes Material."); return true; }
+        int amount, max;
+        try {
+            amount = Integer.parseInt(args[2]);
+            max = Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            p.sendMessage("§cMenge und Maximalpreis müssen Zahlen sein."); return true;
+        }
+        if (amount <= 0 || max <= 0) { p.sendMessage("§cMenge und Maximalpreis müssen positiv sein."); return true; }
+        int limit = plugin.getConfig().getInt("shopkeepers.buy-orders.max-per-player", 5);
+        if (mine.size() >= limit) { p.sendMessage("§cDu hast bereits " + limit + " Kauforders."); return true; }
+
+        long escrowLong = (long) amount * max;
+        Material currency = plugin.auctions().getCurrency();
+        int balance = 0;
+        for (ItemStack is : p.getInventory().getContents()) if (is != null && is.getType() == currency) balance += is.getAmount();
+        if (escrowLong > balance) { p.sendMessage("§cDu brauchst §b" + escrowLong + "x " + currency.name() + " §cals Treuhand."); return true; }
+        int escrow = (int) escrowLong;
+        if (de.mcbn.shops.util.InventoryUtils.removeMaterial(p.getInventory(), currency, escrow) != escrow) {
+            p.sendMessage("§cTreuhand konnte nicht einbehalten werden."); return true;
+        }
+        StandingOrder o = new StandingOrder(UUID.randomUUID(), p.getUniqueId(), mat, amount, max, escrow, System.currentTimeMillis());
+        p.sendMessage("§aKauforder eingestellt: §f" + amount + "x " + mat.name() + " §7max §b" + max + "/Stk §7(Treuhand " + escrow + ")");
+        orders.book().place(o);
         return true;
     }
 
+    private List<ShopKeeper> ownKeepers(UUID owner) {
+        return keeperManager.ownedBy(owner);
+    }
+
     private ShopKeeper lastOwnKeeper(UUID owner) {
-        ShopKeeper chosen = null;
-        for (ShopKeeper k : keeperManager.all()) if (k.owner().equals(owner)) chosen = k;
-        return chosen;
+        return keeperManager.lastOwnedBy(owner);
     }
 
     @Override
     public java.util.List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
-        if (args.length == 1) return java.util.Arrays.asList("create","link","unlink","remove","list","tp","order","hire");
+        if (args.length == 1) return java.util.Arrays.asList("create","link","unlink","remove","list","tp","order","hire","buyorder");
         return new java.util.ArrayList<>();
     }
 }
@@ -1,11 +1,14 @@
 package de.mcbn.shops.keeper;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.api.event.ShopRemovedEvent;
+import de.mcbn.shops.api.event.ShopsRemovedEvent;
+import de.mcbn.shops.gui.GuiHolder;
+import de.mcbn.shops.gui.GuiItems;
 import de.mcbn.shops.shop.Shop;
-import de.mcbn.shops.shop.ShopCommands;
 import de.mcbn.shops.shop.ShopManager;
 import de.mcbn.shops.util.BlockPosKey;
-import org.bukkit.Bukkit;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Entity;
@@ -13,14 +16,15 @@ import org.bukkit.entity.Player;
 import org.bukkit.entity.Villager;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
-import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
 import org.bukkit.inventory.*;
-import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Öffnet beim Rechtsklick auf einen Shopkeeper das Kauf- oder Verwaltungs-GUI.
@@ -41,7 +45,7 @@ public class KeeperListener implements Listener {
     public void onInteract(PlayerInteractEntityEvent event) {
         Entity e = event.getRightClicked();
         if (!(e instanceof Villager)) return;
-        ShopKeeper k = manager.get(e.getUniqueId());
+        ShopKeeper k = manager.byEntity(e.getUniqueId());
         if (k == null) return;
 
         event.setCancelled(true);
@@ -55,165 +59,86 @@ public class KeeperListener implements Listener {
         }
     }
 
-    /* === KAUF-GUI (für normale Spieler) === */
-    private void openKeeperShopGUI(Player p, ShopKeeper k) {
-        List<Shop> list = new ArrayList<>();
-        for (BlockPosKey pos : k.linked()) {
-            Shop s = shops.get(pos.toLocation().getBlock()).orElse(null);
-            if (s != null) list.add(s);
-        }
-        if (list.isEmpty()) {
-            p.sendMessage(plugin.messages().prefixed("shop-not-found"));
-            return;
-        }
-
-        int size = Math.min(54, Math.max(9, ((list.size() + 8) / 9) * 9));
-        Inventory inv = Bukkit.createInventory(new KeeperHolder(), size, ChatColor.DARK_GREEN + "Shopkeeper – Kaufen");
-
-        int slot = 0;
-        for (Shop s : list) {
-            ItemStack it = s.template().clone();
-            ItemMeta meta = it.getItemMeta();
-            List<String> lore = new ArrayList<>();
-            lore.add(ChatColor.GRAY + "Bundle: " + ChatColor.WHITE + s.bundleAmount());
-            lore.add(ChatColor.GRAY + "Preis: " + ChatColor.AQUA + s.price() + "x " + s.currency().name());
-            lore.add(ChatColor.DARK_GRAY + "Shop: " + s.pos().toString());
-            meta.setLore(lore);
-            it.setItemMeta(meta);
-            inv.setItem(slot++, it);
-            if (slot >= size) break;
-        }
-        p.openInventory(inv);
+    /* === ENTITY-REGISTRY === */
+    @EventHandler
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        manager.entitiesLoaded(event.getEntities());
     }
 
-    /* === MANAGER-GUI (für Besitzer) === */
-    private void openManagerGUI(Player p, ShopKeeper k) {
-        Inventory inv = Bukkit.createInventory(new ManagerHolder(k.uuid()), 27, ChatColor.GOLD + "Shopkeeper – Verwaltung");
-
-        fill(inv, glass(Material.GRAY_STAINED_GLASS_PANE, " "));
-
-        inv.setItem(10, icon(Material.CHEST, "§aVerknüpfte Shops anzeigen"));
-        inv.setItem(12, icon(Material.EMERALD_BLOCK, "§aNeuen Shop verknüpfen"));
-        inv.setItem(14, icon(Material.BARRIER, "§cVerknüpfung entfernen"));
-        inv.setItem(16, icon(Material.RED_WOOL, "§cShopkeeper löschen"));
-        inv.setItem(22, icon(Material.OAK_DOOR, "§7Schließen"));
-
-        p.openInventory(inv);
+    @EventHandler
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        manager.entitiesUnloaded(event.getEntities());
     }
 
-    /* === INVENTORY HOLDERS === */
-    public static class KeeperHolder implements InventoryHolder {
-        @Override public Inventory getInventory() { return null; }
-    }
-    public static class ManagerHolder implements InventoryHolder {
-        final java.util.UUID keeperId;
-        ManagerHolder(java.util.UUID id) { this.keeperId = id; }
-        @Override public Inventory getInventory() { return null; }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onShopRemoved(ShopRemovedEvent event) {
+        manager.unlinkShop(event.getShop().pos());
+        manager.icons().invalidate(event.getShop().pos());
     }
 
-    /* === CLICK HANDLER === */
-    @EventHandler
-    public void onClick(InventoryClickEvent event) {
-        InventoryHolder holder = event.getInventory().getHolder();
-        if (holder instanceof KeeperHolder) {
-            handleBuyClick(event);
-        } else if (holder instanceof ManagerHolder) {
-            handleManagerClick(event);
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onShopsRemoved(ShopsRemovedEvent event) {
+        List<BlockPosKey> positions = new ArrayList<>(event.getShops().size());
+        for (Shop s : event.getShops()) {
+            positions.add(s.pos());
+            manager.icons().invalidate(s.pos());
         }
+        manager.unlinkShops(positions); // einmal speichern statt pro Shop
     }
 
-    /* --- Kaufmenü --- */
-    private void handleBuyClick(InventoryClickEvent event) {
-        event.setCancelled(true);
-        if (event.getRawSlot() >= event.getInventory().getSize()) return;
-        Player p = (Player) event.getWhoClicked();
-
-        ItemStack clicked = event.getCurrentItem();
-        if (clicked == null || clicked.getType().isAir()) return;
-        if (clicked.getItemMeta() == null || clicked.getItemMeta().getLore() == null) return;
-
-        // Shop aus Lore auslesen
-        String idLine = null;
-        for (String s : clicked.getItemMeta().getLore()) {
-            String raw = ChatColor.stripColor(s);
-            if (raw != null && raw.startsWith("Shop: ")) {
-                idLine = raw.substring("Shop: ".length()).trim();
-                break;
-            }
-        }
-        if (idLine == null) return;
-
-        BlockPosKey key = BlockPosKey.fromString(idLine);
-        Optional<Shop> shopOpt = shops.get(key.toLocation().getBlock());
-        if (!shopOpt.isPresent()) {
-            p.sendMessage(plugin.messages().prefixed("shop-not-found"));
-            return;
-        }
-
-        Shop s = shopOpt.get();
-        new ShopCommands(plugin, shops, plugin.prompts()).performPurchase(p, key.toLocation().getBlock(), s, 1);
+    /* === KAUF-GUI (für normale Spieler) === */
+    private void openKeeperShopGUI(Player p, ShopKeeper k) {
+        KeeperBrowseGUI.open(p, k);
     }
 
-    /* --- Verwaltungsmenü --- */
-    private void handleManagerClick(InventoryClickEvent event) {
-        event.setCancelled(true);
-        Player p = (Player) event.getWhoClicked();
-        ManagerHolder holder = (ManagerHolder) event.getInventory().getHolder();
-        ShopKeeper k = manager.get(holder.keeperId);
-        if (k == null) {
-            p.closeInventory();
-            return;
-        }
-
-        ItemStack clicked = event.getCurrentItem();
-        if (clicked == null || clicked.getType().isAir()) return;
-
-        switch (clicked.getType()) {
-            case CHEST:
-                // Liste zeigen
-                p.closeInventory();
-                openKeeperShopGUI(p, k);
-                break;
-            case EMERALD_BLOCK:
-                p.closeInventory();
-                p.sendMessage("§aSchau auf eine Kiste und nutze §e/shopkeeper link");
-                break;
-            case BARRIER:
-                p.closeInventory();
-                p.sendMessage("§aSchau auf eine Kiste und nutze §e/shopkeeper unlink");
-                break;
-            case RED_WOOL:
-                manager.remove(k.uuid());
-                p.sendMessage("§cShopkeeper gelöscht.");
-                p.closeInventory();
-                break;
-            case OAK_DOOR:
-                p.closeInventory();
-                break;
-            default:
-                break;
-        }
+    /* === MANAGER-GUI (für Besitzer) === */
+    private void openManagerGUI(Player p, ShopKeeper k) {
+        ManagerHolder holder = new ManagerHolder(p.getUniqueId(), k.uuid());
+        holder.create(27, ChatColor.GOLD + "Shopkeeper – Verwaltung");
+
+        holder.set(10, GuiItems.button(Material.CHEST, GuiItems.text("Verknüpfte Shops anzeigen", NamedTextColor.GREEN)), (pl, e) -> {
+            ShopKeeper keeper = keeper(pl, holder);
+            if (keeper == null) return;
+            // Liste zeigen
+            pl.closeInventory();
+            openKeeperShopGUI(pl, keeper);
+        });
+        holder.set(12, GuiItems.button(Material.EMERALD_BLOCK, GuiItems.text("Neuen Shop verknüpfen", NamedTextColor.GREEN)), (pl, e) -> {
+            pl.closeInventory();
+            pl.sendMessage("§aSchau auf eine Kiste und nutze §e/shopkeeper link");
+        });
+        holder.set(14, GuiItems.button(Material.BARRIER, GuiItems.text("Verknüpfung entfernen", NamedTextColor.RED)), (pl, e) -> {
+            pl.closeInventory();
+            pl.sendMessage("§aSchau auf eine Kiste und nutze §e/shopkeeper unlink");
+        });
+        holder.set(16, GuiItems.button(Material.RED_WOOL, GuiItems.text("Shopkeeper löschen", NamedTextColor.RED)), (pl, e) -> {
+            ShopKeeper keeper = keeper(pl, holder);
+            if (keeper == null) return;
+            manager.remove(keeper.uuid());
+            pl.sendMessage("§cShopkeeper gelöscht.");
+            pl.closeInventory();
+        });
+        holder.set(22, GuiItems.button(Material.OAK_DOOR, GuiItems.text("Schließen", NamedTextColor.GRAY)), (pl, e) -> pl.closeInventory());
+
+        holder.fill(GuiItems.filler(Material.GRAY_STAINED_GLASS_PANE));
+        p.openInventory(holder.getInventory());
     }
 
-    /* === HILFSMETHODEN === */
-    private static void fill(Inventory inv, ItemStack it) {
-        for (int i = 0; i < inv.getSize(); i++)
-            if (inv.getItem(i) == null) inv.setItem(i, it);
+    /* === INVENTORY HOLDERS === */
+    public static class ManagerHolder extends GuiHolder {
+        final UUID keeperId;
+        ManagerHolder(UUID player, UUID id) {
+            super(player);
+            this.keeperId = id;
+        }
     }
 
-    private static ItemStack glass(Material m, String name) {
-        ItemStack it = new ItemStack(m);
-        ItemMeta im = it.getItemMeta();
-        im.setDisplayName(name);
-        it.setItemMeta(im);
-        return it;
-    }
+    /* === CLICK-AKTIONEN === */
 
-    private static ItemStack icon(Material m, String name) {
-        ItemStack it = new ItemStack(m);
-        ItemMeta im = it.getItemMeta();
-        im.setDisplayName(name);
-        it.setItemMeta(im);
-        return it;
+    /* --- Verwaltungsmenü --- */
+    private ShopKeeper keeper(Player p, ManagerHolder holder) {
+        ShopKeeper k = manager.get(holder.keeperId);
+        if (k == null) p.closeInventory();
+        return k;
     }
 }
@@ -7,22 +7,45 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Entity;
-import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Villager;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
-/** Verwaltung der Shopkeeper (Villager) inkl. Persistenz. */
+/**
+ * Verwaltung der Shopkeeper inkl. Persistenz.
+ * <p>
+ * Keeper sind Datensätze mit Position und Chunk. Der Villager wird nur gespawnt, solange ein Spieler
+ * innerhalb von {@code shopkeepers.lod.range} Blöcken ist (oder der Keeper unterwegs ist), und
+ * wieder entfernt, sobald die Gegend leer ist. Gespawnte Villager sind nicht persistent und werden
+ * daher nie mit dem Chunk gespeichert.
+ * <p>
+ * Gespawnte Villager werden über {@code EntitiesLoadEvent}/{@code EntitiesUnloadEvent} (siehe
+ * {@link KeeperListener}) verfolgt und nur schwach referenziert. Rückwärts-Indizes Besitzer → Keeper
+ * und Shop → Keeper ersetzen das Durchlaufen aller Keeper.
+ */
 public class KeeperManager {
 
     private final Main plugin;
     private final Map<UUID, ShopKeeper> keepers = new ConcurrentHashMap<>();
-    // PERFORMANCE FIX: Cache für Entity-Lookups
-    // Verhindert wiederholtes Durchsuchen aller Welten
-    private final Map<UUID, Entity> entityCache = new ConcurrentHashMap<>();
+    // PERFORMANCE FIX: Keeper-ID -> gespawnter Villager, gepflegt über Entity-Load/Unload-Events.
+    // Schwache Referenzen, damit entladene Entities nicht im Speicher gehalten werden.
+    private final Map<UUID, WeakReference<Entity>> entityCache = new ConcurrentHashMap<>();
+    // PERFORMANCE FIX: Rückwärts-Indizes (Besitzer in Erstellreihenfolge, Shop-Position)
+    private final Map<UUID, Set<UUID>> byOwner = new ConcurrentHashMap<>();
+    private final Map<BlockPosKey, Set<UUID>> byShop = new ConcurrentHashMap<>();
+    // PERFORMANCE FIX: Ein gemeinsamer Bewegungs-Task für alle Einkaufsreisen
+    private final KeeperMovementDriver movement;
+    // PERFORMANCE FIX: Entfernte Shops asynchron laden statt Chunk-Load auf dem Hauptthread
+    private final RemoteShopAccess remote;
+    // PERFORMANCE FIX: Vorgerenderte Schaufenster-Icons
+    private final ShopIconCache icons = new ShopIconCache();
+    // Entity UUID -> Keeper-ID (für Klicks auf gespawnte Villager)
+    private final Map<UUID, UUID> byEntity = new ConcurrentHashMap<>();
+    private int lodTaskId = -1;
     private File file;
     private YamlConfiguration data;
 
@@ -30,16 +53,59 @@ public class KeeperManager {
         this.plugin = plugin;
         this.file = new File(plugin.getDataFolder(), "keepers.yml");
         this.data = new YamlConfiguration();
+        this.movement = new KeeperMovementDriver(plugin);
+        this.remote = new RemoteShopAccess(plugin);
     }
 
+    public KeeperMovementDriver movement() { return movement; }
+    public RemoteShopAccess remote() { return remote; }
+    public ShopIconCache icons() { return icons; }
+
     public Collection<ShopKeeper> all() {
         // Defensive copy für thread-safe Iteration
         return new ArrayList<>(keepers.values());
     }
     public ShopKeeper get(UUID uuid) { return keepers.get(uuid); }
 
+    /** Keeper eines Besitzers in Erstellreihenfolge. */
+    public List<ShopKeeper> ownedBy(UUID owner) {
+        return resolve(byOwner.get(owner));
+    }
+
+    /** Zuletzt erstellter Keeper eines Besitzers oder null. */
+    public ShopKeeper lastOwnedBy(UUID owner) {
+        List<ShopKeeper> own = ownedBy(owner);
+        return own.isEmpty() ? null : own.get(own.size() - 1);
+    }
+
+    /** Keeper, die den Shop an dieser Position bedienen. */
+    public List<ShopKeeper> linkedTo(BlockPosKey pos) {
+        return resolve(byShop.get(pos));
+    }
+
+    private List<ShopKeeper> resolve(Set<UUID> ids) {
+        if (ids == null) return Collections.emptyList();
+        List<ShopKeeper> out = new ArrayList<>(ids.size());
+        synchronized (ids) {
+            for (UUID id : ids) {
+                ShopKeeper k = keepers.get(id);
+                if (k != null) out.add(k);
+            }
+        }
+        return out;
+    }
+
+    /** Keeper zu einem gespawnten Villager (null, wenn die Entity kein Keeper ist). */
+    public ShopKeeper byEntity(UUID entityId) {
+        UUID id = byEntity.get(entityId);
+        return id == null ? null : keepers.get(id);
+    }
+
     public void load() {
+        despawnAll();
         keepers.clear();
+        byOwner.clear();
+        byShop.clear();
         try {
             if (!file.exists()) { file.getParentFile().mkdirs(); file.createNewFile(); }
             data = YamlConfiguration.loadConfiguration(file);
@@ -75,6 +141,7 @@ public class KeeperManager {
                         List<String> linked = data.getStringList(base + "linked");
                         for (String s : linked) k.add(BlockPosKey.fromString(s));
                         keepers.put(uuid, k);
+                        index(k);
                     } catch (Exception e) {
                         plugin.getLogger().severe("Fehler beim Laden von Keeper '" + id + "': " + e.getMessage());
                         e.printStackTrace();
@@ -89,7 +156,8 @@ public class KeeperManager {
     public void save() {
         try {
             data = new YamlConfiguration();
-            for (ShopKeeper k : keepers.values()) {
+            // Über den Besitzer-Index speichern, damit die Erstellreihenfolge erhalten bleibt
+            for (Set<UUID> ids : byOwner.values()) for (ShopKeeper k : resolve(ids)) {
                 String base = "keepers." + k.uuid().toString() + ".";
                 data.set(base + "owner", k.owner().toString());
                 data.set(base + "world", k.world());
@@ -108,16 +176,11 @@ public class KeeperManager {
 
     public ShopKeeper create(Location loc, UUID owner) {
         if (!plugin.getConfig().getBoolean("shopkeepers.enabled", true)) return null;
-        Villager v = (Villager) loc.getWorld().spawnEntity(loc, EntityType.VILLAGER);
-        v.setAI(false);
-        v.setInvulnerable(true);
-        v.setCollidable(false);
-        v.setGravity(false);
-        v.setAdult();
-        v.setSilent(true);
-        v.setProfession(Villager.Profession.NONE);
-        ShopKeeper k = new ShopKeeper(v.getUniqueId(), owner, loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
-        keepers.put(v.getUniqueId(), k);
+        ShopKeeper k = new ShopKeeper(UUID.randomUUID(), owner, loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        keepers.put(k.uuid(), k);
+        index(k);
+        spawn(k); // Ersteller steht daneben
+        plugin.snapshots().keeperChanged(k.uuid());
         save();
         return k;
     }
@@ -125,17 +188,183 @@ public class KeeperManager {
     public boolean remove(UUID uuid) {
         ShopKeeper k = keepers.remove(uuid);
         if (k == null) return false;
-        Entity e = findEntity(uuid);
-        if (e != null) e.remove();
-        entityCache.remove(uuid); // PERFORMANCE FIX: Cache aufräumen
+        despawn(k);
+        unindex(k);
+        plugin.snapshots().keeperChanged(uuid);
         save();
         return true;
     }
 
+    private void index(ShopKeeper k) {
+        byOwner.computeIfAbsent(k.owner(), o -> Collections.synchronizedSet(new LinkedHashSet<>())).add(k.uuid());
+        for (BlockPosKey pos : k.linked()) indexShop(pos, k.uuid());
+    }
+
+    private void unindex(ShopKeeper k) {
+        removeFrom(byOwner, k.owner(), k.uuid());
+        for (BlockPosKey pos : k.linked()) removeFrom(byShop, pos, k.uuid());
+    }
+
+    private void indexShop(BlockPosKey pos, UUID keeper) {
+        byShop.computeIfAbsent(pos, p -> Collections.synchronizedSet(new LinkedHashSet<>())).add(keeper);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<UUID>> index, K key, UUID keeper) {
+        index.computeIfPresent(key, (x, ids) -> {
+            ids.remove(keeper);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /* =================== LOD (Spawnen nach Bedarf) =================== */
+
+    /** Startet die periodische Prüfung, welche Keeper gespawnt sein müssen. */
+    public void startLod() {
+        stopLod();
+        long period = Math.max(10L, plugin.getConfig().getLong("shopkeepers.lod.check-ticks", 40L));
+        lodTaskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::updateLod, 20L, period);
+    }
+
+    /** Stoppt die Prüfung und entfernt alle gespawnten Villager (Plugin-Disable). */
+    public void stopLod() {
+        if (lodTaskId != -1) {
+            Bukkit.getScheduler().cancelTask(lodTaskId);
+            lodTaskId = -1;
+        }
+        despawnAll();
+    }
+
+    private void updateLod() {
+        boolean lod = plugin.getConfig().getBoolean("shopkeepers.lod.enabled", true);
+        double range = Math.max(8, plugin.getConfig().getInt("shopkeepers.lod.range", 48));
+        double rangeSq = range * range;
+
+        // Spieler einmal pro Welt einsammeln statt pro Keeper
+        Map<String, List<Location>> players = new HashMap<>();
+        for (org.bukkit.entity.Player p : Bukkit.getOnlinePlayers()) {
+            players.computeIfAbsent(p.getWorld().getName(), w -> new ArrayList<>()).add(p.getLocation());
+        }
+
+        for (ShopKeeper k : keepers.values()) {
+            if (k.entityId() != null && movement.isMoving(k.entityId())) continue; // unterwegs
+            World w = Bukkit.getWorld(k.world());
+            boolean loaded = w != null && w.isChunkLoaded(k.chunkX(), k.chunkZ());
+            boolean wanted = loaded && (!lod || isNear(k, players.get(k.world()), rangeSq));
+            Entity e = findEntity(k.uuid());
+            if (wanted && e == null) {
+                spawn(k);
+            } else if (!wanted && e != null) {
+                despawn(k);
+            }
+        }
+    }
+
+    private static boolean isNear(ShopKeeper k, List<Location> players, double rangeSq) {
+        if (players == null) return false;
+        for (Location l : players) {
+            double dx = l.getX() - k.x(), dz = l.getZ() - k.z();
+            if (dx * dx + dz * dz <= rangeSq) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Liefert den Villager des Keepers und spawnt ihn bei Bedarf (z.B. für eine Einkaufsreise).
+     *
+     * @return Entity oder null, wenn die Welt nicht geladen ist
+     */
+    public Entity materialize(ShopKeeper k) {
+        Entity e = findEntity(k.uuid());
+        return e != null ? e : spawn(k);
+    }
+
+    private Entity spawn(ShopKeeper k) {
+        World w = Bukkit.getWorld(k.world());
+        if (w == null) return null;
+
+        // Alte, persistente Keeper-Villager (Entity UUID = Keeper-ID) übernehmen statt doppelt zu spawnen
+        Entity legacy = w.getEntity(k.uuid());
+        Villager v;
+        if (legacy instanceof Villager) {
+            v = (Villager) legacy;
+            v.setPersistent(false);
+        } else {
+            Location loc = new Location(w, k.x() + 0.5, k.y(), k.z() + 0.5);
+            v = w.spawn(loc, Villager.class, villager -> {
+                villager.setAI(false);
+                villager.setInvulnerable(true);
+                villager.setCollidable(false);
+                villager.setGravity(false);
+                villager.setAdult();
+                villager.setSilent(true);
+                villager.setProfession(Villager.Profession.NONE);
+                // Nie mit dem Chunk speichern – der Keeper lebt in keepers.yml
+                villager.setPersistent(false);
+            });
+        }
+        track(k, v);
+        return v;
+    }
+
+    private void track(ShopKeeper k, Entity e) {
+        k.entityId(e.getUniqueId());
+        byEntity.put(e.getUniqueId(), k.uuid());
+        entityCache.put(k.uuid(), new WeakReference<>(e));
+    }
+
+    /** Entities eines Chunks wurden geladen (alte, persistente Keeper-Villager übernehmen). */
+    void entitiesLoaded(Collection<Entity> entities) {
+        for (Entity e : entities) {
+            UUID id = byEntity.get(e.getUniqueId());
+            if (id != null) {
+                entityCache.put(id, new WeakReference<>(e));
+                continue;
+            }
+            ShopKeeper legacy = keepers.get(e.getUniqueId());
+            if (legacy == null || !(e instanceof Villager)) continue;
+            if (legacy.entityId() == null) {
+                e.setPersistent(false);
+                track(legacy, e);
+            } else {
+                e.remove(); // Keeper ist bereits gespawnt – gespeichertes Duplikat entfernen
+            }
+        }
+    }
+
+    /** Entities eines Chunks werden entladen; nicht persistente Villager verschwinden damit. */
+    void entitiesUnloaded(Collection<Entity> entities) {
+        for (Entity e : entities) {
+            UUID id = byEntity.remove(e.getUniqueId());
+            if (id == null) continue;
+            entityCache.remove(id);
+            ShopKeeper k = keepers.get(id);
+            if (k != null && e.getUniqueId().equals(k.entityId())) k.entityId(null);
+        }
+    }
+
+    private void despawn(ShopKeeper k) {
+        UUID entityId = k.entityId();
+        if (entityId != null) {
+            movement.cancel(entityId);
+            byEntity.remove(entityId);
+        }
+        Entity e = findEntity(k.uuid());
+        if (e != null) e.remove();
+        k.entityId(null);
+        entityCache.remove(k.uuid()); // PERFORMANCE FIX: Cache aufräumen
+    }
+
+    private void despawnAll() {
+        for (ShopKeeper k : keepers.values()) despawn(k);
+        byEntity.clear();
+    }
+
     public void link(UUID keeper, BlockPosKey pos) {
         ShopKeeper k = keepers.get(keeper);
         if (k == null) return;
         k.add(pos);
+        indexShop(pos, keeper);
+        plugin.snapshots().keeperChanged(keeper);
         save();
     }
 
@@ -143,27 +372,73 @@ public class KeeperManager {
         ShopKeeper k = keepers.get(keeper);
         if (k == null) return;
         k.remove(pos);
+        removeFrom(byShop, pos, keeper);
+        plugin.snapshots().keeperChanged(keeper);
         save();
     }
 
+    /**
+     * Trennt viele entfernte Shops von allen Keepern und speichert einmal.
+     *
+     * @return Anzahl der Verknüpfungen, die gelöst wurden
+     */
+    public int unlinkShops(Collection<BlockPosKey> positions) {
+        int n = 0;
+        for (BlockPosKey pos : positions) {
+            Set<UUID> ids = byShop.remove(pos);
+            if (ids == null) continue;
+            for (ShopKeeper k : resolve(ids)) {
+                k.remove(pos);
+                plugin.snapshots().keeperChanged(k.uuid());
+                n++;
+            }
+        }
+        if (n > 0) save();
+        return n;
+    }
+
+    /**
+     * Trennt einen entfernten Shop von allen Keepern (über den Shop-Index).
+     *
+     * @return Anzahl betroffener Keeper
+     */
+    public int unlinkShop(BlockPosKey pos) {
+        Set<UUID> ids = byShop.remove(pos);
+        if (ids == null) return 0;
+        int n = 0;
+        for (ShopKeeper k : resolve(ids)) {
+            k.remove(pos);
+            plugin.snapshots().keeperChanged(k.uuid());
+            n++;
+        }
+        if (n > 0) save();
+        return n;
+    }
+
+    /**
+     * Gespawnter Villager eines Keepers (null, wenn virtuell). Gesucht wird direkt per Entity UUID
+     * in der Welt des Keepers, nicht mehr in allen Welten.
+     */
     public Entity findEntity(UUID id) {
         // Prüfe Cache zuerst
-        Entity cached = entityCache.get(id);
+        WeakReference<Entity> ref = entityCache.get(id);
+        Entity cached = ref == null ? null : ref.get();
         if (cached != null && cached.isValid() && !cached.isDead()) {
             return cached;
         }
+        entityCache.remove(id);
 
-        // Cache miss oder ungültig - suche in Welten
-        for (World w : Bukkit.getWorlds()) {
-            Entity e = w.getEntity(id);
-            if (e != null) {
-                entityCache.put(id, e); // Cache für nächsten Aufruf
-                return e;
-            }
+        ShopKeeper k = keepers.get(id);
+        if (k == null || k.entityId() == null) return null;
+        World w = Bukkit.getWorld(k.world());
+        Entity e = w == null ? null : w.getEntity(k.entityId());
+        if (e == null || !e.isValid()) {
+            // Villager ist mit seinem Chunk verschwunden (nicht persistent) – wieder virtuell
+            byEntity.remove(k.entityId());
+            k.entityId(null);
+            return null;
         }
-
-        // Nicht gefunden - entferne aus Cache
-        entityCache.remove(id);
-        return null;
+        entityCache.put(id, new WeakReference<>(e));
+        return e;
     }
 }
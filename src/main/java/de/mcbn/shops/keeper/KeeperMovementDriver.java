@@ -0,0 +1,204 @@
+package de.mcbn.shops.keeper;
+
+import com.destroystokyo.paper.entity.Pathfinder;
+import de.mcbn.shops.Main;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Mob;
+
+import java.util.*;
+
+/**
+ * Gemeinsamer Bewegungs-Treiber für alle laufenden Einkaufsreisen.
+ * <p>
+ * Statt eines Repeating-Tasks pro Villager gibt es genau einen Task, der nur läuft, solange
+ * Bewegungen aktiv sind. Gelaufen wird über den Paper-{@link Pathfinder}; dafür werden KI und
+ * Schwerkraft für die Dauer der Bewegung eingeschaltet. Villager, die kein Spieler sieht, werden
+ * seltener geprüft. Nur wenn kein Pfad existiert oder der Villager feststeckt, wird ein Segment
+ * ({@code shopkeepers.movement.segment-blocks}) per Teleport übersprungen.
+ */
+public class KeeperMovementDriver {
+
+    /** Basistakt des Tasks in Ticks; Prüfintervalle sind Vielfache davon. */
+    private static final long PERIOD = 5L;
+    /** Ankunftsradius (quadriert). */
+    private static final double ARRIVE_SQ = 2.25;
+    /** Prüfungen ohne Fortschritt, bevor per Teleport nachgeholfen wird. */
+    private static final int STUCK_CHECKS = 3;
+
+    private final Main plugin;
+    private final Map<UUID, Movement> active = new LinkedHashMap<>();
+    private int taskId = -1;
+    private long tick;
+
+    private static final class Movement {
+        final Mob mob;
+        final Location target;
+        final Runnable onArrive;
+        final Runnable onAbort;
+        final boolean hadAI;
+        final boolean hadGravity;
+        long nextCheck;
+        double bestDistSq = Double.MAX_VALUE;
+        int noProgress;
+        boolean pathFailed;
+
+        Movement(Mob mob, Location target, Runnable onArrive, Runnable onAbort) {
+            this.mob = mob;
+            this.target = target;
+            this.onArrive = onArrive;
+            this.onAbort = onAbort;
+            this.hadAI = mob.hasAI();
+            this.hadGravity = mob.hasGravity();
+        }
+    }
+
+    public KeeperMovementDriver(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Lässt den Mob zum Ziel laufen. Eine laufende Bewegung desselben Mobs wird ersetzt
+     * (ohne deren Callback auszulösen).
+     *
+     * @param onArrive wird bei Ankunft auf dem Hauptthread ausgeführt
+     * @param onAbort wird ausgeführt, wenn die Bewegung nicht mehr ankommen kann (Mob ungültig/entladen,
+     *                {@link #cancel}, {@link #stop})
+     */
+    public void move(Mob mob, Location target, Runnable onArrive, Runnable onAbort) {
+        Movement old = active.remove(mob.getUniqueId());
+        if (old != null) restore(old);
+
+        Movement m = new Movement(mob, target.clone(), onArrive, onAbort);
+        mob.setAI(true);
+        mob.setGravity(true);
+        m.pathFailed = !mob.getPathfinder().moveTo(m.target, speed());
+        m.nextCheck = tick;
+        active.put(mob.getUniqueId(), m);
+
+        if (taskId == -1) {
+            taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::run, PERIOD, PERIOD);
+        }
+    }
+
+    /** Bricht die Bewegung eines Mobs ab; deren {@code onAbort} wird ausgeführt. */
+    public void cancel(UUID entity) {
+        Movement m = active.remove(entity);
+        if (m == null) return;
+        restore(m);
+        m.onAbort.run();
+    }
+
+    public boolean isMoving(UUID entity) {
+        return active.containsKey(entity);
+    }
+
+    /** Stoppt alle Bewegungen und den Task (Plugin-Disable). */
+    public void stop() {
+        List<Movement> aborted = new ArrayList<>(active.values());
+        active.clear();
+        if (taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+        for (Movement m : aborted) {
+            restore(m);
+            m.onAbort.run();
+        }
+    }
+
+    private void run() {
+        tick += PERIOD;
+        long watchedTicks = Math.max(PERIOD, plugin.getConfig().getLong("shopkeepers.movement.update-ticks", 10L));
+        long idleTicks = Math.max(watchedTicks, plugin.getConfig().getLong("shopkeepers.movement.idle-update-ticks", 40L));
+
+        List<Movement> arrived = new ArrayList<>();
+        List<Movement> lost = new ArrayList<>();
+        for (Iterator<Movement> it = active.values().iterator(); it.hasNext(); ) {
+            Movement m = it.next();
+            if (!m.mob.isValid() || m.mob.isDead()) { // z.B. mit dem Chunk entladen
+                it.remove();
+                lost.add(m);
+                continue;
+            }
+            if (tick < m.nextCheck) continue;
+
+            // Unbeobachtete Villager seltener prüfen – der Pathfinder läuft trotzdem weiter
+            boolean watched = !m.mob.getTrackedBy().isEmpty();
+            m.nextCheck = tick + (watched ? watchedTicks : idleTicks);
+
+            if (step(m)) {
+                it.remove();
+                arrived.add(m);
+            }
+        }
+
+        // Callbacks erst nach der Iteration (sie starten meist die nächste Bewegung)
+        for (Movement m : lost) m.onAbort.run();
+        for (Movement m : arrived) {
+            restore(m);
+            m.onArrive.run();
+        }
+        if (active.isEmpty() && taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    /** @return true bei Ankunft */
+    private boolean step(Movement m) {
+        Location cur = m.mob.getLocation();
+        if (cur.getWorld() != m.target.getWorld()) {
+            m.mob.teleport(m.target);
+            return true;
+        }
+        double dx = m.target.getX() - cur.getX();
+        double dy = m.target.getY() - cur.getY();
+        double dz = m.target.getZ() - cur.getZ();
+        double distSq = dx * dx + dy * dy + dz * dz;
+        if (distSq < ARRIVE_SQ) return true;
+
+        if (distSq < m.bestDistSq - 0.25) {
+            m.bestDistSq = distSq;
+            m.noProgress = 0;
+        } else {
+            m.noProgress++;
+        }
+
+        Pathfinder pf = m.mob.getPathfinder();
+        if (!m.pathFailed && m.noProgress < STUCK_CHECKS) {
+            if (!pf.hasPath()) m.pathFailed = !pf.moveTo(m.target, speed());
+            if (!m.pathFailed) return false;
+        }
+
+        // Fallback: ein Segment in Zielrichtung überspringen, danach erneut Pfad versuchen
+        double dist = Math.sqrt(distSq);
+        double segment = Math.max(2.0, plugin.getConfig().getDouble("shopkeepers.movement.segment-blocks", 8.0));
+        if (dist <= segment) {
+            m.mob.teleport(m.target);
+            return true;
+        }
+        World w = cur.getWorld();
+        double f = segment / dist;
+        double x = cur.getX() + dx * f;
+        double z = cur.getZ() + dz * f;
+        int y = w.getHighestBlockYAt((int) Math.floor(x), (int) Math.floor(z));
+        m.mob.teleport(new Location(w, x, y + 1, z, cur.getYaw(), cur.getPitch()));
+        m.bestDistSq = Double.MAX_VALUE;
+        m.noProgress = 0;
+        m.pathFailed = !pf.moveTo(m.target, speed());
+        return false;
+    }
+
+    private void restore(Movement m) {
+        if (!m.mob.isValid()) return;
+        m.mob.getPathfinder().stopPathfinding();
+        m.mob.setAI(m.hadAI);
+        m.mob.setGravity(m.hadGravity);
+    }
+
+    private double speed() {
+        return Math.max(0.1, plugin.getConfig().getDouble("shopkeepers.movement.speed", 0.6));
+    }
+}
@@ -0,0 +1,123 @@
+package de.mcbn.shops.keeper;
+
+import de.mcbn.shops.gui.GuiHolder;
+import de.mcbn.shops.gui.GuiItems;
+import de.mcbn.shops.order.OrderPlan;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bestätigungs-GUI für einen Einkaufsplan: geplante Käufe, Fehlmengen und Gesamtkosten.
+ * Der Besitzer wählt zwischen Einkaufsreise (Villager laufen, ggf. mehrere parallel) und Sofortkauf.
+ */
+final class OrderPlanGUI {
+
+    private static final int LINE_SLOTS = 36;
+    private static final int SHORT_FIRST = 36;
+    private static final int SHORT_SLOTS = 9;
+    private static final int SLOT_CANCEL = 45;
+    private static final int SLOT_SUMMARY = 49;
+    private static final int SLOT_WALK = 51;
+    private static final int SLOT_INSTANT = 53;
+
+    private OrderPlanGUI() {
+    }
+
+    /**
+     * @param instantAllowed Sofortkauf anbieten (Plan kreuzt ungeladene/weit entfernte Chunks)
+     */
+    static void open(Player p, OrderPlan plan, ShopperFleet fleet, boolean instantAllowed) {
+        new PlanHolder(p.getUniqueId(), plan, fleet, instantAllowed).open(p);
+    }
+
+    private static final class PlanHolder extends GuiHolder {
+        private final OrderPlan plan;
+        private final ShopperFleet fleet;
+        private final boolean instantAllowed;
+
+        PlanHolder(UUID viewer, OrderPlan plan, ShopperFleet fleet, boolean instantAllowed) {
+            super(viewer);
+            this.plan = plan;
+            this.fleet = fleet;
+            this.instantAllowed = instantAllowed;
+        }
+
+        void open(Player p) {
+            create(54, ChatColor.DARK_GREEN + "Einkaufsplan");
+
+            List<OrderPlan.Line> lines = plan.lines();
+            for (int i = 0; i < lines.size() && i < LINE_SLOTS; i++) {
+                set(i, lineIcon(lines.get(i)));
+            }
+
+            int slot = SHORT_FIRST;
+            for (Map.Entry<Material, Integer> e : plan.shortfall().entrySet()) {
+                if (slot >= SHORT_FIRST + SHORT_SLOTS) break;
+                boolean funds = plan.limitedByFunds().contains(e.getKey());
+                set(slot++, GuiItems.item(Material.BARRIER,
+                        GuiItems.text("Fehlt: " + e.getValue() + "x ", NamedTextColor.RED).append(GuiItems.name(e.getKey())),
+                        GuiItems.text(funds ? "Guthaben reicht nicht" : "Kein (bekannter) Bestand", NamedTextColor.GRAY)));
+            }
+
+            List<Component> summary = new ArrayList<>();
+            Component count = GuiItems.label("Käufe", lines.size());
+            if (lines.size() > LINE_SLOTS) {
+                count = count.append(GuiItems.text(" (" + (lines.size() - LINE_SLOTS) + " nicht angezeigt)", NamedTextColor.DARK_GRAY));
+            }
+            summary.add(count);
+            summary.add(GuiItems.label("Preis", plan.totalPrice(), NamedTextColor.AQUA)
+                    .append(GuiItems.text(" + Gebühr ", NamedTextColor.GRAY))
+                    .append(Component.text(plan.totalFee(), NamedTextColor.AQUA)));
+            for (Map.Entry<Material, Integer> e : plan.totalByCurrency().entrySet()) {
+                summary.add(GuiItems.label("Gesamt", e.getValue() + "x ", NamedTextColor.GOLD)
+                        .append(GuiItems.name(e.getKey()).color(NamedTextColor.GOLD)));
+            }
+            if (!plan.shortfall().isEmpty()) {
+                summary.add(GuiItems.text("Nicht alles erfüllbar (" + plan.shortfall().size() + " Material(ien))", NamedTextColor.RED));
+            }
+            set(SLOT_SUMMARY, GuiItems.item(Material.PAPER, GuiItems.text("Zusammenfassung", NamedTextColor.YELLOW),
+                    summary.toArray(new Component[0])));
+
+            set(SLOT_CANCEL, GuiItems.button(Material.RED_WOOL, GuiItems.text("Abbrechen", NamedTextColor.RED)),
+                    (pl, e) -> pl.closeInventory());
+            set(SLOT_WALK, GuiItems.item(Material.LEATHER_BOOTS, GuiItems.text("Einkaufsreise starten", NamedTextColor.GREEN),
+                    GuiItems.text(fleet.size() > 1
+                            ? fleet.size() + " Shopkeeper teilen sich die Shops."
+                            : "Der Shopkeeper läuft die Shops ab.", NamedTextColor.GRAY)), (pl, e) -> {
+                pl.closeInventory();
+                fleet.walk(pl);
+            });
+            if (instantAllowed) {
+                set(SLOT_INSTANT, GuiItems.button(Material.ENDER_PEARL, GuiItems.text("Sofort kaufen", NamedTextColor.LIGHT_PURPLE),
+                        GuiItems.text("Ohne Laufen – sinnvoll bei weit", NamedTextColor.GRAY),
+                        GuiItems.text("entfernten oder ungeladenen Shops.", NamedTextColor.GRAY)), (pl, e) -> {
+                    pl.closeInventory();
+                    fleet.instant(pl);
+                });
+            }
+            p.openInventory(getInventory());
+        }
+    }
+
+    private static ItemStack lineIcon(OrderPlan.Line l) {
+        ItemStack it = l.shop().template().clone();
+        it.setAmount(Math.max(1, Math.min(64, l.items())));
+        List<Component> lore = new ArrayList<>();
+        lore.add(GuiItems.label("Menge", l.items() + " (" + l.bundles() + " Bundles)"));
+        lore.add(GuiItems.label("Preis", l.price() + "x ", NamedTextColor.AQUA)
+                .append(GuiItems.name(l.shop().currency()).color(NamedTextColor.AQUA))
+                .append(GuiItems.text(" + Gebühr " + l.fee(), NamedTextColor.GRAY)));
+        lore.add(GuiItems.text("Shop: " + l.shop().pos().toString(), NamedTextColor.DARK_GRAY));
+        if (!l.loaded()) lore.add(GuiItems.text("Bestand zuletzt bekannt (Chunk ungeladen)", NamedTextColor.DARK_GRAY));
+        return GuiItems.withLore(it, lore);
+    }
+}
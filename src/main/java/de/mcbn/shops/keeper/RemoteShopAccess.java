@@ -0,0 +1,138 @@
+package de.mcbn.shops.keeper;
+
+import de.mcbn.shops.Main;
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.util.BlockPosKey;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Zugriff auf entfernte, über Keeper verknüpfte Shops ohne synchrones Chunk-Laden.
+ * <p>
+ * Ist der Chunk eines Shops nicht geladen, wird er über {@link World#getChunkAtAsync(int, int)}
+ * geladen; die Aktion läuft danach auf dem Hauptthread. Chunks häufig gehandelter Shops werden mit
+ * einem Plugin-Chunk-Ticket geladen gehalten. Die Handelszähler halbieren sich alle
+ * {@code shopkeepers.remote.decay-seconds}; fällt ein Chunk unter die halbe Schwelle, wird sein
+ * Ticket wieder freigegeben. Der Zerfalls-Task läuft nur, solange Zähler existieren.
+ */
+public class RemoteShopAccess {
+
+    /** Zähler unter diesem Wert werden verworfen. */
+    private static final double FORGET_BELOW = 0.25;
+
+    private final Main plugin;
+    private final Map<ChunkPos, Double> heat = new HashMap<>();
+    private final Set<ChunkPos> ticketed = new HashSet<>();
+    private int taskId = -1;
+
+    public RemoteShopAccess(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /** True, wenn der Chunk des Shops geladen ist (Zugriff also synchron möglich). */
+    public boolean isLoaded(Shop s) {
+        BlockPosKey pos = s.pos();
+        World w = Bukkit.getWorld(pos.world);
+        return w != null && w.isChunkLoaded(pos.x >> 4, pos.z >> 4);
+    }
+
+    /**
+     * Führt die Aktion mit dem Shop-Block aus – sofort, wenn der Chunk geladen ist, sonst nachdem
+     * er asynchron geladen wurde (auf dem Hauptthread).
+     *
+     * @param unavailable Welt nicht geladen oder Laden fehlgeschlagen
+     */
+    public void withBlock(Shop s, Consumer<Block> action, Runnable unavailable) {
+        BlockPosKey pos = s.pos();
+        World w = Bukkit.getWorld(pos.world);
+        if (w == null) {
+            unavailable.run();
+            return;
+        }
+        if (w.isChunkLoaded(pos.x >> 4, pos.z >> 4)) {
+            action.accept(w.getBlockAt(pos.x, pos.y, pos.z));
+            return;
+        }
+        w.getChunkAtAsync(pos.x >> 4, pos.z >> 4).whenComplete((chunk, ex) -> {
+            // Paper schließt das Future auf dem Hauptthread ab
+            if (ex != null || chunk == null) unavailable.run();
+            else action.accept(w.getBlockAt(pos.x, pos.y, pos.z));
+        });
+    }
+
+    /**
+     * Merkt sich einen Handel über einen Keeper. Ab {@code shopkeepers.remote.ticket-trades}
+     * (zerfallenden) Käufen bleibt der Chunk per Ticket geladen.
+     */
+    public void traded(Shop s) {
+        int threshold = plugin.getConfig().getInt("shopkeepers.remote.ticket-trades", 5);
+        if (threshold <= 0) return;
+        ChunkPos c = new ChunkPos(s.pos().world, s.pos().x >> 4, s.pos().z >> 4);
+        double value = heat.merge(c, 1.0, Double::sum);
+        if (value >= threshold && !ticketed.contains(c)
+                && ticketed.size() < plugin.getConfig().getInt("shopkeepers.remote.max-tickets", 16)) {
+            World w = Bukkit.getWorld(c.world);
+            if (w != null && w.addPluginChunkTicket(c.x, c.z, plugin)) ticketed.add(c);
+        }
+        if (taskId == -1) {
+            long period = Math.max(10L, plugin.getConfig().getLong("shopkeepers.remote.decay-seconds", 120L)) * 20L;
+            taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::decay, period, period);
+        }
+    }
+
+    private void decay() {
+        double release = plugin.getConfig().getInt("shopkeepers.remote.ticket-trades", 5) / 2.0;
+        Iterator<Map.Entry<ChunkPos, Double>> it = heat.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ChunkPos, Double> e = it.next();
+            double value = e.getValue() / 2.0;
+            if (value < release) release(e.getKey());
+            if (value < FORGET_BELOW) it.remove();
+            else e.setValue(value);
+        }
+        if (heat.isEmpty() && taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    private void release(ChunkPos c) {
+        if (!ticketed.remove(c)) return;
+        World w = Bukkit.getWorld(c.world);
+        if (w != null) w.removePluginChunkTicket(c.x, c.z, plugin);
+    }
+
+    /** Gibt alle Tickets frei und stoppt den Task (Plugin-Disable). */
+    public void stop() {
+        for (ChunkPos c : new ArrayList<>(ticketed)) release(c);
+        heat.clear();
+        if (taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    private static final class ChunkPos {
+        final String world;
+        final int x, z;
+
+        ChunkPos(String world, int x, int z) {
+            this.world = world; this.x = x; this.z = z;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChunkPos)) return false;
+            ChunkPos c = (ChunkPos) o;
+            return x == c.x && z == c.z && world.equals(c.world);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(world, x, z);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package de.mcbn.shops.keeper;
+
+import de.mcbn.shops.order.PurchaseOrder;
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.util.BlockPosKey;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.*;
+
+/**
+ * Routenplaner für Einkaufsreisen.
+ * <p>
+ * Auf dem Hauptthread wird nur ein unveränderlicher {@link Snapshot} der passenden Shops erstellt
+ * (Position, Stückpreis – zu teure Shops fallen bereits hier heraus). {@link #plan(Snapshot)} läuft
+ * danach auf einem Worker-Thread und greift nicht mehr auf die Bukkit-API zu:
+ * <ol>
+ *     <li>Shops werden nach Welt gruppiert und in ein Raster ({@value #CELL} Blöcke) einsortiert.</li>
+ *     <li>Pro Material werden die besten Shops nach kombinierten Kosten gewählt:
+ *     {@code Stückpreis * Bedarf + Wegkosten * Entfernung}. Die Suche läuft ringweise um den
+ *     Startpunkt und bricht ab, sobald weiter entfernte Zellen nicht mehr gewinnen können.
+ *     Shops in anderen Welten kosten pauschal {@code cross-world-blocks} Wegkosten.</li>
+ *     <li>Die gewählten Stopps werden per Nearest-Neighbour geordnet und per 2-opt verbessert.</li>
+ * </ol>
+ * Stopps in anderen Welten werden nach der Startwelt angefahren (der Villager wird dorthin teleportiert).
+ */
+public final class RoutePlanner {
+
+    /** Kantenlänge einer Rasterzelle in Blöcken. */
+    static final int CELL = 32;
+    /** Obergrenze der 2-opt-Durchläufe (Stopps sind ohnehin auf wenige begrenzt). */
+    private static final int MAX_2OPT_PASSES = 50;
+
+    private RoutePlanner() {
+    }
+
+    /** Ein Kandidat im Snapshot (unveränderlich, ohne Bukkit-Objekte außer der Shop-Referenz). */
+    static final class Candidate {
+        final Shop shop;
+        final String world;
+        final double x, y, z;
+        final Material material;
+        final int unitPrice;
+
+        Candidate(Shop shop, int unitPrice) {
+            BlockPosKey pos = shop.pos();
+            this.shop = shop;
+            this.world = pos.world;
+            this.x = pos.x + 0.5;
+            this.y = pos.y + 1;
+            this.z = pos.z + 0.5;
+            this.material = shop.template().getType();
+            this.unitPrice = unitPrice;
+        }
+    }
+
+    /** Unveränderliche Eingabe der Planung. */
+    public static final class Snapshot {
+        final String startWorld;
+        final double startX, startY, startZ;
+        final Map<Material, Integer> needed;
+        final List<Candidate> candidates;
+        final double costPerBlock;
+        final double crossWorldCost;
+        final int shopsPerMaterial;
+        final int maxStops;
+        final int maxRadius;
+
+        private Snapshot(Location start, Map<Material, Integer> needed, List<Candidate> candidates, FileConfiguration cfg) {
+            this(start, needed, candidates,
+                    Math.max(0.0, cfg.getDouble("shopkeepers.route.cost-per-block", 0.05)),
+                    Math.max(0.0, cfg.getDouble("shopkeepers.route.cross-world-blocks", 1000.0)),
+                    Math.max(1, cfg.getInt("shopkeepers.route.shops-per-material", 3)),
+                    Math.max(1, cfg.getInt("shopkeepers.route.max-stops", 24)),
+                    Math.max(CELL, cfg.getInt("shopkeepers.route.max-radius", 2048)));
+        }
+
+        private Snapshot(Location start, Map<Material, Integer> needed, List<Candidate> candidates, double costPerBlock,
+                         double crossWorldBlocks, int shopsPerMaterial, int maxStops, int maxRadius) {
+            this.startWorld = start.getWorld() == null ? "" : start.getWorld().getName();
+            this.startX = start.getX();
+            this.startY = start.getY();
+            this.startZ = start.getZ();
+            this.needed = Collections.unmodifiableMap(needed);
+            this.candidates = Collections.unmodifiableList(candidates);
+            this.costPerBlock = costPerBlock;
+            this.crossWorldCost = crossWorldBlocks * costPerBlock;
+            this.shopsPerMaterial = shopsPerMaterial;
+            this.maxStops = maxStops;
+            this.maxRadius = maxRadius;
+        }
+
+        public boolean isEmpty() {
+            return candidates.isEmpty();
+        }
+    }
+
+    /**
+     * Erstellt den Snapshot (Hauptthread). Shops über dem Maximalpreis der Bestellung werden
+     * gar nicht erst aufgenommen.
+     */
+    public static Snapshot snapshot(Location start, PurchaseOrder order, Collection<Shop> shops, FileConfiguration cfg) {
+        Map<Material, Integer> needed = new EnumMap<>(Material.class);
+        for (Map.Entry<Material, Integer> e : order.wanted().entrySet()) {
+            if (e.getValue() != null && e.getValue() > 0) needed.put(e.getKey(), e.getValue());
+        }
+        Map<Material, Integer> maxPrice = order.maxPrice();
+        List<Candidate> out = new ArrayList<>();
+        if (!needed.isEmpty()) {
+            for (Shop s : shops) {
+                Material mat = s.template().getType();
+                if (!needed.containsKey(mat) || s.bundleAmount() <= 0 || !order.accepts(s.template())) continue;
+                int unit = (int) Math.ceil(s.price() / (double) s.bundleAmount());
+                int max = maxPrice.getOrDefault(mat, 0);
+                if (max > 0 && unit > max) continue;
+                out.add(new Candidate(s, unit));
+            }
+        }
+        return new Snapshot(start, needed, out, cfg);
+    }
+
+    /**
+     * Snapshot für eine feste Shop-Liste (z.B. eines bestätigten Plans), Hauptthread. Für
+     * {@link #order(Snapshot)} – es gibt keine Auswahl und keine Obergrenzen.
+     */
+    public static Snapshot fixed(Location start, Collection<Shop> shops) {
+        List<Candidate> out = new ArrayList<>(shops.size());
+        for (Shop s : shops) out.add(new Candidate(s, 0));
+        return new Snapshot(start, Collections.emptyMap(), out, 0.0, 0.0, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ordnet genau die Shops des Snapshots (Nearest-Neighbour + 2-opt je Welt), ohne welche
+     * wegzulassen (Worker-Thread-tauglich).
+     *
+     * @return Shops in Besuchsreihenfolge
+     */
+    public static List<Shop> order(Snapshot snap) {
+        return route(snap, snap.candidates);
+    }
+
+    /**
+     * Plant die Route (Worker-Thread-tauglich).
+     *
+     * @return Shops in Besuchsreihenfolge
+     */
+    public static List<Shop> plan(Snapshot snap) {
+        if (snap.isEmpty()) return Collections.emptyList();
+
+        Map<String, List<Candidate>> byWorld = new HashMap<>();
+        for (Candidate c : snap.candidates) byWorld.computeIfAbsent(c.world, k -> new ArrayList<>()).add(c);
+
+        // Pro Material die besten Kandidaten (kombinierte Kosten), weltübergreifend
+        Map<Material, List<Scored>> best = new EnumMap<>(Material.class);
+        List<Candidate> home = byWorld.remove(snap.startWorld);
+        if (home != null) selectNearby(snap, new Grid(home), best);
+        for (List<Candidate> list : byWorld.values()) {
+            for (Candidate c : list) offer(snap, best, c, snap.crossWorldCost);
+        }
+
+        // Gewählte Stopps nach Welt sammeln, global auf maxStops begrenzen (günstigste zuerst)
+        List<Scored> chosen = new ArrayList<>();
+        for (List<Scored> l : best.values()) chosen.addAll(l);
+        chosen.sort(Comparator.comparingDouble(s -> s.cost));
+        if (chosen.size() > snap.maxStops) chosen = chosen.subList(0, snap.maxStops);
+
+        List<Candidate> picked = new ArrayList<>(chosen.size());
+        for (Scored s : chosen) picked.add(s.c);
+        return route(snap, picked);
+    }
+
+    /** Ordnet Stopps: erst die Startwelt, danach fremde Welten (in Reihenfolge der Liste). */
+    private static List<Shop> route(Snapshot snap, List<Candidate> picked) {
+        Map<String, List<Candidate>> stops = new LinkedHashMap<>();
+        stops.put(snap.startWorld, new ArrayList<>());
+        for (Candidate c : picked) stops.computeIfAbsent(c.world, k -> new ArrayList<>()).add(c);
+
+        List<Shop> route = new ArrayList<>(picked.size());
+        for (Map.Entry<String, List<Candidate>> e : stops.entrySet()) {
+            List<Candidate> list = e.getValue();
+            if (list.isEmpty()) continue;
+            boolean startHere = e.getKey().equals(snap.startWorld);
+            // In fremden Welten beginnt die Tour am günstigsten Stopp (Ankunft per Teleport)
+            double[] origin = startHere
+                    ? new double[]{snap.startX, snap.startY, snap.startZ}
+                    : new double[]{list.get(0).x, list.get(0).y, list.get(0).z};
+            List<Candidate> ordered = nearestNeighbour(origin, list);
+            twoOpt(origin, ordered);
+            for (Candidate c : ordered) route.add(c.shop);
+        }
+        return route;
+    }
+
+    /* =================== Auswahl =================== */
+
+    private static final class Scored {
+        final Candidate c;
+        final double cost;
+
+        Scored(Candidate c, double cost) {
+            this.c = c;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * Ringweise Suche um den Startpunkt; bricht ab, sobald kein weiterer Ring mehr gewinnen kann.
+     * {@code max-radius} begrenzt nur die Ringsuche: Können Shops jenseits davon noch gewinnen, werden
+     * die restlichen Zellen einmal direkt geprüft – mit normalen Wegkosten, ausgeschlossen wird keiner.
+     */
+    private static void selectNearby(Snapshot snap, Grid grid, Map<Material, List<Scored>> best) {
+        int cx = Grid.cell(snap.startX);
+        int cz = Grid.cell(snap.startZ);
+        int maxRing = Math.max(grid.extent(cx, cz), 0);
+        int radiusRings = snap.maxRadius / CELL + 1;
+        int lastRing = Math.min(maxRing, radiusRings);
+        int visited = 0;
+
+        for (int r = 0; r <= lastRing && visited < grid.size; r++) {
+            if (r > 1 && cannotImprove(snap, best, grid.minUnitPrice, (r - 1) * (double) CELL)) return;
+            // Nur der Rand des Rings
+            for (int d = -r; d <= r; d++) {
+                visited += visitCell(snap, grid, best, cx + d, cz - r);
+                if (r > 0) visited += visitCell(snap, grid, best, cx + d, cz + r);
+            }
+            for (int d = -r + 1; d <= r - 1; d++) {
+                visited += visitCell(snap, grid, best, cx - r, cz + d);
+                visited += visitCell(snap, grid, best, cx + r, cz + d);
+            }
+        }
+        if (visited >= grid.size || lastRing >= maxRing) return;
+        if (cannotImprove(snap, best, grid.minUnitPrice, lastRing * (double) CELL)) return;
+
+        // Jenseits des Suchradius: verbleibende Zellen einmal linear
+        for (Map.Entry<Long, List<Candidate>> e : grid.cells.entrySet()) {
+            int x = (int) (e.getKey() >> 32), z = (int) (long) e.getKey();
+            if (Math.max(Math.abs(x - cx), Math.abs(z - cz)) <= lastRing) continue; // schon besucht
+            for (Candidate c : e.getValue()) {
+                offer(snap, best, c, distance(snap.startX, snap.startY, snap.startZ, c.x, c.y, c.z) * snap.costPerBlock);
+            }
+        }
+    }
+
+    private static int visitCell(Snapshot snap, Grid grid, Map<Material, List<Scored>> best, int x, int z) {
+        List<Candidate> cell = grid.get(x, z);
+        if (cell == null) return 0;
+        for (Candidate c : cell) {
+            double dist = distance(snap.startX, snap.startY, snap.startZ, c.x, c.y, c.z);
+            offer(snap, best, c, dist * snap.costPerBlock);
+        }
+        return cell.size();
+    }
+
+    /** True wenn jeder Kandidat ab der Mindestentfernung teurer wäre als die bisherige Auswahl. */
+    private static boolean cannotImprove(Snapshot snap, Map<Material, List<Scored>> best,
+                                         Map<Material, Integer> minUnitPrice, double minDist) {
+        for (Map.Entry<Material, Integer> e : snap.needed.entrySet()) {
+            Integer minPrice = minUnitPrice.get(e.getKey());
+            if (minPrice == null) continue; // in dieser Welt nicht vorhanden
+            List<Scored> list = best.get(e.getKey());
+            if (list == null || list.size() < snap.shopsPerMaterial) return false;
+            double bound = (double) minPrice * e.getValue() + minDist * snap.costPerBlock;
+            if (bound < list.get(list.size() - 1).cost) return false;
+        }
+        return true;
+    }
+
+    /** Nimmt den Kandidaten in die Top-k seines Materials auf (aufsteigend sortiert). */
+    private static void offer(Snapshot snap, Map<Material, List<Scored>> best, Candidate c, double travelCost) {
+        int need = snap.needed.getOrDefault(c.material, 0);
+        double cost = (double) c.unitPrice * need + travelCost;
+        List<Scored> list = best.computeIfAbsent(c.material, k -> new ArrayList<>(snap.shopsPerMaterial + 1));
+        if (list.size() >= snap.shopsPerMaterial && cost >= list.get(list.size() - 1).cost) return;
+        int i = list.size();
+        while (i > 0 && list.get(i - 1).cost > cost) i--;
+        list.add(i, new Scored(c, cost));
+        if (list.size() > snap.shopsPerMaterial) list.remove(list.size() - 1);
+    }
+
+    /** Raster über die Kandidaten einer Welt (x/z-Zellen). */
+    private static final class Grid {
+        final Map<Long, List<Candidate>> cells = new HashMap<>();
+        final Map<Material, Integer> minUnitPrice = new EnumMap<>(Material.class);
+        final int size;
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+
+        Grid(List<Candidate> list) {
+            this.size = list.size();
+            for (Candidate c : list) {
+                int x = cell(c.x), z = cell(c.z);
+                cells.computeIfAbsent(key(x, z), k -> new ArrayList<>()).add(c);
+                minUnitPrice.merge(c.material, c.unitPrice, Math::min);
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minZ = Math.min(minZ, z);
+                maxZ = Math.max(maxZ, z);
+            }
+        }
+
+        static int cell(double coord) {
+            return Math.floorDiv((int) Math.floor(coord), CELL);
+        }
+
+        static long key(int x, int z) {
+            return ((long) x << 32) | (z & 0xffffffffL);
+        }
+
+        List<Candidate> get(int x, int z) {
+            return cells.get(key(x, z));
+        }
+
+        /** Größter Ring (Chebyshev-Abstand in Zellen), der noch Kandidaten enthalten kann. */
+        int extent(int cx, int cz) {
+            return Math.max(Math.max(Math.abs(cx - minX), Math.abs(maxX - cx)),
+                    Math.max(Math.abs(cz - minZ), Math.abs(maxZ - cz)));
+        }
+    }
+
+    /* =================== Reihenfolge =================== */
+
+    private static List<Candidate> nearestNeighbour(double[] origin, List<Candidate> stops) {
+        List<Candidate> remaining = new ArrayList<>(stops);
+        List<Candidate> out = new ArrayList<>(stops.size());
+        double x = origin[0], y = origin[1], z = origin[2];
+        while (!remaining.isEmpty()) {
+            int bestIdx = 0;
+            double bestDist = Double.MAX_VALUE;
+            for (int i = 0; i < remaining.size(); i++) {
+                Candidate c = remaining.get(i);
+                double d = distanceSq(x, y, z, c.x, c.y, c.z);
+                if (d < bestDist) {
+                    bestDist = d;
+                    bestIdx = i;
+                }
+            }
+            Candidate next = remaining.remove(bestIdx);
+            out.add(next);
+            x = next.x;
+            y = next.y;
+            z = next.z;
+        }
+        return out;
+    }
+
+    /**
+     * 2-opt für einen offenen Pfad mit festem Startpunkt: kehrt Teilstrecken um,
+     * solange sich die Gesamtstrecke dadurch verkürzt.
+     */
+    private static void twoOpt(double[] origin, List<Candidate> path) {
+        int n = path.size();
+        if (n < 3) return;
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_2OPT_PASSES; pass++) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                double[] a = i == 0 ? origin : point(path.get(i - 1));
+                Candidate b = path.get(i);
+                for (int j = i + 1; j < n; j++) {
+                    Candidate c = path.get(j);
+                    double before = distance(a[0], a[1], a[2], b.x, b.y, b.z);
+                    double after = distance(a[0], a[1], a[2], c.x, c.y, c.z);
+                    if (j + 1 < n) {
+                        Candidate d = path.get(j + 1);
+                        before += distance(c.x, c.y, c.z, d.x, d.y, d.z);
+                        after += distance(b.x, b.y, b.z, d.x, d.y, d.z);
+                    }
+                    if (after + 1e-9 < before) {
+                        Collections.reverse(path.subList(i, j + 1));
+                        b = path.get(i);
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static double[] point(Candidate c) {
+        return new double[]{c.x, c.y, c.z};
+    }
+
+    private static double distanceSq(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double dx = x2 - x1, dy = y2 - y1, dz = z2 - z1;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double distance(double x1, double y1, double z1, double x2, double y2, double z2) {
+        return Math.sqrt(distanceSq(x1, y1, z1, x2, y2, z2));
+    }
+}
@@ -0,0 +1,129 @@
+package de.mcbn.shops.keeper;
+
+import de.mcbn.shops.gui.GuiItems;
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.util.BlockPosKey;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vorgerenderte Shop-Icons für die Keeper-Schaufenster.
+ * <p>
+ * Pro Shop wird ein fertiges Icon (Template-Klon, Lore, Glühen) gehalten. Es gilt, solange Shop,
+ * Preis und angezeigter Bestand gleich bleiben; ändert sich eines davon, wird nur dieses Icon neu
+ * gebaut. Ausgeliefert wird immer eine Kopie, damit GUIs das Icon nicht verändern.
+ */
+public class ShopIconCache {
+
+    private static final class Cached {
+        final Shop shop;
+        final int price;
+        final int items;
+        final boolean pending;
+        final ItemStack icon;
+
+        Cached(Shop shop, int items, boolean pending, ItemStack icon) {
+            this.shop = shop;
+            this.price = shop.price();
+            this.items = items;
+            this.pending = pending;
+            this.icon = icon;
+        }
+
+        boolean matches(Shop s, int items, boolean pending) {
+            return shop == s && price == s.price() && this.items == items && this.pending == pending;
+        }
+    }
+
+    private final Map<BlockPosKey, Cached> icons = new ConcurrentHashMap<>();
+
+    /**
+     * Icon eines Shops.
+     *
+     * @param items Bestand in Items (-1 = unbekannt)
+     * @param pending Chunk wird noch geladen (Bestand vorläufig)
+     */
+    public ItemStack icon(Shop s, int items, boolean pending) {
+        Cached c = icons.get(s.pos());
+        if (c == null || !c.matches(s, items, pending)) {
+            c = new Cached(s, items, pending, render(s, items, pending));
+            icons.put(s.pos(), c);
+        }
+        return c.icon.clone();
+    }
+
+    public void invalidate(BlockPosKey pos) {
+        icons.remove(pos);
+    }
+
+    public void clear() {
+        icons.clear();
+    }
+
+    private static ItemStack render(Shop s, int items, boolean pending) {
+        int stockBundles = items < 0 ? 0 : items / s.bundleAmount();
+        String bundles = stockBundles + " Bundle" + (stockBundles != 1 ? "s" : "");
+
+        // Item-Name mit Farbe (eigener Name bleibt)
+        Component name = GuiItems.name(s.template()).colorIfAbsent(NamedTextColor.AQUA);
+
+        // Lore mit visueller Trennung
+        List<Component> lore = new ArrayList<>();
+        lore.add(Component.empty());
+        lore.add(GuiItems.label("▸ Bundle-Größe", s.bundleAmount() + " Stück"));
+        lore.add(GuiItems.text("▸ Preis: ", NamedTextColor.GRAY)
+                .append(Component.text(s.price() + "x ", NamedTextColor.GOLD))
+                .append(GuiItems.name(s.currency()).color(NamedTextColor.YELLOW)));
+        lore.add(Component.empty());
+
+        // Bestand mit Farb-Indikator
+        if (pending) {
+            lore.add(GuiItems.text("▸ Vorrat: ", NamedTextColor.GRAY).append(Component.text("lädt…"
+                    + (items < 0 ? "" : " (zuletzt " + bundles + ")"), NamedTextColor.DARK_GRAY)));
+        } else {
+            Component stock = Component.text(getStockIcon(stockBundles) + " " + bundles, getStockColor(stockBundles));
+            if (stockBundles == 0 || stockBundles >= 20) stock = stock.decorate(TextDecoration.BOLD);
+            lore.add(GuiItems.text("▸ Vorrat: ", NamedTextColor.GRAY).append(stock));
+        }
+        lore.add(Component.empty());
+        lore.add(GuiItems.text("» Linksklick: 1 Bundle kaufen «", NamedTextColor.DARK_GRAY));
+        lore.add(GuiItems.text("» Rechtsklick: Menge wählen «", NamedTextColor.DARK_GRAY));
+        lore.add(GuiItems.text(s.pos().toString(), NamedTextColor.DARK_GRAY).decorate(TextDecoration.ITALIC));
+
+        ItemStack it = GuiItems.named(s.template(), name, lore.toArray(new Component[0]));
+
+        // Glühen für gut gefüllte Shops
+        if (!pending && stockBundles >= 10) {
+            ItemMeta meta = it.getItemMeta();
+            meta.addEnchant(org.bukkit.enchantments.Enchantment.LURE, 1, true);
+            meta.addItemFlags(org.bukkit.inventory.ItemFlag.HIDE_ENCHANTS);
+            it.setItemMeta(meta);
+        }
+        return it;
+    }
+
+
+    private static TextColor getStockColor(int bundles) {
+        if (bundles < 3) return NamedTextColor.RED;
+        if (bundles < 10) return NamedTextColor.YELLOW;
+        if (bundles < 20) return NamedTextColor.GREEN;
+        return NamedTextColor.DARK_GREEN;
+    }
+
+    private static String getStockIcon(int bundles) {
+        if (bundles == 0) return "✗";
+        if (bundles < 3) return "▁";
+        if (bundles < 10) return "▄";
+        if (bundles < 20) return "▆";
+        return "█";
+    }
+}
@@ -7,13 +7,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
-/** Repräsentiert einen Shopkeeper (Villager), der mehrere Behälter-Shops bedient. */
+/**
+ * Repräsentiert einen Shopkeeper, der mehrere Behälter-Shops bedient.
+ * Der Keeper existiert als Datensatz; der Villager wird nur bei Bedarf gespawnt (siehe {@link KeeperManager}).
+ */
 public class ShopKeeper {
-    private final UUID uuid;     // Entity UUID
+    private final UUID uuid;     // Keeper-ID (bei alten Keepern = ursprüngliche Entity UUID)
     private final UUID owner;    // Besitzer
     private final String world;
     private final int x, y, z;   // Spawnposition (für Teleport/Restore)
     private final List<BlockPosKey> linked = new ArrayList<>();
+    private UUID entityId;       // aktuell gespawnter Villager, null = virtuell
 
     public ShopKeeper(UUID uuid, UUID owner, String world, int x, int y, int z) {
         this.uuid = uuid; this.owner = owner; this.world = world; this.x = x; this.y = y; this.z = z;
@@ -25,6 +29,12 @@ public class ShopKeeper {
     public int x() { return x; }
     public int y() { return y; }
     public int z() { return z; }
+    public int chunkX() { return x >> 4; }
+    public int chunkZ() { return z >> 4; }
+
+    /** UUID des gerade gespawnten Villagers oder null, wenn der Keeper nur als Datensatz existiert. */
+    public UUID entityId() { return entityId; }
+    void entityId(UUID entityId) { this.entityId = entityId; }
 
     public List<BlockPosKey> linked() { return Collections.unmodifiableList(linked); }
     public void add(BlockPosKey key) { if (!linked.contains(key)) linked.add(key); }
@@ -0,0 +1,204 @@
+package de.mcbn.shops.keeper;
+
+import de.mcbn.shops.Main;
+import de.mcbn.shops.order.OrderPlan;
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.shop.ShopManager;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Teilt eine Bestellung auf alle freien Shopkeeper eines Besitzers auf.
+ * <p>
+ * Die Shops des Plans werden nach Region verteilt: jeder Shop geht an den nächstgelegenen Keeper,
+ * solange dieser noch Kapazität hat ({@code ceil(Shops / Keeper)}). Die Teilrouten laufen
+ * gleichzeitig über den gemeinsamen {@link KeeperMovementDriver}; alle Keeper kaufen gegen dieselbe
+ * {@link de.mcbn.shops.order.PurchaseOrder}, bereits erfüllte Mengen werden also nicht doppelt gekauft.
+ * Jeder Shop liefert höchstens die im bestätigten Plan vorgesehenen Bundles.
+ * Der Fortschritt aller Keeper wird in einer gemeinsamen BossBar angezeigt.
+ */
+public class ShopperFleet implements ShopperTask.Progress {
+
+    private final Main plugin;
+    private final KeeperManager keepers;
+    private final ShopManager shops;
+    private final OrderPlan plan;
+    private final List<ShopKeeper> members;
+
+    private final Set<ShopperTask> running = new HashSet<>();
+    private UUID requesterId;
+    private BossBar bar;
+    private int totalStops;
+    private int doneStops;
+    private long startedAt;
+
+    ShopperFleet(Main plugin, KeeperManager keepers, ShopManager shops, OrderPlan plan, List<ShopKeeper> members) {
+        this.plugin = plugin;
+        this.keepers = keepers;
+        this.shops = shops;
+        this.plan = plan;
+        this.members = new ArrayList<>(members);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /** Startet alle Teilrouten (Villager laufen). */
+    public void walk(Player requester) {
+        requesterId = requester.getUniqueId();
+        startedAt = System.currentTimeMillis();
+
+        List<ShopKeeper> available = new ArrayList<>();
+        List<Location> origins = new ArrayList<>();
+        for (ShopKeeper k : members) {
+            if (k.entityId() != null && keepers.movement().isMoving(k.entityId())) continue;
+            Entity e = keepers.materialize(k);
+            if (e == null) continue;
+            available.add(k);
+            origins.add(e.getLocation());
+        }
+        if (available.isEmpty()) {
+            requester.sendMessage("§cKein freier Shopkeeper verfügbar.");
+            return;
+        }
+
+        List<List<Shop>> parts = partition(plan.shops(), origins);
+        bar = Bukkit.createBossBar(ChatColor.GREEN + "Einkaufsreise wird geplant…", BarColor.GREEN, BarStyle.SEGMENTED_10);
+        bar.setProgress(0.0);
+        bar.addPlayer(requester);
+
+        List<ShopperTask> tasks = new ArrayList<>();
+        for (int i = 0; i < available.size(); i++) {
+            if (parts.get(i).isEmpty()) continue;
+            ShopperTask task = new ShopperTask(plugin, keepers, shops, plan.order(), available.get(i));
+            task.setProgress(this);
+            running.add(task);
+            tasks.add(task);
+        }
+        requester.sendMessage("§aEinkaufsreise gestartet mit §f" + tasks.size() + "§a Shopkeeper(n).");
+        for (ShopperTask task : tasks) {
+            task.start(requester, plan, parts.get(available.indexOf(task.keeper())));
+        }
+    }
+
+    /** Sofortkauf über den Keeper, der den geplanten Shops am nächsten steht (ohne Laufen, daher ohne Aufteilung). */
+    public void instant(Player requester) {
+        new ShopperTask(plugin, keepers, shops, plan.order(), nearest(plan.shops())).startInstant(requester, plan);
+    }
+
+    /** Keeper mit der kleinsten Summe der Entfernungen zu den Shops (gespeicherte Position, ohne Entity). */
+    private ShopKeeper nearest(List<Shop> list) {
+        ShopKeeper best = members.get(members.size() - 1);
+        double bestSum = Double.MAX_VALUE;
+        for (ShopKeeper k : members) {
+            Location origin = new Location(Bukkit.getWorld(k.world()), k.x(), k.y(), k.z());
+            double sum = 0;
+            for (Shop s : list) sum += Math.sqrt(distanceSq(s, origin));
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    /* =================== Fortschritt =================== */
+
+    @Override
+    public void planned(ShopperTask task, int stops) {
+        totalStops += stops;
+        update();
+    }
+
+    @Override
+    public void step(ShopperTask task) {
+        doneStops++;
+        update();
+    }
+
+    @Override
+    public void finished(ShopperTask task) {
+        if (!running.remove(task)) return;
+        if (!running.isEmpty()) {
+            update();
+            return;
+        }
+        if (bar != null) bar.removeAll();
+        Player requester = Bukkit.getPlayer(requesterId);
+        if (requester != null) {
+            long seconds = (System.currentTimeMillis() - startedAt) / 1000L;
+            requester.sendMessage("§aEinkaufsreise beendet: §f" + doneStops + "§a Wegpunkte in §f" + seconds + "s§a.");
+        }
+    }
+
+    private void update() {
+        if (bar == null) return;
+        bar.setTitle(ChatColor.GREEN + "Einkauf: " + ChatColor.WHITE + doneStops + "/" + totalStops
+                + ChatColor.GREEN + " Wegpunkte · " + ChatColor.WHITE + running.size() + ChatColor.GREEN + " Keeper unterwegs");
+        bar.setProgress(totalStops <= 0 ? 0.0 : Math.min(1.0, doneStops / (double) totalStops));
+    }
+
+    /* =================== Aufteilung =================== */
+
+    /**
+     * Verteilt Shops regional auf Keeper: Paare (Shop, Keeper) nach Entfernung sortiert,
+     * jeder Shop geht an den nächsten Keeper mit freier Kapazität.
+     */
+    static List<List<Shop>> partition(List<Shop> list, List<Location> origins) {
+        int k = origins.size();
+        List<List<Shop>> parts = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) parts.add(new ArrayList<>());
+        if (list.isEmpty()) return parts;
+        if (k == 1) {
+            parts.get(0).addAll(list);
+            return parts;
+        }
+
+        int capacity = (list.size() + k - 1) / k;
+        int n = list.size();
+        double[] dist = new double[n * k];
+        Integer[] order = new Integer[n * k];
+        for (int s = 0; s < n; s++) {
+            Shop shop = list.get(s);
+            for (int o = 0; o < k; o++) {
+                int idx = s * k + o;
+                dist[idx] = distanceSq(shop, origins.get(o));
+                order[idx] = idx;
+            }
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> dist[i]));
+
+        boolean[] assigned = new boolean[n];
+        int[] load = new int[k];
+        int left = n;
+        for (Integer idx : order) {
+            if (left == 0) break;
+            int s = idx / k, o = idx % k;
+            if (assigned[s] || load[o] >= capacity) continue;
+            assigned[s] = true;
+            load[o]++;
+            left--;
+            parts.get(o).add(list.get(s));
+        }
+        return parts;
+    }
+
+    private static double distanceSq(Shop s, Location origin) {
+        if (origin.getWorld() == null || !origin.getWorld().getName().equals(s.pos().world)) {
+            return Double.MAX_VALUE / 4; // andere Welt: nur wenn sonst niemand Kapazität hat
+        }
+        double dx = s.pos().x - origin.getX();
+        double dy = s.pos().y - origin.getY();
+        double dz = s.pos().z - origin.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -1,14 +1,15 @@
 package de.mcbn.shops.keeper;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.order.OrderPlan;
 import de.mcbn.shops.order.PurchaseOrder;
 import de.mcbn.shops.shop.Shop;
-import de.mcbn.shops.shop.ShopCommands;
 import de.mcbn.shops.shop.ShopManager;
 import de.mcbn.shops.util.InventoryUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
@@ -29,7 +30,17 @@ public class ShopperTask {
     private final ShopManager shops;
     private final PurchaseOrder order;
     private final ShopKeeper keeper;
-    private int taskId = -1;
+    /** Fortschritts-Empfänger (z.B. {@link ShopperFleet}); null = eigene Chat-Meldungen. */
+    private Progress progress;
+    /** Bestätigter Plan: begrenzt die Menge je Shop; null = frei nach Bedarf kaufen. */
+    private OrderPlan plan;
+
+    /** Fortschritt einer Reise, Meldungen kommen auf dem Hauptthread. */
+    interface Progress {
+        void planned(ShopperTask task, int stops);
+        void step(ShopperTask task);
+        void finished(ShopperTask task);
+    }
 
     public ShopperTask(Main plugin, KeeperManager keepers, ShopManager shops, PurchaseOrder order, ShopKeeper keeper) {
         this.plugin = plugin;
@@ -39,90 +50,156 @@ public class ShopperTask {
         this.keeper = keeper;
     }
 
+    void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    ShopKeeper keeper() {
+        return keeper;
+    }
+
+    /** Startet eine Reise über alle Shops; der {@link RoutePlanner} wählt die Stopps aus. */
     public void start(Player requester) {
-        Entity e = keepers.findEntity(keeper.uuid());
+        Villager v = villager(requester);
+        if (v == null) return;
+        RoutePlanner.Snapshot snap = RoutePlanner.snapshot(v.getLocation(), order, shops.all(), plugin.getConfig());
+        launch(v, requester, snap, false);
+    }
+
+    /**
+     * Startet die Reise über genau die angegebenen Shops eines bestätigten {@link OrderPlan}.
+     * Es wird nur die Reihenfolge geplant, kein Shop wird weggelassen; je Shop wird höchstens
+     * die geplante Bundle-Anzahl gekauft.
+     */
+    public void start(Player requester, OrderPlan plan, Collection<Shop> planned) {
+        this.plan = plan;
+        Villager v = villager(requester);
+        if (v == null) return;
+        launch(v, requester, RoutePlanner.fixed(v.getLocation(), planned), true);
+    }
+
+    private Villager villager(Player requester) {
+        Entity e = keepers.materialize(keeper);
         if (!(e instanceof Villager)) {
             requester.sendMessage("§cShopkeeper-Entity nicht gefunden.");
+            abort();
+            return null;
+        }
+        return (Villager) e;
+    }
+
+    private void launch(Villager v, Player requester, RoutePlanner.Snapshot snap, boolean fixed) {
+        if (snap.isEmpty()) {
+            if (progress == null) requester.sendMessage("§7Keine passenden Shops für deine Einkaufsliste gefunden.");
+            abort();
             return;
         }
-        Villager v = (Villager) e;
+        // PERFORMANCE FIX: Nur der Snapshot entsteht auf dem Hauptthread, die Planung
+        // (Raster-Suche, Kostenfunktion, 2-opt) läuft asynchron
+        UUID requesterId = requester.getUniqueId();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<Shop> planned = fixed ? RoutePlanner.order(snap) : RoutePlanner.plan(snap);
+            Bukkit.getScheduler().runTask(plugin, () -> begin(v, planned, requesterId));
+        });
+    }
 
-        List<RouteStep> route = buildRoute(v.getLocation(), order);
+    private void begin(Villager v, List<Shop> planned, UUID requesterId) {
+        Player requester = Bukkit.getPlayer(requesterId);
+        if (requester == null) {
+            abort();
+            return;
+        }
+        if (v.isDead() || !v.isValid()) {
+            requester.sendMessage("§cShopkeeper-Entity nicht gefunden.");
+            abort();
+            return;
+        }
+        List<RouteStep> route = new ArrayList<>(planned.size());
+        for (Shop s : planned) {
+            // Shop könnte während der Planung entfernt worden sein
+            if (shops.get(s.pos().toLocation().getBlock()).orElse(null) == s) route.add(step(s));
+        }
         if (route.isEmpty()) {
-            requester.sendMessage("§7Keine passenden Shops für deine Einkaufsliste gefunden.");
+            if (progress == null) requester.sendMessage("§7Keine passenden Shops für deine Einkaufsliste gefunden.");
+            abort();
             return;
         }
-        requester.sendMessage("§aEinkaufsreise gestartet. Wegpunkte: §f" + route.size());
+        if (progress != null) progress.planned(this, route.size());
+        else requester.sendMessage("§aEinkaufsreise gestartet. Wegpunkte: §f" + route.size());
         final Iterator<RouteStep> it = route.iterator();
         proceedToNextWaypoint(v, it, requester);
     }
 
+    /**
+     * Sofortkauf ohne Laufen: führt die Käufe eines bestätigten Plans nacheinander aus.
+     * Ungeladene Chunks werden asynchron geladen, bevor die Kiste gelesen wird.
+     */
+    public void startInstant(Player requester, OrderPlan plan) {
+        this.plan = plan;
+        List<Shop> planned = plan.shops();
+        requester.sendMessage("§aSofortkauf gestartet. Shops: §f" + planned.size());
+        proceedInstant(planned.iterator(), requester.getUniqueId());
+    }
+
+    private void proceedInstant(Iterator<Shop> it, UUID requesterId) {
+        Player requester = Bukkit.getPlayer(requesterId);
+        if (requester == null) return;
+        if (!it.hasNext()) {
+            requester.sendMessage("§aSofortkauf beendet.");
+            return;
+        }
+        Shop s = it.next();
+        World w = Bukkit.getWorld(s.pos().world);
+        if (w == null) {
+            proceedInstant(it, requesterId);
+            return;
+        }
+        w.getChunkAtAsync(s.pos().x >> 4, s.pos().z >> 4).whenComplete((chunk, ex) -> {
+            // Paper schließt das Future auf dem Hauptthread ab
+            Player p = Bukkit.getPlayer(requesterId);
+            if (p == null) return;
+            if (ex == null && shops.get(s.pos().toLocation().getBlock()).orElse(null) == s) {
+                performPurchaseAt(step(s), p);
+            }
+            proceedInstant(it, requesterId);
+        });
+    }
+
     private void proceedToNextWaypoint(Villager v, Iterator<RouteStep> it, Player requester) {
         if (!it.hasNext()) {
-            requester.sendMessage("§aEinkaufsreise beendet.");
+            finish(requester);
             return;
         }
         final RouteStep step = it.next();
-        moveVillager(v, step.loc, () -> {
+        UUID requesterId = requester.getUniqueId();
+        keepers.movement().move(v, step.loc, () -> {
             performPurchaseAt(step, requester);
+            if (progress != null) progress.step(this);
             proceedToNextWaypoint(v, it, requester);
-        });
+        }, () -> interrupted(requesterId));
     }
 
-    private void moveVillager(Villager v, Location target, Runnable onArrive) {
-        final Location targetFinal = target.clone(); // final Kopie
-        final double step = Math.max(0.2, plugin.getConfig().getDouble("shopkeepers.walk-speed", 0.20));
-        final int fallback = Math.max(1, plugin.getConfig().getInt("shopkeepers.step-teleport-fallback", 4));
+    /** Villager ist unterwegs verschwunden (entladen, entfernt) oder die Bewegung wurde abgebrochen. */
+    private void interrupted(UUID requesterId) {
+        Player requester = Bukkit.getPlayer(requesterId);
+        if (requester != null) requester.sendMessage("§cEinkaufsreise abgebrochen: Shopkeeper ist nicht mehr unterwegs.");
+        if (progress != null) progress.finished(this);
+    }
 
-        // MEMORY LEAK FIX: Cancle alten Task bevor neuer erstellt wird
-        // Verhindert dass alte Tasks weiterlaufen
-        if (taskId != -1) {
-            Bukkit.getScheduler().cancelTask(taskId);
-            taskId = -1;
-        }
-        taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, new Runnable() {
-            int ticks = 0;
-            @Override public void run() {
-                if (v.isDead() || !v.isValid()) { Bukkit.getScheduler().cancelTask(taskId); return; }
-                Location cur = v.getLocation();
-                if (cur.getWorld() != targetFinal.getWorld()) {
-                    v.teleport(targetFinal);
-                    Bukkit.getScheduler().cancelTask(taskId);
-                    onArrive.run();
-                    return;
-                }
-
-                double dx = targetFinal.getX() - cur.getX();
-                double dy = targetFinal.getY() - cur.getY();
-                double dz = targetFinal.getZ() - cur.getZ();
-                double distSq = dx*dx + dy*dy + dz*dz;
-                if (distSq < 1.0) {
-                    Bukkit.getScheduler().cancelTask(taskId);
-                    onArrive.run();
-                    return;
-                }
-                if (ticks % 2 == 0) {
-                    double len = Math.sqrt(distSq);
-                    Location next = new Location(cur.getWorld(),
-                            cur.getX() + (dx/len)*step,
-                            cur.getY() + (dy/len)*step,
-                            cur.getZ() + (dz/len)*step);
-                    v.teleport(next);
-                }
-                ticks++;
-                if (ticks % (fallback*5) == 0) {
-                    Location mid = cur.clone().add(dx*0.5, 0, dz*0.5);
-                    int y = cur.getWorld().getHighestBlockYAt(mid);
-                    v.teleport(new Location(cur.getWorld(), mid.getX(), y + 1, mid.getZ()));
-                }
-            }
-        }, 1L, 1L);
+    private void finish(Player requester) {
+        if (progress != null) progress.finished(this);
+        else requester.sendMessage("§aEinkaufsreise beendet.");
+    }
+
+    /** Reise kam nicht zustande (Meldung an den Spieler erfolgt vorher). */
+    private void abort() {
+        if (progress != null) progress.finished(this);
     }
 
     private void performPurchaseAt(RouteStep step, Player requester) {
         Material mat = step.shop.template().getType();
         int stillNeeded = order.wanted().getOrDefault(mat, 0);
-        if (stillNeeded <= 0) return;
+        if (stillNeeded <= 0 || !order.accepts(step.shop.template())) return;
 
         int maxPerItem = order.maxPrice().getOrDefault(mat, 0);
         int perItemCost = (int) Math.ceil(step.shop.price() / (double) step.shop.bundleAmount());
@@ -136,10 +213,14 @@ public class ShopperTask {
         if (!invOpt.isPresent()) return;
 
         int stockItems = InventoryUtils.countSimilar(invOpt.get(), step.shop.template());
+        shops.stock().put(step.shop.pos(), stockItems);
         int stockBundles = stockItems / step.shop.bundleAmount();
         if (stockBundles <= 0) return;
 
         int bundlesNeeded = (int) Math.ceil(stillNeeded / (double) step.shop.bundleAmount());
+        // BUGFIX: Mit bestätigtem Plan nur die dort vorgesehene Menge kaufen – sonst füllt der zuerst
+        // erreichte (evtl. teurere) Shop den ganzen Bedarf und der bestätigte Gesamtpreis stimmt nicht
+        if (step.bundles >= 0) bundlesNeeded = Math.min(bundlesNeeded, step.bundles);
         int bundlesToBuy = Math.min(bundlesNeeded, stockBundles);
         if (bundlesToBuy <= 0) return;
 
@@ -161,42 +242,29 @@ public class ShopperTask {
             return;
         }
 
-        new ShopCommands(plugin, shops, plugin.prompts()).performPurchase(owner, b, step.shop, bundlesToBuy);
+        if (!plugin.purchases().performPurchase(owner, b, step.shop, bundlesToBuy)) return;
         InventoryUtils.removeMaterial(owner.getInventory(), step.shop.currency(), fee);
 
         int itemsBought = step.shop.bundleAmount() * bundlesToBuy;
         int remaining = Math.max(0, stillNeeded - itemsBought);
         order._setRemaining(mat, remaining);
+        plugin.orders().progress(order); // erfüllte Orders verlassen den Speicher
         requester.sendMessage("§aGekauft: §f" + itemsBought + "x " + mat.name() + " §7für §b" + totalPrice + " + Gebühr " + fee);
     }
 
+    private RouteStep step(Shop s) {
+        return new RouteStep(s, plan == null ? -1 : plan.bundles(s));
+    }
+
     private static class RouteStep {
         final Shop shop;
         final Location loc;
-        RouteStep(Shop s) { this.shop = s; this.loc = s.pos().toLocation().add(0.5, 1, 0.5); }
-    }
-
-    private List<RouteStep> buildRoute(Location start, PurchaseOrder order) {
-        List<Shop> candidates = new ArrayList<>();
-        for (Shop s : shops.all())
-            if (order.wanted().containsKey(s.template().getType())) candidates.add(s);
-        if (candidates.isEmpty()) return Collections.emptyList();
-
-        candidates.sort(Comparator.comparingInt(Shop::price));
-        List<RouteStep> route = new ArrayList<>();
-        Location cur = start.clone();
-        List<Shop> remaining = new ArrayList<>(candidates);
-
-        while (!remaining.isEmpty()) {
-            final Location curFinal = cur.clone(); // <- final Kopie für Lambda
-            Shop next = remaining.stream()
-                    .min(Comparator.comparingDouble(s -> s.pos().toLocation().distanceSquared(curFinal)))
-                    .orElse(null);
-            if (next == null) break;
-            route.add(new RouteStep(next));
-            cur = next.pos().toLocation();
-            remaining.remove(next);
+        /** Geplante Bundles, -1 = ohne Plan. */
+        final int bundles;
+        RouteStep(Shop s, int bundles) {
+            this.shop = s;
+            this.loc = s.pos().toLocation().add(0.5, 1, 0.5);
+            this.bundles = bundles;
         }
-        return route;
     }
 }
@@ -0,0 +1,166 @@
+package de.mcbn.shops.market;
+
+import org.bukkit.Material;
+
+import java.util.Arrays;
+
+/**
+ * Inkrementelle Statistik eines Materials.
+ * <p>
+ * Abschlüsse landen in Ringpuffern fester Größe (60 Minuten- und 168 Stunden-Buckets). Für jedes
+ * Fenster werden Volumen, Umsatz und ein Preis-Histogramm laufend mitgeführt: neue Abschlüsse
+ * werden addiert, aus dem Fenster fallende Buckets subtrahiert. Abfragen scannen daher nie
+ * einzelne Trades, und der Speicherbedarf ist pro Material begrenzt. Minuten- und Stunden-Buckets
+ * werden erst beim ersten Abschluss in ihrem Zeitraum angelegt und beim Herausfallen wieder
+ * verworfen – selten gehandelte Materialien belegen also nur die drei Fenster-Buckets.
+ */
+final class MaterialStats {
+
+    /** Histogramm-Klassen: 3 pro Preisverdopplung, von 2^-6 bis 2^14 pro Stück. */
+    static final int BINS = 60;
+    private static final int BINS_PER_DOUBLING = 3;
+    private static final int MIN_EXP = -6;
+
+    private static final int MINUTES = 60;
+    private static final int HOURS = 168;
+    private static final int DAY_HOURS = 24;
+
+    private static final class Bucket {
+        long volume;
+        double value;
+        int trades;
+        final long[] hist = new long[BINS];
+
+        void add(int bin, long qty, double total, int count) {
+            volume += qty;
+            value += total;
+            trades += count;
+            hist[bin] += qty;
+        }
+
+        void addAll(Bucket b, int sign) {
+            volume += sign * b.volume;
+            value += sign * b.value;
+            trades += sign * b.trades;
+            for (int i = 0; i < BINS; i++) hist[i] += sign * b.hist[i];
+            if (volume <= 0) clear();
+        }
+
+        void clear() {
+            volume = 0;
+            value = 0;
+            trades = 0;
+            Arrays.fill(hist, 0);
+        }
+    }
+
+    private final Material material;
+    private final Bucket[] minutes = new Bucket[MINUTES];
+    private final Bucket[] hours = new Bucket[HOURS];
+    private final Bucket hourWindow = new Bucket();
+    private final Bucket dayWindow = new Bucket();
+    private final Bucket weekWindow = new Bucket();
+    private long lastMinute = Long.MIN_VALUE;
+    private long lastHour = Long.MIN_VALUE;
+
+    MaterialStats(Material material) {
+        this.material = material;
+    }
+
+    /** Bucket eines Slots, bei Bedarf angelegt. */
+    private static Bucket slot(Bucket[] ring, int i) {
+        Bucket b = ring[i];
+        if (b == null) ring[i] = b = new Bucket();
+        return b;
+    }
+
+    synchronized void record(long time, long quantity, double totalPrice) {
+        if (quantity <= 0) return;
+        advance(time);
+        long minute = time / 60_000L;
+        long hour = time / 3_600_000L;
+        // Verspätete Einträge außerhalb der Fenster ignorieren
+        if (hour <= lastHour - HOURS) return;
+
+        int bin = binOf(totalPrice / quantity);
+        slot(hours, (int) Math.floorMod(hour, (long) HOURS)).add(bin, quantity, totalPrice, 1);
+        weekWindow.add(bin, quantity, totalPrice, 1);
+        if (hour > lastHour - DAY_HOURS) dayWindow.add(bin, quantity, totalPrice, 1);
+        if (minute > lastMinute - MINUTES) {
+            slot(minutes, (int) Math.floorMod(minute, (long) MINUTES)).add(bin, quantity, totalPrice, 1);
+            hourWindow.add(bin, quantity, totalPrice, 1);
+        }
+    }
+
+    synchronized PriceStats snapshot(PriceWindow window, long now) {
+        advance(now);
+        Bucket w;
+        switch (window) {
+            case HOUR: w = hourWindow; break;
+            case DAY:  w = dayWindow; break;
+            default:   w = weekWindow; break;
+        }
+        if (w.volume <= 0) return new PriceStats(material, window, 0, 0, 0, 0);
+        return new PriceStats(material, window, w.volume, w.trades, w.value / w.volume, median(w));
+    }
+
+    /** Schiebt die Fenster auf den aktuellen Zeitpunkt und zieht herausgefallene Buckets ab. */
+    private void advance(long now) {
+        long minute = now / 60_000L;
+        long hour = now / 3_600_000L;
+
+        if (lastMinute == Long.MIN_VALUE || minute - lastMinute >= MINUTES) {
+            Arrays.fill(minutes, null);
+            hourWindow.clear();
+            lastMinute = minute;
+        } else {
+            while (lastMinute < minute) {
+                lastMinute++;
+                // Der Slot der neuen Minute enthält noch die Minute von vor einer Stunde
+                int i = (int) Math.floorMod(lastMinute, (long) MINUTES);
+                if (minutes[i] == null) continue;
+                hourWindow.addAll(minutes[i], -1);
+                minutes[i] = null;
+            }
+        }
+
+        if (lastHour == Long.MIN_VALUE || hour - lastHour >= HOURS) {
+            Arrays.fill(hours, null);
+            dayWindow.clear();
+            weekWindow.clear();
+            lastHour = hour;
+        } else {
+            while (lastHour < hour) {
+                lastHour++;
+                Bucket leavingDay = hours[(int) Math.floorMod(lastHour - DAY_HOURS, (long) HOURS)];
+                if (leavingDay != null) dayWindow.addAll(leavingDay, -1);
+                int i = (int) Math.floorMod(lastHour, (long) HOURS);
+                if (hours[i] == null) continue;
+                weekWindow.addAll(hours[i], -1);
+                hours[i] = null;
+            }
+        }
+    }
+
+    static int binOf(double unitPrice) {
+        if (unitPrice <= 0) return 0;
+        double exp = Math.log(unitPrice) / Math.log(2);
+        int bin = (int) Math.floor((exp - MIN_EXP) * BINS_PER_DOUBLING);
+        return Math.max(0, Math.min(BINS - 1, bin));
+    }
+
+    /** Geometrische Mitte einer Histogramm-Klasse. */
+    private static double binCenter(int bin) {
+        return Math.pow(2, (bin + 0.5) / BINS_PER_DOUBLING + MIN_EXP);
+    }
+
+    private static double median(Bucket w) {
+        long half = (w.volume + 1) / 2;
+        long cumulative = 0;
+        for (int i = 0; i < BINS; i++) {
+            cumulative += w.hist[i];
+            if (cumulative >= half) return binCenter(i);
+        }
+        return w.value / w.volume;
+    }
+}
@@ -0,0 +1,220 @@
+package de.mcbn.shops.market;
+
+import de.mcbn.shops.Main;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Preis-Historie aller Abschlüsse (Auktionen und Shop-Käufe).
+ * <p>
+ * Jeder Abschluss wird an eine Tagesdatei {@code history/trades-YYYY-MM-DD.log} angehängt
+ * (gepuffert, asynchron geschrieben) und in die {@link MaterialStats} des Materials eingerechnet.
+ * Beim Start werden nur die Dateien der letzten 7 Tage eingelesen; ältere Dateien werden nach
+ * {@code market.history-retention-days} gelöscht.
+ */
+public class PriceHistory {
+
+    /** Herkunft eines Abschlusses (wird mitgeloggt). */
+    public enum Source { AUCTION, SHOP }
+
+    private static final long WEEK_MILLIS = 7L * 86_400_000L;
+    private static final String PREFIX = "trades-";
+    private static final String SUFFIX = ".log";
+
+    private final Main plugin;
+    private final File dir;
+    private final Map<Material, MaterialStats> stats = new EnumMap<>(Material.class);
+    private final List<String> pending = new ArrayList<>();
+    private BukkitTask flushTask;
+
+    public PriceHistory(Main plugin) {
+        this.plugin = plugin;
+        this.dir = new File(plugin.getDataFolder(), "history");
+    }
+
+    /* =================== Lebenszyklus =================== */
+
+    /** Liest die Abschlüsse der letzten 7 Tage ein und räumt alte Tagesdateien auf. */
+    public void load() {
+        synchronized (stats) {
+            stats.clear();
+        }
+        if (!dir.exists()) return;
+
+        int retentionDays = plugin.getConfig().getInt("market.history-retention-days", 90);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        long since = System.currentTimeMillis() - WEEK_MILLIS;
+        int replayed = 0;
+
+        for (int d = 7; d >= 0; d--) {
+            File f = fileFor(today.minusDays(d));
+            if (!f.exists()) continue;
+            try (BufferedReader in = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (replay(line, since)) replayed++;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Fehler beim Lesen von " + f.getName() + ": " + e.getMessage());
+            }
+        }
+
+        if (retentionDays > 0) {
+            LocalDate cutoff = today.minusDays(retentionDays);
+            File[] files = dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+            if (files != null) {
+                for (File f : files) {
+                    try {
+                        LocalDate day = LocalDate.parse(f.getName().substring(PREFIX.length(), f.getName().length() - SUFFIX.length()));
+                        if (day.isBefore(cutoff) && !f.delete()) {
+                            plugin.getLogger().warning("Konnte alte Preis-Historie nicht löschen: " + f.getName());
+                        }
+                    } catch (RuntimeException ignored) {
+                        // Fremde Datei im Ordner
+                    }
+                }
+            }
+        }
+        plugin.getLogger().fine("Preis-Historie geladen: " + replayed + " Abschlüsse der letzten 7 Tage");
+    }
+
+    /** Startet das periodische, asynchrone Wegschreiben des Puffers. */
+    public void start() {
+        stop();
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, 600L, 600L);
+    }
+
+    /** Stoppt den Flush-Task und schreibt den Rest synchron. */
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+    }
+
+    /* =================== Erfassen =================== */
+
+    /**
+     * Erfasst einen Abschluss.
+     *
+     * @param material gehandeltes Material
+     * @param quantity Stückzahl
+     * @param totalPrice Gesamtpreis in Währungseinheiten
+     */
+    public void record(Material material, int quantity, int totalPrice, Source source) {
+        if (material == null || quantity <= 0 || totalPrice < 0) return;
+        long now = System.currentTimeMillis();
+        statsFor(material).record(now, quantity, totalPrice);
+        synchronized (pending) {
+            pending.add(now + ";" + material.name() + ";" + quantity + ";" + totalPrice + ";" + source.name());
+        }
+    }
+
+    private MaterialStats statsFor(Material material) {
+        synchronized (stats) {
+            return stats.computeIfAbsent(material, MaterialStats::new);
+        }
+    }
+
+    private boolean replay(String line, long since) {
+        String[] p = line.split(";");
+        if (p.length < 4) return false;
+        try {
+            long time = Long.parseLong(p[0]);
+            if (time < since) return false;
+            Material mat = Material.matchMaterial(p[1]);
+            if (mat == null) return false;
+            statsFor(mat).record(time, Integer.parseInt(p[2]), Integer.parseInt(p[3]));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** Hängt gepufferte Abschlüsse an die jeweiligen Tagesdateien an. */
+    public void flush() {
+        List<String> lines;
+        synchronized (pending) {
+            if (pending.isEmpty()) return;
+            lines = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            plugin.getLogger().severe("Konnte Ordner für Preis-Historie nicht anlegen: " + dir);
+            return;
+        }
+
+        // Nach Tag gruppieren (Trades um Mitternacht)
+        Map<LocalDate, List<String>> byDay = new TreeMap<>();
+        for (String line : lines) {
+            long time = Long.parseLong(line.substring(0, line.indexOf(';')));
+            LocalDate day = Instant.ofEpochMilli(time).atZone(ZoneOffset.UTC).toLocalDate();
+            byDay.computeIfAbsent(day, k -> new ArrayList<>()).add(line);
+        }
+        for (Map.Entry<LocalDate, List<String>> e : byDay.entrySet()) {
+            try {
+                Files.write(fileFor(e.getKey()).toPath(), e.getValue(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException ex) {
+                plugin.getLogger().severe("Fehler beim Schreiben der Preis-Historie: " + ex.getMessage());
+            }
+        }
+    }
+
+    private File fileFor(LocalDate day) {
+        return new File(dir, PREFIX + day + SUFFIX);
+    }
+
+    /* =================== Abfragen =================== */
+
+    /** Statistik eines Materials im Zeitfenster (leer, wenn nie gehandelt). */
+    public PriceStats stats(Material material, PriceWindow window) {
+        MaterialStats s;
+        synchronized (stats) {
+            s = stats.get(material);
+        }
+        if (s == null) return new PriceStats(material, window, 0, 0, 0, 0);
+        return s.snapshot(window, System.currentTimeMillis());
+    }
+
+    /**
+     * Vorgeschlagener Stückpreis: Median des kürzesten Fensters mit ausreichend Abschlüssen.
+     *
+     * @return Stückpreis oder leer, wenn es keine Daten gibt
+     */
+    public OptionalDouble suggestedUnitPrice(Material material) {
+        int minTrades = Math.max(1, plugin.getConfig().getInt("market.suggest-min-trades", 3));
+        PriceStats fallback = null;
+        for (PriceWindow w : PriceWindow.values()) {
+            PriceStats s = stats(material, w);
+            if (s.isEmpty()) continue;
+            if (s.trades() >= minTrades) return OptionalDouble.of(s.median());
+            fallback = s;
+        }
+        return fallback == null ? OptionalDouble.empty() : OptionalDouble.of(fallback.median());
+    }
+
+    /**
+     * Vorgeschlagener Preis für eine Menge (mindestens 1).
+     *
+     * @return Gesamtpreis oder -1, wenn es keine Daten gibt
+     */
+    public int suggestedPrice(Material material, int quantity) {
+        OptionalDouble unit = suggestedUnitPrice(material);
+        if (!unit.isPresent()) return -1;
+        return (int) Math.max(1, Math.round(unit.getAsDouble() * quantity));
+    }
+}
@@ -0,0 +1,38 @@
+package de.mcbn.shops.market;
+
+import org.bukkit.Material;
+
+/**
+ * Unveränderlicher Schnappschuss der Marktstatistik eines Materials in einem Zeitfenster.
+ * Alle Preise sind Stückpreise in Einheiten der Plugin-Währung.
+ */
+public final class PriceStats {
+    private final Material material;
+    private final PriceWindow window;
+    private final long volume;
+    private final int trades;
+    private final double vwap;
+    private final double median;
+
+    PriceStats(Material material, PriceWindow window, long volume, int trades, double vwap, double median) {
+        this.material = material;
+        this.window = window;
+        this.volume = volume;
+        this.trades = trades;
+        this.vwap = vwap;
+        this.median = median;
+    }
+
+    public Material material() { return material; }
+    public PriceWindow window() { return window; }
+    /** Gehandelte Stückzahl im Fenster. */
+    public long volume() { return volume; }
+    /** Anzahl Abschlüsse im Fenster. */
+    public int trades() { return trades; }
+    /** Volumengewichteter Durchschnittspreis pro Stück. */
+    public double vwap() { return vwap; }
+    /** Angenäherter Median pro Stück (aus festen Histogramm-Klassen, ca. ±12%). */
+    public double median() { return median; }
+
+    public boolean isEmpty() { return volume <= 0; }
+}
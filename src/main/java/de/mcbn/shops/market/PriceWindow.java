@@ -0,0 +1,14 @@
+package de.mcbn.shops.market;
+
+/** Zeitfenster der Marktstatistik. */
+public enum PriceWindow {
+    HOUR("1h"),
+    DAY("24h"),
+    WEEK("7d");
+
+    private final String label;
+
+    PriceWindow(String label) { this.label = label; }
+
+    public String label() { return label; }
+}
@@ -0,0 +1,96 @@
+package de.mcbn.shops.order;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kaufbares Item einer Einkaufsliste: ein Material, optional eingeschränkt auf eine benannte Variante.
+ * <p>
+ * Neben normalen Materialnamen werden verzauberte Bücher als {@code <VERZAUBERUNG>_BOOK} oder
+ * {@code <VERZAUBERUNG>_<STUFE>_BOOK} erkannt (z.B. {@code MENDING_BOOK}, {@code SHARPNESS_5_BOOK}).
+ * Zwischengespeichert werden nur erfolgreich aufgelöste, kanonische Namen (z.B. {@code SHARPNESS_5_BOOK},
+ * nicht {@code sharpness_05_book}) – deren Anzahl ist begrenzt. Unbekannte Namen aus Chat oder Buchzeilen
+ * werden nicht gespeichert, damit Spieler den Cache nicht beliebig wachsen lassen können.
+ */
+public final class ItemVariant {
+
+    private static final Map<String, ItemVariant> RESOLVED = new ConcurrentHashMap<>();
+    /** Höchste Stufe in Buchnamen (Vanilla: 5). */
+    private static final int MAX_LEVEL = 255;
+
+    private final String name;
+    private final Material material;
+    private final Enchantment stored;   // null = jedes Item des Materials
+    private final int minLevel;
+
+    private ItemVariant(String name, Material material, Enchantment stored, int minLevel) {
+        this.name = name;
+        this.material = material;
+        this.stored = stored;
+        this.minLevel = minLevel;
+    }
+
+    public static ItemVariant of(Material material) {
+        return new ItemVariant(material.name(), material, null, 0);
+    }
+
+    /**
+     * Löst einen Namen aus einer Einkaufsliste auf.
+     *
+     * @return Variante oder null, wenn der Name unbekannt ist
+     */
+    public static ItemVariant parse(String token) {
+        String key = token.trim().toUpperCase(Locale.ROOT);
+        ItemVariant cached = RESOLVED.get(key);
+        if (cached != null) return cached;
+        ItemVariant v = resolve(key);
+        if (v != null && v.name.equals(key)) RESOLVED.put(key, v);
+        return v;
+    }
+
+    private static ItemVariant resolve(String key) {
+        if (key.endsWith("_BOOK") && key.length() > 5) {
+            String ench = key.substring(0, key.length() - 5);
+            int level = 1;
+            int cut = ench.lastIndexOf('_');
+            String digits = cut > 0 ? ench.substring(cut + 1) : "";
+            if (!digits.isEmpty() && digits.chars().allMatch(Character::isDigit)) {
+                if (digits.length() > 3) return null;
+                level = Integer.parseInt(digits);
+                if (level < 1 || level > MAX_LEVEL) return null;
+                ench = ench.substring(0, cut);
+            }
+            Enchantment e = Registry.ENCHANTMENT.get(NamespacedKey.minecraft(ench.toLowerCase(Locale.ROOT)));
+            if (e != null) {
+                String name = ench + (level > 1 ? "_" + level : "") + "_BOOK";
+                return new ItemVariant(name, Material.ENCHANTED_BOOK, e, level);
+            }
+        }
+        Material m = Material.matchMaterial(key);
+        return m == null ? null : of(m);
+    }
+
+    /** Kanonischer Name (wie in der Einkaufsliste). */
+    public String name() { return name; }
+    public Material material() { return material; }
+
+    /** True, wenn die Variante mehr als das Material verlangt. */
+    public boolean isSpecific() { return stored != null; }
+
+    public boolean matches(ItemStack item) {
+        if (item == null || item.getType() != material) return false;
+        if (stored == null) return true;
+        ItemMeta meta = item.getItemMeta();
+        return meta instanceof EnchantmentStorageMeta
+                && ((EnchantmentStorageMeta) meta).getStoredEnchantLevel(stored) >= minLevel;
+    }
+}
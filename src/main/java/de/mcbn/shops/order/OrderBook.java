@@ -0,0 +1,178 @@
+package de.mcbn.shops.order;
+
+import de.mcbn.shops.Main;
+import de.mcbn.shops.auction.ClaimMailbox;
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.shop.ShopPurchaseService;
+import de.mcbn.shops.shop.StockCache;
+import de.mcbn.shops.util.BlockPosKey;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Orderbuch für stehende Kauforders.
+ * <p>
+ * Orders sind je Material nach Maximalpreis pro Stück indiziert (innerhalb einer Preisstufe in
+ * Erstellreihenfolge). Meldet der {@link StockCache} mehr Bestand für einen Shop (Kiste befüllt,
+ * neuer Shop), werden nur die Preisstufen ab dem Stückpreis des Shops besucht – die Suche kostet
+ * O(log n) statt eines Durchlaufs aller Orders. Die beste Order (höchster Maximalpreis, dann älteste)
+ * wird zuerst bedient. Gekauft wird über den normalen Kisten-Pfad ({@link ShopPurchaseService#fillOrder}),
+ * bezahlt aus der Treuhand der Order; die Ware landet im Postfach des Besitzers.
+ */
+public class OrderBook implements StockCache.ChangeListener {
+
+    private final Main plugin;
+    private final Runnable onChange;
+    private final Map<Material, TreeMap<Integer, ArrayDeque<StandingOrder>>> book = new EnumMap<>(Material.class);
+    private final Map<UUID, StandingOrder> byId = new LinkedHashMap<>();
+    /** Verhindert, dass eigene Käufe (Bestand sinkt) erneut ein Matching auslösen. */
+    private boolean matching;
+
+    OrderBook(Main plugin, Runnable onChange) {
+        this.plugin = plugin;
+        this.onChange = onChange;
+    }
+
+    public Collection<StandingOrder> all() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    /** Orders eines Spielers in Erstellreihenfolge. */
+    public List<StandingOrder> ofOwner(UUID owner) {
+        List<StandingOrder> out = new ArrayList<>();
+        for (StandingOrder o : byId.values()) if (o.owner().equals(owner)) out.add(o);
+        return out;
+    }
+
+    /** Nimmt eine geladene Order ins Buch auf (ohne Matching). */
+    void add(StandingOrder o) {
+        byId.put(o.id(), o);
+        book.computeIfAbsent(o.material(), m -> new TreeMap<>())
+                .computeIfAbsent(o.maxPerItem(), p -> new ArrayDeque<>())
+                .add(o);
+    }
+
+    void clear() {
+        byId.clear();
+        book.clear();
+    }
+
+    /**
+     * Stellt eine neue Order ein (Treuhand ist bereits einbehalten) und prüft sie einmalig gegen
+     * die Shops dieses Materials (Material-Index des {@link de.mcbn.shops.shop.ShopManager}).
+     */
+    public void place(StandingOrder o) {
+        add(o);
+        for (Shop s : plugin.shops().byMaterial(o.material())) {
+            if (!byId.containsKey(o.id())) break; // bereits erfüllt
+            match(s);
+        }
+        onChange.run();
+    }
+
+    /**
+     * Storniert eine Order; die restliche Treuhand geht ins Postfach.
+     *
+     * @return zurückgebuchte Währung oder -1, wenn die Order nicht (mehr) existiert
+     */
+    public int cancel(StandingOrder o) {
+        if (!unindex(o)) return -1;
+        int refund = o.releaseEscrow();
+        if (refund > 0) plugin.auctions().mailbox().depositCurrency(o.owner(), refund);
+        onChange.run();
+        return refund;
+    }
+
+    private boolean unindex(StandingOrder o) {
+        if (byId.remove(o.id()) == null) return false;
+        TreeMap<Integer, ArrayDeque<StandingOrder>> levels = book.get(o.material());
+        if (levels == null) return true;
+        ArrayDeque<StandingOrder> q = levels.get(o.maxPerItem());
+        if (q != null) {
+            q.remove(o);
+            if (q.isEmpty()) levels.remove(o.maxPerItem());
+        }
+        if (levels.isEmpty()) book.remove(o.material());
+        return true;
+    }
+
+    @Override
+    public void onStockChanged(BlockPosKey pos, int before, int after) {
+        if (matching || after <= 0 || (before >= 0 && after <= before)) return; // nur bei mehr Bestand
+        plugin.shops().get(pos).ifPresent(this::match);
+    }
+
+    /** Bedient die besten passenden Orders aus dem Bestand eines Shops. */
+    private void match(Shop s) {
+        TreeMap<Integer, ArrayDeque<StandingOrder>> levels = book.get(s.template().getType());
+        if (levels == null || s.bundleAmount() <= 0 || s.price() <= 0) return;
+        if (s.currency() != plugin.auctions().getCurrency()) return; // Treuhand liegt in Serverwährung
+        if (!StandingOrder.isPlain(s.template())) return; // Orders kaufen nur unveränderte Ware
+        int unit = (int) Math.ceil(s.price() / (double) s.bundleAmount());
+        NavigableMap<Integer, ArrayDeque<StandingOrder>> eligible = levels.tailMap(unit, true).descendingMap();
+        if (eligible.isEmpty()) return;
+
+        BlockPosKey pos = s.pos();
+        World w = Bukkit.getWorld(pos.world);
+        if (w == null || !w.isChunkLoaded(pos.x >> 4, pos.z >> 4)) return;
+        Block block = w.getBlockAt(pos.x, pos.y, pos.z);
+
+        ShopPurchaseService purchase = plugin.purchases();
+        ClaimMailbox mailbox = plugin.auctions().mailbox();
+        boolean changed = false;
+        matching = true;
+        try {
+            int stockBundles = Math.max(0, plugin.shops().stock().stock(s)) / s.bundleAmount();
+            Iterator<Map.Entry<Integer, ArrayDeque<StandingOrder>>> levelIt = eligible.entrySet().iterator();
+            while (stockBundles > 0 && levelIt.hasNext()) {
+                ArrayDeque<StandingOrder> q = levelIt.next().getValue();
+                Iterator<StandingOrder> it = q.iterator();
+                while (stockBundles > 0 && it.hasNext()) {
+                    StandingOrder o = it.next();
+                    int bundles = Math.min(stockBundles, Math.min(
+                            (int) Math.ceil(o.remaining() / (double) s.bundleAmount()),
+                            o.escrow() / s.price()));
+                    if (bundles <= 0) continue;
+
+                    ItemStack items = purchase.fillOrder(block, s, bundles);
+                    if (items == null) { // Kiste hatte doch weniger – Rest beim nächsten Messen
+                        stockBundles = 0;
+                        break;
+                    }
+                    int paid = bundles * s.price();
+                    o.fill(items.getAmount(), paid);
+                    mailbox.depositItem(o.owner(), items);
+                    stockBundles -= bundles;
+                    changed = true;
+                    notifyFill(o, items.getAmount(), paid);
+
+                    if (o.remaining() <= 0) {
+                        it.remove();
+                        byId.remove(o.id());
+                        int refund = o.releaseEscrow();
+                        if (refund > 0) mailbox.depositCurrency(o.owner(), refund);
+                    }
+                }
+                if (q.isEmpty()) levelIt.remove();
+            }
+            if (levels.isEmpty()) book.remove(s.template().getType());
+        } finally {
+            matching = false;
+        }
+        if (changed) onChange.run();
+    }
+
+    private void notifyFill(StandingOrder o, int items, int paid) {
+        Player p = Bukkit.getPlayer(o.owner());
+        if (p == null) return;
+        p.sendMessage("§aKauforder: §f" + items + "x " + o.material().name() + " §afür §b" + paid
+                + " §7gekauft" + (o.remaining() > 0 ? " (noch " + o.remaining() + ")" : " – erledigt")
+                + ". §7Abholen: §e/auction claim");
+    }
+}
@@ -11,11 +11,23 @@ import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
-/** Verwaltung von Einkaufslisten und Buch-Parsing. */
+/**
+ * Verwaltung von Einkaufslisten und Buch-Parsing.
+ * <p>
+ * Aktive Orders sind pro Besitzer nach Inhalts-Hash indiziert: dasselbe Buch ergibt keine zweite Order,
+ * sondern liefert die bestehende (inkl. bereits gekaufter Mengen). Je Spieler bleiben höchstens
+ * {@code shopkeepers.orders.max-per-player} Orders erhalten (die am längsten unbenutzte fliegt), erfüllte
+ * und abgelaufene Orders werden entfernt – Speicher und orders.yml bleiben so begrenzt.
+ */
 public class OrderManager {
 
+    private static final long DAY_MS = 24L * 60L * 60L * 1000L;
+
     private final Main plugin;
     private final Map<UUID, PurchaseOrder> orders = new ConcurrentHashMap<>();
+    // Besitzer -> (Inhalts-Hash -> Order), Zugriffsreihenfolge: zuletzt benutzte Order steht hinten
+    private final Map<UUID, LinkedHashMap<Long, PurchaseOrder>> byOwner = new HashMap<>();
+    private final OrderBook book;
     private File file;
     private YamlConfiguration data;
 
@@ -23,14 +35,24 @@ public class OrderManager {
         this.plugin = plugin;
         this.file = new File(plugin.getDataFolder(), "orders.yml");
         this.data = new YamlConfiguration();
+        this.book = new OrderBook(plugin, this::save);
+    }
+
+    /** Stehende Kauforders (automatisches Matching bei Bestandsänderungen). */
+    public OrderBook book() {
+        return book;
     }
 
     public void load() {
         orders.clear();
+        byOwner.clear();
+        book.clear();
         try {
             if (!file.exists()) { file.getParentFile().mkdirs(); file.createNewFile(); }
             data = YamlConfiguration.loadConfiguration(file);
+            loadStanding();
             if (!data.isConfigurationSection("orders")) return;
+            int dropped = 0;
             for (String id : data.getConfigurationSection("orders").getKeys(false)) {
                 String base = "orders." + id + ".";
                 UUID pid = UUID.fromString(id);
@@ -47,22 +69,74 @@ public class OrderManager {
                         if (mat != null && maxPer > 0) max.put(mat, maxPer);
                     }
                 }
-                orders.put(pid, new PurchaseOrder(pid, owner, wanted, max, fee));
+                PurchaseOrder o = new PurchaseOrder(pid, owner, wanted, max, fee);
+                if (data.isConfigurationSection(base + "variant")) {
+                    for (String m : data.getConfigurationSection(base + "variant").getKeys(false)) {
+                        ItemVariant v = ItemVariant.parse(data.getString(base + "variant." + m, ""));
+                        Material mat = Material.matchMaterial(m);
+                        if (v != null && mat != null && v.material() == mat && wanted.containsKey(mat)) {
+                            o.put(v, wanted.get(mat), max.getOrDefault(mat, 0));
+                        }
+                    }
+                }
+                o.state(OrderState.ACTIVE);
+                o.contentHash(data.getLong(base + "hash", 0L));
+                o.lastUsed(data.getLong(base + "used", System.currentTimeMillis()));
+                // BUGFIX: Alte Dateien enthalten dasselbe Buch vielfach und erledigte Orders – beim Laden verdichten
+                if (o.isComplete() || !OrderState.ACTIVE.name().equals(data.getString(base + "state", "ACTIVE"))
+                        || register(o) != o) {
+                    dropped++;
+                }
             }
+            if (dropped > 0) plugin.getLogger().info(dropped + " doppelte/erledigte Einkaufslisten verworfen.");
         } catch (Exception e) {
             plugin.getLogger().severe("Fehler beim Laden von orders.yml: " + e.getMessage());
         }
     }
 
+    private void loadStanding() {
+        if (!data.isConfigurationSection("standing")) return;
+        for (String id : data.getConfigurationSection("standing").getKeys(false)) {
+            try {
+                String base = "standing." + id + ".";
+                Material mat = Material.matchMaterial(data.getString(base + "material", ""));
+                int remaining = data.getInt(base + "remaining");
+                if (mat == null || remaining <= 0) continue;
+                book.add(new StandingOrder(UUID.fromString(id), UUID.fromString(data.getString(base + "owner")),
+                        mat, remaining, data.getInt(base + "max"), data.getInt(base + "escrow"),
+                        data.getLong(base + "created")));
+            } catch (Exception e) {
+                plugin.getLogger().warning("Ungültige Kauforder '" + id + "': " + e.getMessage());
+            }
+        }
+    }
+
     public void save() {
+        sweep();
         try {
             data = new YamlConfiguration();
-            for (PurchaseOrder o : orders.values()) {
+            for (StandingOrder o : book.all()) {
+                String base = "standing." + o.id().toString() + ".";
+                data.set(base + "owner", o.owner().toString());
+                data.set(base + "material", o.material().name());
+                data.set(base + "remaining", o.remaining());
+                data.set(base + "max", o.maxPerItem());
+                data.set(base + "escrow", o.escrow());
+                data.set(base + "created", o.createdAt());
+            }
+            List<PurchaseOrder> active = new ArrayList<>(orders.size());
+            for (LinkedHashMap<Long, PurchaseOrder> own : byOwner.values()) active.addAll(own.values()); // LRU-Reihenfolge erhalten
+            for (PurchaseOrder o : active) {
                 String base = "orders." + o.id().toString() + ".";
                 data.set(base + "owner", o.owner().toString());
                 data.set(base + "fee", o.feePercent());
+                data.set(base + "state", o.state().name());
+                data.set(base + "hash", o.contentHash());
+                data.set(base + "used", o.lastUsed());
                 for (Map.Entry<Material,Integer> e : o.wanted().entrySet()) {
                     data.set(base + "wanted." + e.getKey().name(), e.getValue());
+                    ItemVariant v = o.variant(e.getKey());
+                    if (v.isSpecific()) data.set(base + "variant." + e.getKey().name(), v.name());
                 }
                 for (Map.Entry<Material,Integer> e : o.maxPrice().entrySet()) {
                     data.set(base + "max." + e.getKey().name(), e.getValue());
@@ -74,75 +148,128 @@ public class OrderManager {
         }
     }
 
+    /** Neuer Entwurf (noch nicht registriert, siehe {@link #put}). */
     public PurchaseOrder create(UUID owner) {
         UUID id = java.util.UUID.randomUUID();
         return new PurchaseOrder(id, owner, new HashMap<>(), new HashMap<>(),
                 plugin.getConfig().getInt("shopkeepers.shopper-fee-percent", 5));
     }
 
+    /** Zuletzt benutzte aktive Order eines Spielers. */
     public Optional<PurchaseOrder> byOwner(UUID owner) {
-        return orders.values().stream().filter(o -> o.owner().equals(owner)).findFirst();
+        LinkedHashMap<Long, PurchaseOrder> own = byOwner.get(owner);
+        PurchaseOrder last = null;
+        if (own != null) for (PurchaseOrder o : own.values()) last = o; // höchstens max-per-player Einträge
+        return Optional.ofNullable(last);
     }
 
-    public void put(PurchaseOrder o) {
-        orders.put(o.id(), o);
+    /** Aktive Orders eines Spielers, die zuletzt benutzte zuletzt. */
+    public List<PurchaseOrder> ofOwner(UUID owner) {
+        LinkedHashMap<Long, PurchaseOrder> own = byOwner.get(owner);
+        return own == null ? Collections.emptyList() : new ArrayList<>(own.values());
     }
 
-    /** Liest eine Bestellung aus einem Buch (WRITABLE_BOOK/WRITTEN_BOOK).
-     *  Erlaubte Zeilen pro Order-Eintrag (ohne Farbe):
-     *   - 64x STRING
-     *   - 64x STRING max 2
-     *   - STRING 64
+    /**
+     * Registriert eine Order. Hat der Besitzer bereits eine Order mit gleichem Inhalt, wird diese
+     * zurückgegeben und die neue verworfen.
+     *
+     * @return die aktive Order (neu oder bestehend)
      */
+    public PurchaseOrder put(PurchaseOrder o) {
+        return register(o);
+    }
+
+    private PurchaseOrder register(PurchaseOrder o) {
+        if (o.contentHash() == 0L) o.contentHash(contentHash(o));
+        LinkedHashMap<Long, PurchaseOrder> own = byOwner.computeIfAbsent(o.owner(), k -> new LinkedHashMap<>(8, 0.75f, true));
+        PurchaseOrder existing = own.get(o.contentHash()); // zählt als Zugriff -> nach hinten
+        if (existing != null && existing != o) {
+            existing.lastUsed(System.currentTimeMillis());
+            return existing;
+        }
+        if (existing == null) {
+            if (o.state() == OrderState.DRAFT) o.lastUsed(System.currentTimeMillis());
+            o.state(OrderState.ACTIVE);
+            own.put(o.contentHash(), o);
+            orders.put(o.id(), o);
+        }
+        int limit = Math.max(1, plugin.getConfig().getInt("shopkeepers.orders.max-per-player", 10));
+        Iterator<PurchaseOrder> it = own.values().iterator();
+        while (own.size() > limit && it.hasNext()) {
+            PurchaseOrder oldest = it.next();
+            if (oldest == o) continue;
+            it.remove();
+            orders.remove(oldest.id());
+            oldest.state(OrderState.EXPIRED);
+        }
+        return o;
+    }
+
+    /**
+     * Nach einem Einkauf aufrufen: merkt die Nutzung und entfernt die Order, sobald alles gekauft ist.
+     */
+    public void progress(PurchaseOrder o) {
+        if (o.state() != OrderState.ACTIVE) return;
+        o.lastUsed(System.currentTimeMillis());
+        if (o.isComplete()) evict(o, OrderState.FULFILLED);
+    }
+
+    private void evict(PurchaseOrder o, OrderState state) {
+        o.state(state);
+        orders.remove(o.id());
+        LinkedHashMap<Long, PurchaseOrder> own = byOwner.get(o.owner());
+        if (own == null) return;
+        if (own.get(o.contentHash()) == o) own.remove(o.contentHash());
+        if (own.isEmpty()) byOwner.remove(o.owner());
+    }
+
+    /** Lässt Orders ablaufen, die länger als {@code shopkeepers.orders.expire-days} unbenutzt sind. */
+    private void sweep() {
+        int days = plugin.getConfig().getInt("shopkeepers.orders.expire-days", 14);
+        if (days <= 0) return;
+        long cutoff = System.currentTimeMillis() - days * DAY_MS;
+        for (PurchaseOrder o : new ArrayList<>(orders.values())) {
+            if (o.lastUsed() < cutoff) evict(o, OrderState.EXPIRED);
+        }
+    }
+
+    /** 64-Bit-FNV-1a über die sortierten Einträge – unabhängig von Formatierung und Reihenfolge im Buch. */
+    static long contentHash(PurchaseOrder o) {
+        long h = 0xcbf29ce484222325L;
+        for (Material m : new TreeSet<>(o.wanted().keySet())) {
+            String line = o.variant(m).name() + ':' + o.wanted().get(m) + ':' + o.maxPrice().getOrDefault(m, 0) + ';';
+            for (int i = 0; i < line.length(); i++) {
+                h ^= line.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        return h == 0L ? 1L : h;
+    }
+
+    /** Liest eine Bestellung aus einem Buch (WRITABLE_BOOK/WRITTEN_BOOK), siehe {@link ShoppingListParser}. */
     public PurchaseOrder parseFromBook(UUID owner, ItemStack bookStack) {
+        return parseFromBook(owner, bookStack, null);
+    }
+
+    /**
+     * Liest eine Bestellung aus einem Buch und registriert sie; ein bereits registriertes Buch liefert
+     * die bestehende Order. Gespeichert wird beim nächsten Autosave bzw. beim Herunterfahren.
+     *
+     * @param problems nimmt nicht lesbare Zeilen auf (null = verwerfen)
+     */
+    public PurchaseOrder parseFromBook(UUID owner, ItemStack bookStack, List<ShoppingListParser.Problem> problems) {
         if (bookStack == null) return create(owner);
         if (!(bookStack.getItemMeta() instanceof BookMeta)) return create(owner);
         BookMeta bm = (BookMeta) bookStack.getItemMeta();
+        // PERFORMANCE FIX: Vorkompilierte Grammatik, ein Durchgang pro Seite, kein Speichern pro Buch
+        ShoppingListParser.Result parsed = ShoppingListParser.parse(bm.getPages());
+        if (problems != null) problems.addAll(parsed.problems());
         PurchaseOrder o = create(owner);
-        for (String page : bm.getPages()) {
-            String[] lines = page.split("\\r?\\n");
-            for (String line : lines) {
-                String s = line.trim();
-                if (s.isEmpty()) continue;
-                s = s.replace("§", "");
-                // Patterns: "64x STRING [max 2]"  or  "STRING 64 [max 2]"
-                int amount = 0;
-                String matToken = null;
-                Integer max = 0;
-                try {
-                    if (s.matches("(?i)\\d+\\s*[xX]\\s+[A-Z0-9_]+(\\s+max\\s+\\d+)?")) {
-                        String[] parts = s.split("\\s+");
-                        amount = Integer.parseInt(parts[0].toLowerCase().replace("x","").replace("X",""));
-                        matToken = parts[2];
-                        if (s.toLowerCase().contains("max")) {
-                            String[] ps = s.toLowerCase().split("max");
-                            String tail = ps[1].trim();
-                            String[] nums = tail.split("\\s+");
-                            max = Integer.parseInt(nums[0]);
-                        }
-                    } else if (s.matches("(?i)[A-Z0-9_]+\\s+\\d+(\\s+max\\s+\\d+)?")) {
-                        String[] parts = s.split("\\s+");
-                        matToken = parts[0];
-                        amount = Integer.parseInt(parts[1]);
-                        if (s.toLowerCase().contains("max")) {
-                            String[] ps = s.toLowerCase().split("max");
-                            String tail = ps[1].trim();
-                            String[] nums = tail.split("\\s+");
-                            max = Integer.parseInt(nums[0]);
-                        }
-                    } else {
-                        continue;
-                    }
-                    Material m = Material.matchMaterial(matToken);
-                    if (m != null && amount > 0) {
-                        o.put(m, amount, max == null ? 0 : max);
-                    }
-                } catch (Exception ignored) {}
-            }
+        for (ShoppingListParser.Entry e : parsed.entries()) {
+            o.put(e.variant(), e.amount(), e.maxPerItem());
         }
-        put(o);
-        save();
-        return o;
+        if (o.wanted().isEmpty()) return o; // leeres Buch nicht registrieren
+        return put(o);
     }
 
     /** Erstellt den Buch-Inhalt (Seiten) aus einer Order. */
@@ -152,8 +279,9 @@ public class OrderManager {
         sb.append("Einkaufsliste\n-------------\n");
         for (Map.Entry<Material,Integer> e : o.wanted().entrySet()) {
             int max = o.maxPrice().getOrDefault(e.getKey(), 0);
-            if (max > 0) sb.append(e.getValue()).append("x ").append(e.getKey().name()).append(" max ").append(max).append("\n");
-            else sb.append(e.getValue()).append("x ").append(e.getKey().name()).append("\n");
+            String name = o.variant(e.getKey()).name();
+            if (max > 0) sb.append(e.getValue()).append("x ").append(name).append(" max ").append(max).append("\n");
+            else sb.append(e.getValue()).append("x ").append(name).append("\n");
         }
         pages.add(sb.toString());
         return pages;
@@ -0,0 +1,100 @@
+package de.mcbn.shops.order;
+
+import de.mcbn.shops.shop.Shop;
+import org.bukkit.Material;
+
+import java.util.*;
+
+/**
+ * Ergebnis eines Probelaufs ({@link OrderPlanner}): welche Shops wie viele Bundles liefern würden,
+ * was das kostet und was fehlt. Wird dem Besitzer vor der Einkaufsreise zur Bestätigung gezeigt.
+ */
+public class OrderPlan {
+
+    /** Ein geplanter Kauf bei einem Shop. */
+    public static final class Line {
+        private final Shop shop;
+        private final int bundles;
+        private final int price;
+        private final int fee;
+        private final boolean loaded;
+
+        Line(Shop shop, int bundles, int fee, boolean loaded) {
+            this.shop = shop;
+            this.bundles = bundles;
+            this.price = bundles * shop.price();
+            this.fee = fee;
+            this.loaded = loaded;
+        }
+
+        public Shop shop() { return shop; }
+        public Material material() { return shop.template().getType(); }
+        public int bundles() { return bundles; }
+        public int items() { return bundles * shop.bundleAmount(); }
+        public int price() { return price; }
+        public int fee() { return fee; }
+        /** Chunk war beim Planen geladen; sonst stammt der Bestand aus dem Cache. */
+        public boolean loaded() { return loaded; }
+    }
+
+    private final PurchaseOrder order;
+    private final List<Line> lines;
+    private final Map<Material, Integer> shortfall;
+    private final Set<Material> limitedByFunds;
+    private final Map<Material, Integer> totalByCurrency;
+    private final boolean crossesUnloaded;
+
+    OrderPlan(PurchaseOrder order, List<Line> lines, Map<Material, Integer> shortfall,
+              Set<Material> limitedByFunds, boolean crossesUnloaded) {
+        this.order = order;
+        this.lines = Collections.unmodifiableList(lines);
+        this.shortfall = Collections.unmodifiableMap(shortfall);
+        this.limitedByFunds = Collections.unmodifiableSet(limitedByFunds);
+        this.crossesUnloaded = crossesUnloaded;
+        Map<Material, Integer> totals = new EnumMap<>(Material.class);
+        for (Line l : lines) totals.merge(l.shop.currency(), l.price + l.fee, Integer::sum);
+        this.totalByCurrency = Collections.unmodifiableMap(totals);
+    }
+
+    public PurchaseOrder order() { return order; }
+    public List<Line> lines() { return lines; }
+    public boolean isEmpty() { return lines.isEmpty(); }
+
+    /** Fehlende Stückzahl je Material (nach allen geplanten Käufen). */
+    public Map<Material, Integer> shortfall() { return shortfall; }
+
+    /** Materialien, bei denen das Guthaben des Besitzers nicht gereicht hat. */
+    public Set<Material> limitedByFunds() { return limitedByFunds; }
+
+    /** Gesamtkosten inkl. Gebühr je Währung. */
+    public Map<Material, Integer> totalByCurrency() { return totalByCurrency; }
+
+    public int totalPrice() {
+        int n = 0;
+        for (Line l : lines) n += l.price;
+        return n;
+    }
+
+    public int totalFee() {
+        int n = 0;
+        for (Line l : lines) n += l.fee;
+        return n;
+    }
+
+    /** Mindestens ein Shop liegt in einem ungeladenen oder weit entfernten Chunk. */
+    public boolean crossesUnloaded() { return crossesUnloaded; }
+
+    /** Für einen Shop geplante Bundles (0, wenn er nicht im Plan ist). */
+    public int bundles(Shop shop) {
+        int n = 0;
+        for (Line l : lines) if (l.shop == shop) n += l.bundles;
+        return n;
+    }
+
+    /** Geplante Shops (jeder nur einmal, in Planungsreihenfolge). */
+    public List<Shop> shops() {
+        Set<Shop> out = new LinkedHashSet<>();
+        for (Line l : lines) out.add(l.shop);
+        return new ArrayList<>(out);
+    }
+}
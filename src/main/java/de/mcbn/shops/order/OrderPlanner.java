@@ -0,0 +1,133 @@
+package de.mcbn.shops.order;
+
+import de.mcbn.shops.shop.Shop;
+import de.mcbn.shops.shop.StockCache;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Berechnet vor einer Einkaufsreise den vollständigen Erfüllungsplan: Mengen je Shop, Kosten,
+ * Gebühr und Fehlmengen. Bestände kommen aus dem {@link StockCache} – Kisten werden nur gelesen,
+ * wenn ihr Chunk ohnehin geladen ist. Es wird nichts gekauft.
+ */
+public final class OrderPlanner {
+
+    private OrderPlanner() {
+    }
+
+    /**
+     * @param origins Standorte aller Shopkeeper des Besitzers (für die Entfernungsprüfung)
+     * @param distantBlocks ab dieser Entfernung zum nächsten Keeper gilt ein Shop als "weit weg"
+     *                      (Sofortkauf-Angebot)
+     */
+    public static OrderPlan plan(PurchaseOrder order, Collection<Shop> shops, StockCache stock,
+                                 Collection<Location> origins, int distantBlocks) {
+        Map<Material, List<Shop>> byMaterial = new EnumMap<>(Material.class);
+        Map<Material, Integer> maxPrice = order.maxPrice();
+        for (Shop s : shops) {
+            Material mat = s.template().getType();
+            Integer need = order.wanted().get(mat);
+            if (need == null || need <= 0 || s.bundleAmount() <= 0 || !order.accepts(s.template())) continue;
+            int max = maxPrice.getOrDefault(mat, 0);
+            if (max > 0 && unitPrice(s) > max) continue;
+            byMaterial.computeIfAbsent(mat, k -> new ArrayList<>()).add(s);
+        }
+
+        // Guthaben des Besitzers je Währung (nur wenn online, sonst wird nicht begrenzt)
+        Player owner = Bukkit.getPlayer(order.owner());
+        Map<Material, Integer> balance = owner == null ? null : new EnumMap<>(Material.class);
+        if (owner != null) {
+            for (ItemStack is : owner.getInventory().getContents()) {
+                if (is != null) balance.merge(is.getType(), is.getAmount(), Integer::sum);
+            }
+        }
+
+        List<OrderPlan.Line> lines = new ArrayList<>();
+        Map<Material, Integer> shortfall = new EnumMap<>(Material.class);
+        Set<Material> limitedByFunds = EnumSet.noneOf(Material.class);
+        boolean crossesUnloaded = false;
+        double distantSq = (double) distantBlocks * distantBlocks;
+
+        for (Map.Entry<Material, Integer> e : order.wanted().entrySet()) {
+            Material mat = e.getKey();
+            int need = e.getValue() == null ? 0 : e.getValue();
+            if (need <= 0) continue;
+
+            List<Shop> candidates = byMaterial.getOrDefault(mat, Collections.emptyList());
+            candidates.sort(Comparator.comparingInt(OrderPlanner::unitPrice).thenComparingInt(Shop::price));
+
+            for (Shop s : candidates) {
+                if (need <= 0) break;
+                boolean loaded = isLoaded(s);
+                int items = stock.stock(s);
+                if (items < 0) continue; // Bestand unbekannt (nie gelesen)
+                int stockBundles = items / s.bundleAmount();
+                int buy = Math.min((int) Math.ceil(need / (double) s.bundleAmount()), stockBundles);
+                if (buy <= 0) continue;
+
+                if (balance != null) {
+                    int available = balance.getOrDefault(s.currency(), 0);
+                    int affordable = affordable(s, buy, available, order.feePercent());
+                    if (affordable < buy) limitedByFunds.add(mat);
+                    buy = affordable;
+                    if (buy <= 0) continue;
+                    balance.put(s.currency(), available - cost(s, buy, order.feePercent()));
+                }
+
+                int fee = Math.max(0, (buy * s.price() * order.feePercent()) / 100);
+                lines.add(new OrderPlan.Line(s, buy, fee, loaded));
+                need -= buy * s.bundleAmount();
+                if (!loaded || isDistant(s, origins, distantSq)) crossesUnloaded = true;
+            }
+            if (need > 0) shortfall.put(mat, need);
+        }
+        return new OrderPlan(order, lines, shortfall, limitedByFunds, crossesUnloaded);
+    }
+
+    /** Stückpreis wie beim tatsächlichen Kauf (aufgerundet). */
+    static int unitPrice(Shop s) {
+        return (int) Math.ceil(s.price() / (double) s.bundleAmount());
+    }
+
+    /**
+     * Größte Bundle-Anzahl (höchstens {@code max}), die mit {@code available} bezahlbar ist.
+     * Direkt berechnet statt schrittweise herunterzuzählen; die Rundung der Gebühr wird mit
+     * höchstens einem Schritt in jede Richtung korrigiert.
+     */
+    static int affordable(Shop s, int max, int available, int feePercent) {
+        if (max <= 0 || available <= 0) return 0;
+        long perBundle = (long) s.price() * (100 + Math.max(0, feePercent));
+        if (perBundle <= 0) return max;
+        int n = (int) Math.min(max, (long) available * 100 / perBundle);
+        if (n < max && cost(s, n + 1, feePercent) <= available) n++;
+        if (n > 0 && cost(s, n, feePercent) > available) n--;
+        return n;
+    }
+
+    private static int cost(Shop s, int bundles, int feePercent) {
+        int price = bundles * s.price();
+        return price + Math.max(0, (price * feePercent) / 100);
+    }
+
+    private static boolean isLoaded(Shop s) {
+        World w = Bukkit.getWorld(s.pos().world);
+        return w != null && w.isChunkLoaded(s.pos().x >> 4, s.pos().z >> 4);
+    }
+
+    /** Weit weg = kein Keeper in derselben Welt näher als {@code distantBlocks}. */
+    private static boolean isDistant(Shop s, Collection<Location> origins, double distantSq) {
+        for (Location origin : origins) {
+            if (origin.getWorld() == null || !origin.getWorld().getName().equals(s.pos().world)) continue;
+            double dx = s.pos().x - origin.getX();
+            double dz = s.pos().z - origin.getZ();
+            if (dx * dx + dz * dz <= distantSq) return false;
+        }
+        return true;
+    }
+}
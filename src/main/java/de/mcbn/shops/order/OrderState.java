@@ -0,0 +1,18 @@
+package de.mcbn.shops.order;
+
+/** Lebenszyklus einer Einkaufsliste. */
+public enum OrderState {
+    /** Im Dialog erstellt, noch nicht registriert. */
+    DRAFT,
+    /** Registriert; Shopper kaufen darauf ein. */
+    ACTIVE,
+    /** Alles gekauft – wird aus dem Speicher entfernt. */
+    FULFILLED,
+    /** Zu lange unbenutzt oder verdrängt – wird aus dem Speicher entfernt. */
+    EXPIRED;
+
+    /** True, solange die Order im Speicher gehalten wird. */
+    public boolean isOpen() {
+        return this == DRAFT || this == ACTIVE;
+    }
+}
@@ -1,8 +1,10 @@
 package de.mcbn.shops.order;
 
 import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
 
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -14,6 +16,11 @@ public class PurchaseOrder {
     private final Map<Material, Integer> wanted;     // gewünschte Menge (Stück)
     private final Map<Material, Integer> maxPrice;   // Maximalpreis pro Stück (Währung-Items), 0 = egal
     private final int feePercent;
+    // Spezifische Varianten (z.B. MENDING_BOOK); je Material höchstens eine, sonst zählt nur das Material
+    private final Map<Material, ItemVariant> variants = new EnumMap<>(Material.class);
+    private OrderState state = OrderState.DRAFT;
+    private long contentHash;        // Inhalt beim Registrieren (Deduplizierung gleicher Bücher), 0 = unbekannt
+    private long lastUsed = System.currentTimeMillis();
 
     public PurchaseOrder(UUID id, UUID owner, Map<Material, Integer> wanted, Map<Material, Integer> maxPrice, int feePercent) {
         this.id = id; this.owner = owner; this.wanted = wanted; this.maxPrice = maxPrice; this.feePercent = feePercent;
@@ -24,13 +31,45 @@ public class PurchaseOrder {
     public Map<Material, Integer> wanted() { return Collections.unmodifiableMap(wanted); }
     public Map<Material, Integer> maxPrice() { return Collections.unmodifiableMap(maxPrice); }
     public int feePercent() { return feePercent; }
+    public OrderState state() { return state; }
+    public long contentHash() { return contentHash; }
+    /** Zeitpunkt der letzten Registrierung bzw. des letzten Einkaufs (ms). */
+    public long lastUsed() { return lastUsed; }
+
+    void state(OrderState state) { this.state = state; }
+    void contentHash(long hash) { this.contentHash = hash; }
+    void lastUsed(long time) { this.lastUsed = time; }
+
+    /** True, wenn keine Menge mehr offen ist. */
+    public boolean isComplete() {
+        for (int amount : wanted.values()) if (amount > 0) return false;
+        return true;
+    }
 
     public void put(Material m, int amount, int maxPerItem) {
         wanted.put(m, amount);
         if (maxPerItem > 0) maxPrice.put(m, maxPerItem);
         else maxPrice.remove(m);
     }
-    public void clear() { wanted.clear(); maxPrice.clear(); }
+    public void put(ItemVariant v, int amount, int maxPerItem) {
+        put(v.material(), amount, maxPerItem);
+        if (v.isSpecific()) variants.put(v.material(), v);
+        else variants.remove(v.material());
+    }
+
+    /** Gewünschte Variante eines Materials (ohne Einschränkung: das Material selbst). */
+    public ItemVariant variant(Material m) {
+        ItemVariant v = variants.get(m);
+        return v != null ? v : ItemVariant.of(m);
+    }
+
+    /** True, wenn ein Shop-Item die gewünschte Variante erfüllt. */
+    public boolean accepts(ItemStack template) {
+        ItemVariant v = variants.get(template.getType());
+        return v == null || v.matches(template);
+    }
+
+    public void clear() { wanted.clear(); maxPrice.clear(); variants.clear(); }
 
     // helper for internal mutation
     public void _setRemaining(Material m, int amount) { wanted.put(m, amount); }
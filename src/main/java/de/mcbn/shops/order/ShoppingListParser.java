@@ -0,0 +1,171 @@
+package de.mcbn.shops.order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser für Einkaufslisten (Buchseiten).
+ * <p>
+ * Jede Seite wird in einem Durchgang in Zeilen zerlegt; Farbcodes ({@code §x}) fallen dabei weg.
+ * Jede Zeile wird gegen eine vorkompilierte Grammatik geprüft, der Matcher wird wiederverwendet:
+ * <pre>
+ *   64x STRING [max 2]
+ *   STRING 64 [max 2]
+ * </pre>
+ * Zeilen ohne Ziffer gelten als Überschrift/Trenner und werden übersprungen. Alle anderen nicht
+ * lesbaren Zeilen werden mit Seite und Zeile als {@link Problem} gemeldet. Gespeichert wird hier nichts.
+ */
+public final class ShoppingListParser {
+
+    private static final Pattern LINE = Pattern.compile(
+            "(?:(\\d{1,9})\\s*x\\s*([a-z0-9_]+)|([a-z0-9_]+)\\s+(\\d{1,9}))(?:\\s+max\\s+(\\d{1,9}))?",
+            Pattern.CASE_INSENSITIVE);
+
+    private ShoppingListParser() {
+    }
+
+    /** Ein gelesener Eintrag. */
+    public static final class Entry {
+        private final ItemVariant variant;
+        private final int amount;
+        private final int maxPerItem;
+
+        Entry(ItemVariant variant, int amount, int maxPerItem) {
+            this.variant = variant;
+            this.amount = amount;
+            this.maxPerItem = maxPerItem;
+        }
+
+        public ItemVariant variant() { return variant; }
+        public int amount() { return amount; }
+        /** Maximalpreis pro Stück, 0 = egal. */
+        public int maxPerItem() { return maxPerItem; }
+    }
+
+    /** Eine nicht lesbare Zeile. */
+    public static final class Problem {
+        private final int page;
+        private final int line;
+        private final String text;
+        private final String reason;
+
+        Problem(int page, int line, String text, String reason) {
+            this.page = page;
+            this.line = line;
+            this.text = text;
+            this.reason = reason;
+        }
+
+        public int page() { return page; }
+        public int line() { return line; }
+        public String text() { return text; }
+        public String reason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "S." + page + " Z." + line + ": " + reason + " ('" + text + "')";
+        }
+    }
+
+    /** Ergebnis eines Parse-Vorgangs. */
+    public static final class Result {
+        private final List<Entry> entries;
+        private final List<Problem> problems;
+
+        Result(List<Entry> entries, List<Problem> problems) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.problems = Collections.unmodifiableList(problems);
+        }
+
+        public List<Entry> entries() { return entries; }
+        public List<Problem> problems() { return problems; }
+    }
+
+    public static Result parse(List<String> pages) {
+        List<Entry> entries = new ArrayList<>();
+        List<Problem> problems = new ArrayList<>();
+        Matcher m = LINE.matcher("");
+        StringBuilder line = new StringBuilder(64);
+
+        for (int p = 0; p < pages.size(); p++) {
+            String page = pages.get(p);
+            if (page == null) continue;
+            int lineNo = 1;
+            boolean digit = false;
+            int len = page.length();
+            for (int i = 0; i <= len; i++) {
+                char c = i < len ? page.charAt(i) : '\n';
+                if (c == '§') {
+                    // Farbcode samt Kennbuchstabe überspringen – aber nie das Zeilenende (sonst fehlt die letzte Zeile)
+                    if (i + 1 < len && page.charAt(i + 1) != '\n') i++;
+                    continue;
+                }
+                if (c == '\r') continue;
+                if (c != '\n') {
+                    if (Character.isDigit(c)) digit = true;
+                    line.append(c);
+                    continue;
+                }
+                if (digit) parseLine(m, trim(line), p + 1, lineNo, entries, problems);
+                line.setLength(0);
+                digit = false;
+                lineNo++;
+            }
+        }
+        return new Result(entries, problems);
+    }
+
+    private static void parseLine(Matcher m, String text, int page, int lineNo, List<Entry> entries, List<Problem> problems) {
+        if (!m.reset(text).matches()) {
+            problems.add(new Problem(page, lineNo, text, "Format nicht erkannt"));
+            return;
+        }
+        boolean amountFirst = m.group(1) != null;
+        String name = amountFirst ? m.group(2) : m.group(3);
+        int amount = Integer.parseInt(amountFirst ? m.group(1) : m.group(4));
+        int max = m.group(5) == null ? 0 : Integer.parseInt(m.group(5));
+        ItemVariant v = ItemVariant.parse(name);
+        if (v == null) {
+            problems.add(new Problem(page, lineNo, text, "Unbekanntes Item"));
+        } else if (amount <= 0) {
+            problems.add(new Problem(page, lineNo, text, "Menge muss positiv sein"));
+        } else {
+            entries.add(new Entry(v, amount, max));
+        }
+    }
+
+    private static String trim(StringBuilder sb) {
+        int start = 0, end = sb.length();
+        while (start < end && Character.isWhitespace(sb.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(sb.charAt(end - 1))) end--;
+        return sb.substring(start, end);
+    }
+
+    /**
+     * Misst das Parsen eines Buchs mit {@code pages} Seiten (je 14 Zeilen, gemischte Formate).
+     *
+     * @return lesbare Zusammenfassung für Admins
+     */
+    public static String benchmark(int pages, int rounds) {
+        String[] samples = {"64x STRING", "DIAMOND 12 max 3", "§a16x OAK_LOG", "MENDING_BOOK 1 max 40",
+                "Einkaufsliste", "-------------", "32x COBBLESTONE max 1", "kaputt 12x"};
+        List<String> book = new ArrayList<>(pages);
+        StringBuilder sb = new StringBuilder();
+        for (int p = 0; p < pages; p++) {
+            sb.setLength(0);
+            for (int l = 0; l < 14; l++) sb.append(samples[(p + l) % samples.length]).append('\n');
+            book.add(sb.toString());
+        }
+        int warmup = Math.max(1, rounds / 10);
+        for (int i = 0; i < warmup; i++) parse(book);
+        Result last = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) last = parse(book);
+        long perBook = (System.nanoTime() - start) / Math.max(1, rounds);
+        return pages + " Seiten: " + (perBook / 1000) + " µs/Buch (" + rounds + " Runden, "
+                + last.entries().size() + " Einträge, " + last.problems().size() + " Fehler)";
+    }
+}
@@ -0,0 +1,54 @@
+package de.mcbn.shops.order;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Stehende Kauforder: kauft ein Material automatisch, sobald ein Shop es zum Maximalpreis oder
+ * günstiger anbietet. Die Bezahlung wird bei Erstellung als Treuhand einbehalten.
+ */
+public class StandingOrder {
+    private final UUID id;
+    private final UUID owner;
+    private final Material material;
+    private final int maxPerItem;    // Maximalpreis pro Stück (Währung-Items)
+    private final long createdAt;    // Zeit-Priorität innerhalb einer Preisstufe
+    private int remaining;           // noch zu kaufende Stück
+    private int escrow;              // einbehaltene, noch nicht verbrauchte Währung
+
+    public StandingOrder(UUID id, UUID owner, Material material, int remaining, int maxPerItem, int escrow, long createdAt) {
+        this.id = id; this.owner = owner; this.material = material; this.remaining = remaining;
+        this.maxPerItem = maxPerItem; this.escrow = escrow; this.createdAt = createdAt;
+    }
+
+    public UUID id() { return id; }
+    public UUID owner() { return owner; }
+    public Material material() { return material; }
+    public int maxPerItem() { return maxPerItem; }
+    public long createdAt() { return createdAt; }
+    public int remaining() { return remaining; }
+    public int escrow() { return escrow; }
+
+    /**
+     * Ob ein Shop-Template Orders bedienen kann: Orders gelten nur für das unveränderte Material,
+     * nicht für umbenannte oder verzauberte Varianten.
+     */
+    public static boolean isPlain(ItemStack template) {
+        return template.isSimilar(new ItemStack(template.getType()));
+    }
+
+    /** Verbucht einen Teilkauf. */
+    void fill(int items, int paid) {
+        remaining = Math.max(0, remaining - items);
+        escrow = Math.max(0, escrow - paid);
+    }
+
+    /** Gibt die restliche Treuhand frei (Abschluss/Storno). */
+    int releaseEscrow() {
+        int e = escrow;
+        escrow = 0;
+        return e;
+    }
+}
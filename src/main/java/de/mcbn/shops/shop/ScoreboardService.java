@@ -1,10 +1,10 @@
 package de.mcbn.shops.shop;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.gui.GuiItems;
 import de.mcbn.shops.util.InventoryUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -114,9 +114,7 @@ public class ScoreboardService implements Listener {
         }
 
         int score = 7;
-        String itemName = (shop.template().getItemMeta() != null && shop.template().getItemMeta().hasDisplayName())
-                ? shop.template().getItemMeta().getDisplayName()
-                : formatMaterial(shop.template().getType());
+        String itemName = GuiItems.plainName(shop.template());
         addLine(board, obj, ChatColor.YELLOW + "Item: " + ChatColor.WHITE + itemName, score--);
         addLine(board, obj, ChatColor.YELLOW + "Bundle: " + ChatColor.WHITE + shop.bundleAmount(), score--);
         addLine(board, obj, ChatColor.YELLOW + "Preis: " + ChatColor.AQUA + shop.price() + "x " + shop.currency().name(), score--);
@@ -136,9 +134,4 @@ public class ScoreboardService implements Listener {
         String entry = text.substring(0, Math.min(40, text.length()));
         obj.getScore(entry).setScore(score);
     }
-
-    private String formatMaterial(Material mat) {
-        String name = mat.name().toLowerCase(java.util.Locale.ROOT).replace('_',' ');
-        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
-    }
 }
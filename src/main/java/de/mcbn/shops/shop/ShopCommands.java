@@ -1,10 +1,9 @@
 package de.mcbn.shops.shop;
 
 import de.mcbn.shops.Main;
-import de.mcbn.shops.api.event.ShopPurchaseEvent;
+import de.mcbn.shops.gui.GuiItems;
 import de.mcbn.shops.shop.gui.ShopCreateGUI;
 import de.mcbn.shops.util.Messages;
-import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -92,7 +91,7 @@ public class ShopCommands implements CommandExecutor, TabCompleter {
                 p.sendMessage("§cBitte gib gültige Zahlen für Menge und Preis an."); return true;
             }
             shops.createShop(p.getUniqueId(), target, template, bundle, price);
-            p.sendMessage("§aShop erstellt: " + bundle + "x " + prettyItem(template) + " für " + price);
+            p.sendMessage("§aShop erstellt: " + bundle + "x " + GuiItems.plainName(template) + " für " + price);
             return true;
         } else {
             // GUI-Variante
@@ -142,81 +141,12 @@ public class ShopCommands implements CommandExecutor, TabCompleter {
             p.sendMessage(msg.prefixed("shop-not-found")); return true;
         }
         Shop s = shopOpt.get();
-        p.sendMessage("§7Item: §f" + prettyItem(s.template()) +
+        p.sendMessage("§7Item: §f" + GuiItems.plainName(s.template()) +
                 " §7Bundle: §f" + s.bundleAmount() +
                 " §7Preis: §b" + s.price() + "x " + s.currency().name());
         return true;
     }
 
-    /** ————————————————— Kauf-Logik (wird von Listenern & GUIs aufgerufen) ————————————————— */
-    public void performPurchase(Player buyer, Block block, Shop s, int bundles) {
-        // Fire purchase event
-        ShopPurchaseEvent purchaseEvent = new ShopPurchaseEvent(buyer, s, bundles);
-        Bukkit.getPluginManager().callEvent(purchaseEvent);
-
-        if (purchaseEvent.isCancelled()) {
-            buyer.sendMessage(msg.prefixed("purchase-cancelled"));
-            return;
-        }
-
-        Optional<Inventory> invOpt = ShopManager.getContainerInventory(block);
-        if (!invOpt.isPresent()) {
-            buyer.sendMessage(msg.prefixed("not-a-container"));
-            return;
-        }
-        Inventory shopInv = invOpt.get();
-
-        int stockItems = de.mcbn.shops.util.InventoryUtils.countSimilar(shopInv, s.template());
-        int stockBundles = stockItems / s.bundleAmount();
-        if (stockBundles < bundles) {
-            buyer.sendMessage(msg.prefixedFormat("buy-insufficient-stock", "bundles", String.valueOf(stockBundles)));
-            return;
-        }
-
-        int price = s.price() * bundles;
-        int playerCurrency = 0;
-        for (ItemStack is : buyer.getInventory().getContents()) {
-            if (is != null && is.getType() == s.currency()) playerCurrency += is.getAmount();
-        }
-        if (playerCurrency < price) {
-            buyer.sendMessage(msg.prefixedFormat("buy-insufficient-funds", "currency", s.currency().name()));
-            return;
-        }
-
-        int removedCur = de.mcbn.shops.util.InventoryUtils.removeMaterial(buyer.getInventory(), s.currency(), price);
-        if (removedCur != price) {
-            buyer.sendMessage(msg.prefixedFormat("buy-insufficient-funds", "currency", s.currency().name()));
-            return;
-        }
-
-        int toGiveItems = s.bundleAmount() * bundles;
-        int removedItems = de.mcbn.shops.util.InventoryUtils.removeSimilar(shopInv, s.template(), toGiveItems);
-        if (removedItems != toGiveItems) {
-            buyer.getInventory().addItem(new ItemStack(s.currency(), price)); // rollback
-            buyer.sendMessage(msg.prefixed("buy-insufficient-stock"));
-            return;
-        }
-
-        ItemStack give = s.template().clone();
-        give.setAmount(toGiveItems);
-        de.mcbn.shops.util.InventoryUtils.giveOrDrop(buyer, give);
-
-        ItemStack currencyStack = new ItemStack(s.currency(), price);
-        de.mcbn.shops.util.InventoryUtils.addOrDropToInventory(shopInv, currencyStack, block.getLocation().add(0.5, 0.5, 0.5));
-
-        buyer.sendMessage(msg.prefixedFormat("buy-success",
-                "totalItems", String.valueOf(toGiveItems),
-                "item", prettyItem(s.template()),
-                "paid", String.valueOf(price),
-                "currency", s.currency().name()));
-    }
-
-    private String prettyItem(ItemStack is) {
-        if (is.getItemMeta() != null && is.getItemMeta().hasDisplayName()) return is.getItemMeta().getDisplayName();
-        String n = is.getType().name().toLowerCase(Locale.ROOT).replace('_',' ');
-        return Character.toUpperCase(n.charAt(0)) + n.substring(1);
-    }
-
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         List<String> list = new ArrayList<>();
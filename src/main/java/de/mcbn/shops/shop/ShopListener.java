@@ -13,6 +13,7 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.EquipmentSlot;
@@ -54,7 +55,7 @@ public class ShopListener implements Listener {
         if (s.owner().equals(p.getUniqueId())) return;
 
         event.setCancelled(true);
-        new ShopCommands(plugin, shops, prompts).performPurchase(p, block, s, 1);
+        plugin.purchases().performPurchase(p, block, s, 1);
     }
 
     /** Rechtsklick = Kauf-GUI öffnen (für Käufer). Owner darf Inventar öffnen. */
@@ -108,6 +109,14 @@ public class ShopListener implements Listener {
         }
     }
 
+    /** Nach dem Befüllen/Leeren der Kiste den Bestand neu messen (löst ggf. Kauforders aus) */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onClose(InventoryCloseEvent event) {
+        Block block = event.getInventory().getLocation() != null ? event.getInventory().getLocation().getBlock() : null;
+        if (block == null) return;
+        shops.get(block).ifPresent(s -> shops.stock().stock(s));
+    }
+
     /** Nur Owner/Admin dürfen abbauen */
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBreak(BlockBreakEvent event) {
@@ -1,10 +1,12 @@
 package de.mcbn.shops.shop;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.gui.GuiItems;
 import de.mcbn.shops.util.BlockPosKey;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.Sign;
@@ -20,6 +22,14 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ShopManager {
     private final Main plugin;
     private final Map<BlockPosKey, Shop> shops = new ConcurrentHashMap<>();
+    /** Shops je Material (für Kauforders, ohne Durchlauf aller Shops). */
+    private final Map<Material, Set<Shop>> byMaterial = new ConcurrentHashMap<>();
+    private final StockCache stock = new StockCache();
+    /** Ausstehende Schild-Arbeit aus Massenänderungen (FIFO, zeitversetzt abgearbeitet). */
+    private final ArrayDeque<SignJob> signWork = new ArrayDeque<>();
+    /** Schild-Arbeit, deren Chunk gerade asynchron geladen wird. */
+    private final Set<SignJob> signLoading = new HashSet<>();
+    private int signTaskId = -1;
     private File file;
     private YamlConfiguration data;
 
@@ -33,36 +43,177 @@ public class ShopManager {
         return block == null ? Optional.empty() : Optional.ofNullable(shops.get(new BlockPosKey(block.getLocation())));
     }
 
+    /** Shop an einer Position, ohne die Welt anzufassen (lädt keinen Chunk). */
+    public Optional<Shop> get(BlockPosKey pos) {
+        return pos == null ? Optional.empty() : Optional.ofNullable(shops.get(pos));
+    }
+
     public boolean isShop(Block block) {
         return get(block).isPresent();
     }
 
+    /** Zuletzt bekannter Bestand je Shop (auch für ungeladene Chunks). */
+    public StockCache stock() {
+        return stock;
+    }
+
     public Collection<Shop> all() {
         // Defensive copy für thread-safe Iteration
         return new ArrayList<>(shops.values());
     }
 
+    /** Shops, die dieses Material verkaufen. */
+    public Collection<Shop> byMaterial(Material material) {
+        Set<Shop> set = byMaterial.get(material);
+        return set == null ? Collections.emptyList() : new ArrayList<>(set);
+    }
+
+    private void put(Shop s) {
+        Shop old = shops.put(s.pos(), s);
+        if (old != null) unindex(old);
+        byMaterial.computeIfAbsent(s.template().getType(), m -> ConcurrentHashMap.newKeySet()).add(s);
+    }
+
+    private Shop drop(BlockPosKey pos) {
+        Shop s = shops.remove(pos);
+        if (s != null) unindex(s);
+        return s;
+    }
+
+    private void unindex(Shop s) {
+        Material type = s.template().getType();
+        Set<Shop> set = byMaterial.get(type);
+        if (set != null) {
+            set.remove(s);
+            if (set.isEmpty()) byMaterial.remove(type, set);
+        }
+    }
+
     public void createShop(UUID owner, Block block, ItemStack template, int bundleAmount, int price) {
         Material currency = Material.matchMaterial(plugin.getConfig().getString("currency-material", "DIAMOND"));
         BlockFace face = plugin.getServer().getPlayer(owner).getFacing().getOppositeFace();
         Shop s = new Shop(owner, block.getLocation(), template, bundleAmount, price,
                 currency == null ? Material.DIAMOND : currency, face);
-        shops.put(new BlockPosKey(block.getLocation()), s);
+        put(s);
         createSign(s);
+        stock.stock(s); // Erstmessung (meldet den neuen Shop an Kauforders)
+        plugin.snapshots().shopChanged(s.pos());
         saveShops();
     }
 
     public void removeShop(Block block) {
         BlockPosKey key = new BlockPosKey(block.getLocation());
-        Shop s = shops.remove(key);
+        Shop s = drop(key);
         if (s != null) {
             removeSign(s);
+            stock.remove(key);
+            plugin.snapshots().shopChanged(key);
+        }
+        saveShops();
+    }
+
+    /**
+     * Legt viele Shops auf einmal an (z.B. Migration). Der Besitzer muss nicht online sein, die
+     * Schildseite steht im Shop. Gespeichert wird einmal; Schilder und Erstmessung folgen zeitversetzt.
+     */
+    public void createShops(Collection<Shop> batch) {
+        for (Shop s : batch) {
+            put(s);
+            plugin.snapshots().shopChanged(s.pos());
+            signWork.add(new SignJob(s, true));
         }
         saveShops();
+        startSignWork();
+    }
+
+    /**
+     * Entfernt viele Shops auf einmal. Gespeichert wird einmal; die Schilder werden zeitversetzt entfernt.
+     *
+     * @return die entfernten Shops
+     */
+    public List<Shop> removeShops(Collection<BlockPosKey> positions) {
+        List<Shop> removed = new ArrayList<>();
+        for (BlockPosKey pos : positions) {
+            Shop s = drop(pos);
+            if (s == null) continue;
+            removed.add(s);
+            stock.remove(pos);
+            plugin.snapshots().shopChanged(pos);
+            signWork.add(new SignJob(s, false));
+        }
+        if (removed.isEmpty()) return removed;
+        saveShops();
+        startSignWork();
+        return removed;
+    }
+
+    // PERFORMANCE FIX: Schilder (Chunk-Zugriff) werden in Portionen pro Tick gesetzt statt alle auf einmal;
+    // ungeladene Chunks werden vorher asynchron geladen statt synchron über getBlock()
+    private void startSignWork() {
+        if (signTaskId != -1 || signWork.isEmpty()) return;
+        signTaskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, () -> {
+            int budget = Math.max(1, plugin.getConfig().getInt("shop-batch.signs-per-tick", 16));
+            for (int i = 0; i < budget && !signWork.isEmpty() && signLoading.size() < budget; i++) {
+                SignJob job = signWork.poll();
+                BlockPosKey pos = job.shop.pos();
+                World w = Bukkit.getWorld(pos.world);
+                if (w == null) continue;
+                if (w.isChunkLoaded(pos.x >> 4, pos.z >> 4)) {
+                    runSignJob(job, true);
+                    continue;
+                }
+                signLoading.add(job);
+                w.getChunkAtAsync(pos.x >> 4, pos.z >> 4).whenComplete((chunk, ex) -> {
+                    // Paper schließt das Future auf dem Hauptthread ab; beim Deaktivieren bereits erledigt
+                    if (!signLoading.remove(job) || ex != null) return;
+                    runSignJob(job, true);
+                });
+            }
+            if (signWork.isEmpty()) {
+                Bukkit.getScheduler().cancelTask(signTaskId);
+                signTaskId = -1;
+            }
+        }, 1L, 1L);
+    }
+
+    /**
+     * Erledigt alle ausstehenden Schilder sofort (beim Deaktivieren). Es wird nur das Schild gesetzt bzw.
+     * entfernt – keine Bestandsmessung, damit keine Listener (Kauforders, Snapshot) mehr anlaufen.
+     */
+    public void flushSignWork() {
+        if (signTaskId != -1) Bukkit.getScheduler().cancelTask(signTaskId);
+        signTaskId = -1;
+        for (SignJob job : signLoading) runSignJob(job, false);
+        signLoading.clear();
+        while (!signWork.isEmpty()) runSignJob(signWork.poll(), false);
+    }
+
+    private void runSignJob(SignJob job, boolean measure) {
+        if (!job.create) {
+            // BUGFIX: Inzwischen steht hier ein neuer Shop – dessen Schild nicht entfernen
+            if (shops.get(job.shop.pos()) == null) removeSign(job.shop);
+            return;
+        }
+        if (shops.get(job.shop.pos()) != job.shop) return; // inzwischen entfernt/ersetzt
+        createSign(job.shop);
+        if (measure) stock.stock(job.shop); // Erstmessung (meldet den neuen Shop an Kauforders)
+    }
+
+    /** Schild setzen (neuer Shop) oder entfernen. */
+    private static final class SignJob {
+        final Shop shop;
+        final boolean create;
+
+        SignJob(Shop shop, boolean create) {
+            this.shop = shop;
+            this.create = create;
+        }
     }
 
     public void loadShops() {
         shops.clear();
+        byMaterial.clear();
+        stock.clear();
         try {
             if (!file.exists()) {
                 file.getParentFile().mkdirs();
@@ -97,7 +248,10 @@ public class ShopManager {
 
                     Shop s = new Shop(owner, loc, template, bundle, price,
                             currency == null ? Material.DIAMOND : currency, face);
-                    shops.put(new BlockPosKey(loc), s);
+                    put(s);
+                    if (data.contains(base + "stock")) {
+                        stock.put(s.pos(), data.getInt(base + "stock"), data.getLong(base + "stockTime"));
+                    }
                     createSign(s);
                 } catch (Exception e) {
                     plugin.getLogger().severe("Fehler beim Laden von Shop '" + key + "': " + e.getMessage());
@@ -125,6 +279,11 @@ public class ShopManager {
                 data.set(base + "y", s.pos().y);
                 data.set(base + "z", s.pos().z);
                 data.set(base + "signFace", s.signFace().name());
+                StockCache.Entry st = stock.get(s.pos());
+                if (st != null) {
+                    data.set(base + "stock", st.items());
+                    data.set(base + "stockTime", st.updatedAt());
+                }
             }
             data.save(file);
         } catch (IOException e) {
@@ -144,7 +303,7 @@ public class ShopManager {
         sign.setBlockData(wall);
 
         sign.setLine(0, "§6Shop");
-        sign.setLine(1, prettyItem(shop.template()));
+        sign.setLine(1, GuiItems.plainName(shop.template()));
         sign.setLine(2, shop.bundleAmount() + "x");
         sign.setLine(3, shop.price() + " " + shop.currency().name());
         sign.update(true);
@@ -158,13 +317,6 @@ public class ShopManager {
         }
     }
 
-    private String prettyItem(ItemStack is) {
-        if (is.getItemMeta() != null && is.getItemMeta().hasDisplayName()) {
-            return is.getItemMeta().getDisplayName();
-        }
-        String n = is.getType().name().toLowerCase(Locale.ROOT).replace('_',' ');
-        return Character.toUpperCase(n.charAt(0)) + n.substring(1);
-    }
 
     public static Optional<org.bukkit.inventory.Inventory> getContainerInventory(Block block) {
         if (block == null) return Optional.empty();
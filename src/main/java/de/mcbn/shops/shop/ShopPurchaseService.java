@@ -0,0 +1,130 @@
+package de.mcbn.shops.shop;
+
+import de.mcbn.shops.Main;
+import de.mcbn.shops.api.event.ShopPurchaseEvent;
+import de.mcbn.shops.gui.GuiItems;
+import de.mcbn.shops.market.PriceHistory;
+import de.mcbn.shops.util.InventoryUtils;
+import de.mcbn.shops.util.Messages;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Optional;
+
+/**
+ * Kauf-Logik für Shop-Kisten. Eine Instanz pro Plugin ({@link Main#purchases()}); genutzt von
+ * Listenern, GUIs, Shopkeepern und dem Orderbuch.
+ */
+public class ShopPurchaseService {
+
+    private final Main plugin;
+    private final ShopManager shops;
+    private final Messages msg;
+
+    public ShopPurchaseService(Main plugin, ShopManager shops) {
+        this.plugin = plugin;
+        this.shops = shops;
+        this.msg = plugin.messages();
+    }
+
+    /**
+     * Kauft {@code bundles} Bundles für einen Spieler, der mit Währung aus seinem Inventar bezahlt.
+     *
+     * @return true, wenn gekauft wurde (Fehler werden dem Käufer gemeldet)
+     */
+    public boolean performPurchase(Player buyer, Block block, Shop s, int bundles) {
+        // Fire purchase event
+        ShopPurchaseEvent purchaseEvent = new ShopPurchaseEvent(buyer, s, bundles);
+        Bukkit.getPluginManager().callEvent(purchaseEvent);
+
+        if (purchaseEvent.isCancelled()) {
+            buyer.sendMessage(msg.prefixed("purchase-cancelled"));
+            return false;
+        }
+
+        Optional<Inventory> invOpt = ShopManager.getContainerInventory(block);
+        if (!invOpt.isPresent()) {
+            buyer.sendMessage(msg.prefixed("not-a-container"));
+            return false;
+        }
+        Inventory shopInv = invOpt.get();
+
+        int stockItems = InventoryUtils.countSimilar(shopInv, s.template());
+        int stockBundles = stockItems / s.bundleAmount();
+        if (stockBundles < bundles) {
+            buyer.sendMessage(msg.prefixedFormat("buy-insufficient-stock", "bundles", String.valueOf(stockBundles)));
+            return false;
+        }
+
+        int price = s.price() * bundles;
+        int playerCurrency = 0;
+        for (ItemStack is : buyer.getInventory().getContents()) {
+            if (is != null && is.getType() == s.currency()) playerCurrency += is.getAmount();
+        }
+        if (playerCurrency < price) {
+            buyer.sendMessage(msg.prefixedFormat("buy-insufficient-funds", "currency", s.currency().name()));
+            return false;
+        }
+
+        int removedCur = InventoryUtils.removeMaterial(buyer.getInventory(), s.currency(), price);
+        if (removedCur != price) {
+            buyer.sendMessage(msg.prefixedFormat("buy-insufficient-funds", "currency", s.currency().name()));
+            return false;
+        }
+
+        ItemStack give = transfer(shopInv, block, s, bundles, stockItems);
+        if (give == null) {
+            buyer.getInventory().addItem(new ItemStack(s.currency(), price)); // rollback
+            buyer.sendMessage(msg.prefixed("buy-insufficient-stock"));
+            return false;
+        }
+        InventoryUtils.giveOrDrop(buyer, give);
+
+        buyer.sendMessage(msg.prefixedFormat("buy-success",
+                "totalItems", String.valueOf(give.getAmount()),
+                "item", GuiItems.plainName(s.template()),
+                "paid", String.valueOf(price),
+                "currency", s.currency().name()));
+        return true;
+    }
+
+    /**
+     * Kauf für eine stehende Kauforder: bezahlt wird aus deren Treuhand, der Käufer muss nicht online
+     * sein. Läuft über denselben Kisten-Pfad wie {@link #performPurchase}.
+     *
+     * @return gekaufte Items oder null (kein Behälter, zu wenig Bestand)
+     */
+    public ItemStack fillOrder(Block block, Shop s, int bundles) {
+        Optional<Inventory> invOpt = ShopManager.getContainerInventory(block);
+        if (!invOpt.isPresent()) return null;
+        int stockItems = InventoryUtils.countSimilar(invOpt.get(), s.template());
+        if (stockItems / s.bundleAmount() < bundles) return null;
+        return transfer(invOpt.get(), block, s, bundles, stockItems);
+    }
+
+    /**
+     * Gemeinsamer Teil jedes Kaufs: entnimmt die Bundles der Kiste, legt die Bezahlung hinein und
+     * verbucht den Handel. Der Käufer muss bereits belastet sein.
+     *
+     * @return die gekauften Items oder null, wenn die Kiste nicht genug enthielt
+     */
+    private ItemStack transfer(Inventory shopInv, Block block, Shop s, int bundles, int stockItems) {
+        int price = s.price() * bundles;
+        int toGiveItems = s.bundleAmount() * bundles;
+        int removedItems = InventoryUtils.removeSimilar(shopInv, s.template(), toGiveItems);
+        shops.stock().put(s.pos(), stockItems - removedItems);
+        if (removedItems != toGiveItems) return null;
+
+        ItemStack currencyStack = new ItemStack(s.currency(), price);
+        InventoryUtils.addOrDropToInventory(shopInv, currencyStack, block.getLocation().add(0.5, 0.5, 0.5));
+
+        plugin.market().record(s.template().getType(), toGiveItems, price, PriceHistory.Source.SHOP);
+
+        ItemStack give = s.template().clone();
+        give.setAmount(toGiveItems);
+        return give;
+    }
+}
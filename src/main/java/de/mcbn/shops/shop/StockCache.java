@@ -0,0 +1,102 @@
+package de.mcbn.shops.shop;
+
+import de.mcbn.shops.util.BlockPosKey;
+import de.mcbn.shops.util.InventoryUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.inventory.Inventory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Zuletzt bekannter Bestand (in Items) je Shop.
+ * <p>
+ * Wird bei jedem Lesen einer Shop-Kiste (Schild-Refresh, Kauf, Einkaufsreise) aktualisiert und mit
+ * {@code shops.yml} gespeichert. Planungen für Shops in ungeladenen Chunks greifen auf diesen Wert
+ * zurück, statt den Chunk zu laden.
+ */
+public class StockCache {
+
+    /** Bestand und Zeitpunkt der Messung. */
+    public static final class Entry {
+        private final int items;
+        private final long updatedAt;
+
+        Entry(int items, long updatedAt) {
+            this.items = items;
+            this.updatedAt = updatedAt;
+        }
+
+        public int items() { return items; }
+        public long updatedAt() { return updatedAt; }
+    }
+
+    /** Wird benachrichtigt, wenn sich ein gemessener Bestand ändert (Hauptthread). */
+    public interface ChangeListener {
+        /**
+         * @param before vorheriger Bestand in Items (-1 = bisher unbekannt)
+         * @param after neuer Bestand in Items (-1 = Shop entfernt)
+         */
+        void onStockChanged(BlockPosKey pos, int before, int after);
+    }
+
+    private final Map<BlockPosKey, Entry> entries = new ConcurrentHashMap<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Registriert einen Listener für Bestandsänderungen (Kauforders, offene GUIs). */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /** Merkt sich einen gemessenen Bestand. */
+    public void put(BlockPosKey pos, int items) {
+        Entry old = entries.get(pos);
+        put(pos, items, System.currentTimeMillis());
+        int after = Math.max(0, items);
+        if (old == null || old.items != after) {
+            for (ChangeListener l : listeners) l.onStockChanged(pos, old == null ? -1 : old.items, after);
+        }
+    }
+
+    void put(BlockPosKey pos, int items, long updatedAt) {
+        entries.put(pos, new Entry(Math.max(0, items), updatedAt));
+    }
+
+    public void remove(BlockPosKey pos) {
+        Entry old = entries.remove(pos);
+        for (ChangeListener l : listeners) l.onStockChanged(pos, old == null ? -1 : old.items, -1);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /** Letzter bekannter Bestand oder null, wenn der Shop noch nie gelesen wurde. */
+    public Entry get(BlockPosKey pos) {
+        return entries.get(pos);
+    }
+
+    /**
+     * Bestand eines Shops: liest die Kiste, wenn ihr Chunk geladen ist, sonst den Cache.
+     *
+     * @return Items oder -1, wenn unbekannt
+     */
+    public int stock(Shop s) {
+        BlockPosKey pos = s.pos();
+        World w = Bukkit.getWorld(pos.world);
+        if (w != null && w.isChunkLoaded(pos.x >> 4, pos.z >> 4)) {
+            Optional<Inventory> inv = ShopManager.getContainerInventory(w.getBlockAt(pos.x, pos.y, pos.z));
+            if (inv.isPresent()) {
+                int items = InventoryUtils.countSimilar(inv.get(), s.template());
+                put(pos, items);
+                return items;
+            }
+        }
+        Entry e = entries.get(pos);
+        return e == null ? -1 : e.items;
+    }
+}
@@ -2,25 +2,45 @@ package de.mcbn.shops.util;
 
 import de.mcbn.shops.Main;
 import de.mcbn.shops.auction.AuctionManager;
+import de.mcbn.shops.auction.ClaimMailbox;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
-
-import java.util.List;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
- * Service für periodische Erinnerungen an nicht abgeholte Auktionsgewinne.
+ * Service für Erinnerungen an nicht abgeholte Auktionsgewinne.
  * <p>
- * Sendet alle X Minuten (konfigurierbar) Erinnerungen an Spieler,
- * die noch Items oder Währung abholen müssen.
+ * Erinnert wird ereignisgesteuert: beim Join (kurz verzögert) und sobald neue Items oder
+ * Währung im Postfach landen. Pro Spieler gilt eine Abklingzeit
+ * ({@code auctions.reminder-cooldown-minutes}). Der periodische Task besucht nur Spieler,
+ * die online sind und etwas abzuholen haben – nicht mehr alle Postfächer.
  */
-public class AuctionReminderService {
+public class AuctionReminderService implements Listener, ClaimMailbox.ChangeListener {
+
+    private static final String LINE = "§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━";
 
     private final Main plugin;
     private final AuctionManager auctionManager;
     private int taskId = -1;
+    private long cooldownMillis;
+
+    /** Online-Spieler mit nicht-leerem Postfach. */
+    private final Set<UUID> pendingOnline = new HashSet<>();
+    /** Zeitpunkt der letzten Erinnerung; abgelaufene Einträge werden im Task entfernt. */
+    private final Map<UUID, Long> lastReminded = new HashMap<>();
+    /** Fertig gebaute Nachrichtenblöcke, ungültig bei jeder Postfach-Änderung. */
+    private final Map<UUID, String[]> blocks = new HashMap<>();
 
     public AuctionReminderService(Main plugin, AuctionManager auctionManager) {
         this.plugin = plugin;
@@ -33,7 +53,16 @@ public class AuctionReminderService {
     public void start() {
         stop(); // Stop existing task if any
 
+        ClaimMailbox mailbox = auctionManager.mailbox();
+        mailbox.setChangeListener(this);
+
+        // Zustand nach (Re-)Load aus den aktuell verbundenen Spielern aufbauen
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (mailbox.hasMail(player.getUniqueId())) pendingOnline.add(player.getUniqueId());
+        }
+
         int intervalMinutes = plugin.getConfig().getInt("auctions.reminder-interval-minutes", 15);
+        cooldownMillis = Math.max(0, plugin.getConfig().getInt("auctions.reminder-cooldown-minutes", 5)) * 60_000L;
         if (intervalMinutes <= 0) {
             plugin.getLogger().info("Auction reminders deaktiviert (interval <= 0)");
             return;
@@ -60,78 +89,110 @@ public class AuctionReminderService {
             Bukkit.getScheduler().cancelTask(taskId);
             taskId = -1;
         }
+        auctionManager.mailbox().setChangeListener(null);
+        pendingOnline.clear();
+        blocks.clear();
+    }
+
+    /* =================== Ereignisse =================== */
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        UUID id = event.getPlayer().getUniqueId();
+        if (taskId == -1 || !auctionManager.mailbox().hasMail(id)) return;
+        pendingOnline.add(id);
+        // Kurz warten, damit die Erinnerung nicht in den Join-Nachrichten untergeht
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            Player player = Bukkit.getPlayer(id);
+            if (player != null) remind(player, System.currentTimeMillis());
+        }, 60L);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID id = event.getPlayer().getUniqueId();
+        pendingOnline.remove(id);
+        blocks.remove(id);
+    }
+
+    @Override
+    public void onMailChanged(UUID player, boolean deposited) {
+        blocks.remove(player);
+        Player online = Bukkit.getPlayer(player);
+        if (online == null) return;
+        if (!auctionManager.mailbox().hasMail(player)) {
+            pendingOnline.remove(player);
+            return;
+        }
+        pendingOnline.add(player);
+        if (deposited && taskId != -1) {
+            // Mehrere Gutschriften im selben Tick (Auktionsende) ergeben eine Erinnerung
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                Player p = Bukkit.getPlayer(player);
+                if (p != null) remind(p, System.currentTimeMillis());
+            });
+        }
     }
 
+    /* =================== Versand =================== */
+
     /**
-     * Sendet Erinnerungen an alle Spieler mit nicht abgeholten Items/Währung.
+     * Erinnert alle Online-Spieler mit offenen Abholungen, deren Abklingzeit vorbei ist.
      */
     private void sendReminders() {
-        Map<UUID, List<ItemStack>> pendingItems = auctionManager.getPendingItems();
-        Map<UUID, Integer> pendingCurrency = auctionManager.getPendingCurrency();
-
-        // Collect all players with pending claims
-        for (UUID playerId : pendingItems.keySet()) {
-            sendReminder(playerId, pendingItems.get(playerId), pendingCurrency.getOrDefault(playerId, 0));
+        long now = System.currentTimeMillis();
+        lastReminded.values().removeIf(t -> now - t >= cooldownMillis);
+
+        for (Iterator<UUID> it = pendingOnline.iterator(); it.hasNext(); ) {
+            Player player = Bukkit.getPlayer(it.next());
+            if (player == null) {
+                it.remove();
+                continue;
+            }
+            remind(player, now);
         }
+    }
 
-        // Also check players with only currency
-        for (UUID playerId : pendingCurrency.keySet()) {
-            if (!pendingItems.containsKey(playerId)) {
-                sendReminder(playerId, null, pendingCurrency.get(playerId));
+    private void remind(Player player, long now) {
+        UUID id = player.getUniqueId();
+        if (!pendingOnline.contains(id)) return;
+        Long last = lastReminded.get(id);
+        if (last != null && now - last < cooldownMillis) return;
+
+        String[] block = blocks.get(id);
+        if (block == null) {
+            ClaimMailbox mailbox = auctionManager.mailbox();
+            block = buildBlock(mailbox.itemCount(id), mailbox.currency(id));
+            if (block == null) {
+                pendingOnline.remove(id);
+                return;
             }
+            blocks.put(id, block);
         }
+        player.sendMessage(block);
+        lastReminded.put(id, now);
     }
 
     /**
-     * Sendet eine Erinnerung an einen Spieler.
+     * Baut den Erinnerungsblock.
      *
-     * @param playerId Der Spieler
-     * @param items Liste der nicht abgeholten Items (kann null sein)
+     * @param itemCount Anzahl nicht abgeholter Items
      * @param currency Menge der nicht abgeholten Währung
+     * @return Zeilen oder null, wenn nichts abzuholen ist
      */
-    private void sendReminder(UUID playerId, List<ItemStack> items, int currency) {
-        Player player = Bukkit.getPlayer(playerId);
-
-        // Only send to online players
-        if (player == null || !player.isOnline()) {
-            return;
-        }
-
-        int itemCount = (items != null) ? items.size() : 0;
-
-        // Build reminder message
+    private static String[] buildBlock(int itemCount, int currency) {
+        String what;
         if (itemCount > 0 && currency > 0) {
-            // Both items and currency
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            player.sendMessage("§e§lAuktions-Erinnerung");
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            player.sendMessage("");
-            player.sendMessage("§7Du hast noch §e" + itemCount + " Item(s) §7und");
-            player.sendMessage("§e" + currency + " Währung §7abzuholen!");
-            player.sendMessage("");
-            player.sendMessage("§7Nutze §a/auction claim §7um alles abzuholen.");
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+            what = "§7Du hast noch §e" + itemCount + " Item(s) §7und\n§e" + currency + " Währung §7abzuholen!";
         } else if (itemCount > 0) {
-            // Only items
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            player.sendMessage("§e§lAuktions-Erinnerung");
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            player.sendMessage("");
-            player.sendMessage("§7Du hast noch §e" + itemCount + " Item(s) §7abzuholen!");
-            player.sendMessage("");
-            player.sendMessage("§7Nutze §a/auction claim §7um alles abzuholen.");
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+            what = "§7Du hast noch §e" + itemCount + " Item(s) §7abzuholen!";
         } else if (currency > 0) {
-            // Only currency
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            player.sendMessage("§e§lAuktions-Erinnerung");
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            player.sendMessage("");
-            player.sendMessage("§7Du hast noch §e" + currency + " Währung §7abzuholen!");
-            player.sendMessage("");
-            player.sendMessage("§7Nutze §a/auction claim §7um alles abzuholen.");
-            player.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+            what = "§7Du hast noch §e" + currency + " Währung §7abzuholen!";
+        } else {
+            return null;
         }
+        return (LINE + "\n§e§lAuktions-Erinnerung\n" + LINE + "\n\n" + what
+                + "\n\n§7Nutze §a/auction claim §7um alles abzuholen.\n" + LINE).split("\n", -1);
     }
 
     /**
@@ -4,6 +4,7 @@ import de.mcbn.shops.Main;
 import de.mcbn.shops.auction.Auction;
 import de.mcbn.shops.auction.AuctionLot;
 import de.mcbn.shops.auction.AuctionManager;
+import de.mcbn.shops.gui.GuiItems;
 import org.bukkit.Bukkit;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
@@ -216,7 +217,7 @@ public class BossBarService {
      */
     private String buildPermanentTitle(AuctionLot lot, long remainingMs) {
         String timeStr = formatTime(remainingMs);
-        String itemName = pretty(lot.item());
+        String itemName = itemName(lot.item());
         int currentPrice = lot.currentPrice();
 
         if (lot.highestBidder() != null) {
@@ -231,7 +232,7 @@ public class BossBarService {
      */
     private String buildTemporaryTitle(AuctionLot lot, long remainingMs) {
         String timeStr = formatTime(remainingMs);
-        String itemName = pretty(lot.item());
+        String itemName = itemName(lot.item());
         int currentPrice = lot.currentPrice();
 
         return "§6Auktion: " + itemName + " §7- §eGebot: §f" + currentPrice + " §7- §aEndet in: §f" + timeStr;
@@ -323,14 +324,9 @@ public class BossBarService {
         }
     }
 
-    private String pretty(org.bukkit.inventory.ItemStack is) {
-        if (is.getItemMeta() != null && is.getItemMeta().hasDisplayName()) {
-            return is.getItemMeta().getDisplayName();
-        }
-        String name = is.getType().name().replace('_', ' ').toLowerCase();
-        if (is.getAmount() > 1) {
-            return name + " x" + is.getAmount();
-        }
-        return name;
+    /** Item-Name für den Titel, bei Stacks mit Anzahl. */
+    private static String itemName(org.bukkit.inventory.ItemStack is) {
+        String name = GuiItems.plainName(is);
+        return is.getAmount() > 1 ? name + " x" + is.getAmount() : name;
     }
 }
@@ -1,6 +1,7 @@
 package de.mcbn.shops.util;
 
 import de.mcbn.shops.Main;
+import de.mcbn.shops.gui.GuiItems;
 import de.mcbn.shops.shop.Shop;
 import de.mcbn.shops.shop.ShopManager;
 import org.bukkit.*;
@@ -58,6 +59,7 @@ public class DisplayService {
             if (!invOpt.isPresent()) continue;
 
             int stock = InventoryUtils.countSimilar(invOpt.get(), shop.template());
+            shopManager.stock().put(shop.pos(), stock);
             boolean hasStock = stock >= shop.bundleAmount();
 
             if (!hasStock) {
@@ -88,7 +90,7 @@ public class DisplayService {
 
             // Text aktualisieren (sauberes Farbformat)
             Sign sign = (Sign) signBlock.getState();
-            sign.setLine(0, ChatColor.GOLD.toString() + ChatColor.BOLD + prettyItem(shop.template()));
+            sign.setLine(0, ChatColor.GOLD.toString() + ChatColor.BOLD + GuiItems.plainName(shop.template()));
             sign.setLine(1, ChatColor.YELLOW.toString() + shop.bundleAmount() + "x");
             sign.setLine(2, ChatColor.AQUA.toString() + "für " + ChatColor.WHITE + shop.price() + " " + shop.currency().name());
             sign.setLine(3, hasStock ? ChatColor.GREEN + "Verfügbar" : ChatColor.RED + "Leer");
@@ -103,10 +105,4 @@ public class DisplayService {
                 || b.getType() == Material.ACACIA_WALL_SIGN || b.getType() == Material.JUNGLE_WALL_SIGN;
     }
 
-    private String prettyItem(org.bukkit.inventory.ItemStack is) {
-        if (is.getItemMeta() != null && is.getItemMeta().hasDisplayName())
-            return is.getItemMeta().getDisplayName();
-        String n = is.getType().name().toLowerCase().replace('_', ' ');
-        return Character.toUpperCase(n.charAt(0)) + n.substring(1);
-    }
 }
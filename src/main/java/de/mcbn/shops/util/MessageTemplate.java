@@ -0,0 +1,104 @@
+package de.mcbn.shops.util;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vorkompilierte Nachricht aus messages.yml.
+ * <p>
+ * Farbcodes werden beim Kompilieren übersetzt, der Text in feste Stücke und Platzhalter
+ * ({@code {name}}) zerlegt. Das Rendern hängt alles in einem Durchgang an einen passend
+ * vorbelegten {@link StringBuilder} an – ohne Zwischen-Strings pro Platzhalter.
+ */
+public final class MessageTemplate {
+
+    static final MessageTemplate EMPTY = compile("");
+
+    private final String text;          // vollständiger Text (Platzhalter unverändert)
+    private final String[] literals;    // literals.length == keys.length + 1
+    private final String[] keys;
+    private final int literalLength;
+
+    private MessageTemplate(String text, String[] literals, String[] keys) {
+        this.text = text;
+        this.literals = literals;
+        this.keys = keys;
+        int len = 0;
+        for (String l : literals) len += l.length();
+        this.literalLength = len;
+    }
+
+    /** Übersetzt {@code &}-Farbcodes und zerlegt den Text. */
+    public static MessageTemplate compile(String source) {
+        String text = ChatColor.translateAlternateColorCodes('&', source == null ? "" : source);
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = text.indexOf('{', from)) >= 0) {
+            int close = text.indexOf('}', open + 1);
+            if (close < 0) break;
+            String key = text.substring(open + 1, close);
+            if (key.isEmpty() || key.indexOf('{') >= 0) { // kein Platzhalter, '{' als Text behalten
+                int keep = key.isEmpty() ? close + 1 : open + 1;
+                appendLiteral(literals, keys.size(), text.substring(from, keep));
+                from = keep;
+                continue;
+            }
+            appendLiteral(literals, keys.size(), text.substring(from, open));
+            keys.add(key);
+            from = close + 1;
+        }
+        appendLiteral(literals, keys.size(), text.substring(from));
+        return new MessageTemplate(text, literals.toArray(new String[0]), keys.toArray(new String[0]));
+    }
+
+    /** Hängt Text an das Stück vor dem Platzhalter {@code index} an (legt es bei Bedarf an). */
+    private static void appendLiteral(List<String> literals, int index, String lit) {
+        if (literals.size() > index) literals.set(index, literals.get(index) + lit);
+        else literals.add(lit);
+    }
+
+    /** Text ohne ersetzte Platzhalter. */
+    public String text() {
+        return text;
+    }
+
+    public boolean hasPlaceholders() {
+        return keys.length > 0;
+    }
+
+    /**
+     * Ersetzt Platzhalter; {@code placeholders} sind Paare aus Name und Wert. Unbekannte Platzhalter
+     * bleiben als {@code {name}} stehen.
+     */
+    public String render(String... placeholders) {
+        return renderPrefixed(null, placeholders);
+    }
+
+    /** Wie {@link #render(String...)}, mit vorangestelltem Präfix im selben Puffer. */
+    public String renderPrefixed(String prefix, String... placeholders) {
+        if (keys.length == 0) return prefix == null ? text : prefix.concat(text);
+        int size = literalLength + (prefix == null ? 0 : prefix.length());
+        for (int i = 1; i < placeholders.length; i += 2) size += placeholders[i] == null ? 4 : placeholders[i].length();
+        StringBuilder sb = new StringBuilder(size);
+        if (prefix != null) sb.append(prefix);
+        sb.append(literals[0]);
+        for (int k = 0; k < keys.length; k++) {
+            String value = lookup(keys[k], placeholders);
+            if (value != null) sb.append(value);
+            else sb.append('{').append(keys[k]).append('}');
+            sb.append(literals[k + 1]);
+        }
+        return sb.toString();
+    }
+
+    private static String lookup(String key, String[] placeholders) {
+        for (int i = 0; i + 1 < placeholders.length; i += 2) {
+            if (key.equals(placeholders[i])) return placeholders[i + 1];
+        }
+        return null;
+    }
+}
@@ -1,16 +1,28 @@
 package de.mcbn.shops.util;
 
 import de.mcbn.shops.Main;
-import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Nachrichten aus messages.yml.
+ * <p>
+ * PERFORMANCE FIX: Die Datei wird beim Laden/Reload komplett zu {@link MessageTemplate}s kompiliert;
+ * {@link #raw}/{@link #format} lesen danach nur noch eine unveränderliche Map. Ein Reload baut eine
+ * neue Map und tauscht sie in einem Schritt aus – Leser sehen nie einen halb geladenen Stand.
+ */
 public class Messages {
 
     private final Main plugin;
-    private FileConfiguration cfg;
+    private volatile Compiled compiled = new Compiled(Collections.emptyMap());
 
     public Messages(Main plugin) {
         this.plugin = plugin;
@@ -19,27 +31,57 @@ public class Messages {
 
     public void reload() {
         File file = new File(plugin.getDataFolder(), "messages.yml");
-        this.cfg = YamlConfiguration.loadConfiguration(file);
+        FileConfiguration cfg = YamlConfiguration.loadConfiguration(file);
+        // BUGFIX: Neue Schlüssel fehlen in bestehenden Dateien (saveResource überschreibt nicht) –
+        // die mitgelieferte messages.yml dient als Vorgabe
+        InputStream bundled = plugin.getResource("messages.yml");
+        if (bundled != null) {
+            cfg.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(bundled, StandardCharsets.UTF_8)));
+            cfg.options().copyDefaults(true); // getKeys liefert dann auch die Vorgaben
+        }
+        Map<String, MessageTemplate> templates = new HashMap<>();
+        for (String key : cfg.getKeys(true)) {
+            if (cfg.isString(key)) templates.put(key, MessageTemplate.compile(cfg.getString(key)));
+        }
+        this.compiled = new Compiled(templates);
+    }
+
+    /** Vorkompilierte Vorlage (leer, wenn der Schlüssel fehlt). */
+    public MessageTemplate template(String path) {
+        return compiled.get(path);
     }
 
     public String raw(String path) {
-        String s = cfg.getString(path, "");
-        return ChatColor.translateAlternateColorCodes('&', s);
+        return compiled.get(path).text();
     }
 
     public String prefixed(String path) {
-        return raw("prefix") + raw(path);
+        Compiled c = compiled;
+        return c.prefix.concat(c.get(path).text());
     }
 
     public String format(String key, String... placeholders) {
-        String base = raw(key);
-        for (int i = 0; i + 1 < placeholders.length; i += 2) {
-            base = base.replace("{" + placeholders[i] + "}", placeholders[i + 1]);
-        }
-        return base;
+        return compiled.get(key).render(placeholders);
     }
 
     public String prefixedFormat(String key, String... placeholders) {
-        return raw("prefix") + format(key, placeholders);
+        Compiled c = compiled;
+        return c.get(key).renderPrefixed(c.prefix, placeholders);
+    }
+
+    /** Unveränderlicher Stand einer geladenen messages.yml. */
+    private static final class Compiled {
+        final Map<String, MessageTemplate> templates;
+        final String prefix;
+
+        Compiled(Map<String, MessageTemplate> templates) {
+            this.templates = templates;
+            this.prefix = get("prefix").text();
+        }
+
+        MessageTemplate get(String path) {
+            MessageTemplate t = templates.get(path);
+            return t != null ? t : MessageTemplate.EMPTY;
+        }
     }
 }